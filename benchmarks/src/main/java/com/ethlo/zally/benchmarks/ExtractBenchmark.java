@@ -0,0 +1,141 @@
+package com.ethlo.zally.benchmarks;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ethlo.zally.ExtractMojo;
+import com.ethlo.zally.FilterIndex;
+import com.ethlo.zally.OpenApiParser;
+import com.ethlo.zally.OperationData;
+import com.ethlo.zally.OperationFilter;
+import io.swagger.v3.core.model.ApiDescription;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+
+/**
+ * Cost of matching every operation of a specification against a set of extraction filters
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExtractBenchmark
+{
+    @Param({"100", "1000"})
+    private int paths;
+
+    @Param({"3"})
+    private int operations;
+
+    @Param({"10", "40", "400"})
+    private int filterCount;
+
+    private final List<OperationData> operationData = new ArrayList<>();
+
+    private final List<OperationFilter> filters = new ArrayList<>();
+
+    private FilterIndex index;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final String url = SpecGenerator.write(Files.createTempDirectory("zally-benchmark"), paths, operations, 20, 2).toString();
+        final OpenAPI openAPI = new OpenApiParser().parse(url);
+        for (Map.Entry<String, PathItem> pathEntry : openAPI.getPaths().entrySet())
+        {
+            for (Map.Entry<PathItem.HttpMethod, Operation> operationEntry : pathEntry.getValue().readOperationsMap().entrySet())
+            {
+                final Operation operation = operationEntry.getValue();
+                final Map<String, Object> extensions = new LinkedHashMap<>(Optional.ofNullable(operation.getExtensions()).orElse(Collections.emptyMap()));
+                operationData.add(new OperationData(operation, new ApiDescription(pathEntry.getKey(), operationEntry.getKey().name().toLowerCase()), extensions));
+            }
+        }
+
+        // Mostly distinct literal filters, as found in large extraction definitions
+        for (int i = 0; i < filterCount; i++)
+        {
+            switch (i % 4)
+            {
+                case 0:
+                case 1:
+                    filters.add(new OperationFilter("operationId", "getResource" + (i * 7 + paths)));
+                    break;
+                case 2:
+                    filters.add(new OperationFilter("tags", "tag-" + (i + 10)));
+                    break;
+                default:
+                    filters.add(new OperationFilter("path", "/resources-" + (i % 20) + "/sub-resources-" + (i * 3) + "/.*"));
+            }
+        }
+        filters.add(new OperationFilter("extensions/x-audience", "external-.*"));
+        index = new FilterIndex(filters);
+    }
+
+    @Benchmark
+    public int match()
+    {
+        int matched = 0;
+        for (OperationData data : operationData)
+        {
+            for (OperationFilter filter : filters)
+            {
+                if (ExtractMojo.match(filter, data))
+                {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int matchIndexed()
+    {
+        int matched = 0;
+        for (OperationData data : operationData)
+        {
+            if (index.match(data).isPresent())
+            {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ethlo.zally.benchmarks;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ethlo.zally.OpenApiParser;
+import com.ethlo.zally.Resolution;
+import io.swagger.v3.oas.models.OpenAPI;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseBenchmark
+{
+    @Param({"50", "500"})
+    private int paths;
+
+    @Param({"4"})
+    private int operations;
+
+    @Param({"50"})
+    private int schemas;
+
+    @Param({"2", "10"})
+    private int refDepth;
+
+    private String url;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        url = SpecGenerator.write(Files.createTempDirectory("zally-benchmark"), paths, operations, schemas, refDepth).toString();
+    }
+
+    @Benchmark
+    public OpenAPI parse()
+    {
+        return new OpenApiParser().parse(url);
+    }
+
+    @Benchmark
+    public OpenAPI parseInlined()
+    {
+        return new OpenApiParser().parseInlined(url);
+    }
+
+    @Benchmark
+    public OpenAPI parseLazy()
+    {
+        final OpenApiParser parser = new OpenApiParser();
+        return parser.resolve(parser.parse(url), Resolution.LAZY);
+    }
+}
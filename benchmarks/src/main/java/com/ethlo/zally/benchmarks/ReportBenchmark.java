@@ -0,0 +1,111 @@
+package com.ethlo.zally.benchmarks;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ethlo.zally.ApiInventory;
+import com.ethlo.zally.ApiReporter;
+import com.ethlo.zally.InventoryFormat;
+import com.ethlo.zally.OpenApiParser;
+import io.swagger.v3.oas.models.OpenAPI;
+
+/**
+ * Cost of rendering the path hierarchy and the inventory of a specification
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReportBenchmark
+{
+    @Param({"100", "5000"})
+    private int paths;
+
+    private OpenAPI openAPI;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final String url = SpecGenerator.write(Files.createTempDirectory("zally-benchmark"), paths, 2, 10, 1).toString();
+        openAPI = new OpenApiParser().parse(url);
+    }
+
+    @Benchmark
+    public String render()
+    {
+        return new ApiReporter(openAPI).render();
+    }
+
+    @Benchmark
+    public String inventory() throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        new ApiInventory(openAPI).write("api.yaml", InventoryFormat.JSON, out);
+        return out.toString();
+    }
+
+    /**
+     * Lines passed on as rendered, without holding the output
+     */
+    @Benchmark
+    public void renderToWriter(final Blackhole blackhole) throws IOException
+    {
+        new ApiReporter(openAPI).render(new Writer()
+        {
+            @Override
+            public void write(final char[] buffer, final int offset, final int length)
+            {
+                blackhole.consume(length);
+            }
+
+            @Override
+            public Writer append(final CharSequence sequence)
+            {
+                blackhole.consume(sequence.length());
+                return this;
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        });
+    }
+}
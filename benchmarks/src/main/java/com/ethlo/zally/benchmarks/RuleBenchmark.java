@@ -0,0 +1,113 @@
+package com.ethlo.zally.benchmarks;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.zalando.zally.core.DefaultContext;
+import org.zalando.zally.core.RuleDetails;
+import org.zalando.zally.rule.api.Check;
+import org.zalando.zally.rule.api.Context;
+
+import com.ethlo.zally.OpenApiParser;
+import com.ethlo.zally.ZallyRunner;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Cost of the checks of a single rule against an already parsed and resolved specification
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RuleBenchmark
+{
+    @Param({"500"})
+    private int paths;
+
+    @Param({"4"})
+    private int operations;
+
+    @Param({"50"})
+    private int schemas;
+
+    @Param({"5"})
+    private int refDepth;
+
+    @Param({
+            "CommonFieldTypesRule",
+            "PluralizeResourceNamesRule",
+            "SnakeCaseInPropNameRule",
+            "UseProblemJsonRule",
+            "WhiteListedPluralizeNamesForArraysRule"
+    })
+    private String rule;
+
+    private Context context;
+
+    private Object instance;
+
+    private final List<Method> checks = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final String url = SpecGenerator.write(Files.createTempDirectory("zally-benchmark"), paths, operations, schemas, refDepth).toString();
+        context = new DefaultContext("", new OpenApiParser().parseInlined(url), null);
+
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new QuietLog());
+        final RuleDetails ruleDetails = runner.getRules().stream()
+                .filter(r -> r.getInstance().getClass().getSimpleName().equals(rule))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No such rule: " + rule));
+        instance = ruleDetails.getInstance();
+        for (Method method : instance.getClass().getDeclaredMethods())
+        {
+            if (method.getAnnotation(Check.class) != null && method.getParameterTypes().length == 1 && method.getParameterTypes()[0] == Context.class)
+            {
+                checks.add(method);
+            }
+        }
+    }
+
+    @Benchmark
+    public void check(final Blackhole blackhole) throws InvocationTargetException, IllegalAccessException
+    {
+        for (Method method : checks)
+        {
+            blackhole.consume(method.invoke(instance, context));
+        }
+    }
+}
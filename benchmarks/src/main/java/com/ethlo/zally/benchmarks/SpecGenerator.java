@@ -0,0 +1,134 @@
+package com.ethlo.zally.benchmarks;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates synthetic OpenAPI specifications of a given size. Every operation references one of the generated
+ * schemas, and every schema ends in the same chain of nested <code>$ref</code>s.
+ */
+public class SpecGenerator
+{
+    private static final String[] METHODS = {"get", "post", "put", "patch", "delete"};
+
+    private SpecGenerator()
+    {
+    }
+
+    /**
+     * @param directory  The directory to write the specification to
+     * @param paths      Number of paths
+     * @param operations Number of operations per path, at most 5
+     * @param schemas    Number of component schemas
+     * @param refDepth   Length of the <code>$ref</code> chain each schema ends in
+     * @return The written file
+     */
+    public static Path write(final Path directory, final int paths, final int operations, final int schemas, final int refDepth) throws IOException
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("openapi: \"3.0.0\"\n");
+        sb.append("info:\n");
+        sb.append("  version: 1.0.0\n");
+        sb.append("  title: Generated API\n");
+        sb.append("servers:\n");
+        sb.append("  - url: https://api.example.com\n");
+        sb.append("paths:\n");
+        for (int p = 0; p < paths; p++)
+        {
+            sb.append("  /resources-").append(p % 20).append("/sub-resources-").append(p).append("/{id}:\n");
+            for (int o = 0; o < Math.min(operations, METHODS.length); o++)
+            {
+                final int schema = (p * operations + o) % schemas;
+                sb.append("    ").append(METHODS[o]).append(":\n");
+                sb.append("      operationId: ").append(METHODS[o]).append("Resource").append(p).append('\n');
+                sb.append("      tags:\n");
+                sb.append("        - tag-").append(p % 10).append('\n');
+                sb.append("      x-audience: ").append(p % 2 == 0 ? "external-partner" : "company-internal").append('\n');
+                sb.append("      parameters:\n");
+                sb.append("        - name: id\n");
+                sb.append("          in: path\n");
+                sb.append("          required: true\n");
+                sb.append("          schema:\n");
+                sb.append("            type: string\n");
+                sb.append("      responses:\n");
+                sb.append("        '200':\n");
+                sb.append("          description: OK\n");
+                sb.append("          content:\n");
+                sb.append("            application/json:\n");
+                sb.append("              schema:\n");
+                sb.append("                $ref: '#/components/schemas/Schema").append(schema).append("'\n");
+                sb.append("        default:\n");
+                sb.append("          description: Error\n");
+                sb.append("          content:\n");
+                sb.append("            application/problem+json:\n");
+                sb.append("              schema:\n");
+                sb.append("                $ref: '#/components/schemas/Problem'\n");
+            }
+        }
+
+        sb.append("components:\n");
+        sb.append("  schemas:\n");
+        sb.append("    Problem:\n");
+        sb.append("      type: object\n");
+        sb.append("      properties:\n");
+        sb.append("        title:\n");
+        sb.append("          type: string\n");
+        sb.append("        status:\n");
+        sb.append("          type: integer\n");
+        sb.append("          format: int32\n");
+        for (int s = 0; s < schemas; s++)
+        {
+            sb.append("    Schema").append(s).append(":\n");
+            sb.append("      type: object\n");
+            sb.append("      properties:\n");
+            sb.append("        id:\n");
+            sb.append("          type: string\n");
+            sb.append("        created_at:\n");
+            sb.append("          type: string\n");
+            sb.append("          format: date-time\n");
+            sb.append("        items:\n");
+            sb.append("          type: array\n");
+            sb.append("          items:\n");
+            sb.append("            $ref: '#/components/schemas/Chain0'\n");
+        }
+        for (int d = 0; d < refDepth; d++)
+        {
+            sb.append("    Chain").append(d).append(":\n");
+            sb.append("      type: object\n");
+            sb.append("      properties:\n");
+            sb.append("        name:\n");
+            sb.append("          type: string\n");
+            if (d + 1 < refDepth)
+            {
+                sb.append("        next:\n");
+                sb.append("          $ref: '#/components/schemas/Chain").append(d + 1).append("'\n");
+            }
+        }
+
+        Files.createDirectories(directory);
+        final Path target = directory.resolve("generated-" + paths + "-" + operations + "-" + schemas + "-" + refDepth + ".yaml");
+        Files.writeString(target, sb.toString());
+        return target;
+    }
+}
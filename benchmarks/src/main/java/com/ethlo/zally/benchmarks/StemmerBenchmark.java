@@ -0,0 +1,125 @@
+package com.ethlo.zally.benchmarks;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ethlo.zally.rules.common.PlingStemmer;
+import com.ethlo.zally.rules.common.ReferencePlingStemmer;
+import com.ethlo.zally.rules.common.StemCache;
+
+/**
+ * Plural detection over a corpus of property and path segment names, as done by the pluralization rules
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StemmerBenchmark
+{
+    private static final String[] WORDS = {"user", "order", "item", "address", "status", "category", "box", "match", "wish", "hero",
+            "leaf", "knife", "wolf", "analysis", "criterion", "datum", "index", "matrix", "alias", "bus", "child", "person", "series",
+            "news", "metadata", "statistics", "company", "policy", "key", "day", "tax", "fax", "process", "access", "cactus", "genus"};
+
+    @Param({"100000"})
+    private int identifiers;
+
+    private List<String> corpus;
+
+    @Setup
+    public void setup()
+    {
+        final Random random = new Random(42);
+        corpus = new ArrayList<>(identifiers);
+        for (int i = 0; i < identifiers; i++)
+        {
+            final String word = WORDS[random.nextInt(WORDS.length)];
+            corpus.add(random.nextBoolean() ? word : pluralize(word));
+        }
+    }
+
+    private static String pluralize(final String word)
+    {
+        if (word.endsWith("y") && !word.endsWith("ey") && !word.endsWith("ay"))
+        {
+            return word.substring(0, word.length() - 1) + "ies";
+        }
+        if (word.endsWith("s") || word.endsWith("x") || word.endsWith("ch") || word.endsWith("sh"))
+        {
+            return word + "es";
+        }
+        return word + "s";
+    }
+
+    @Benchmark
+    public int isPluralReference()
+    {
+        int plurals = 0;
+        for (String word : corpus)
+        {
+            if (ReferencePlingStemmer.isPlural(word))
+            {
+                plurals++;
+            }
+        }
+        return plurals;
+    }
+
+    @Benchmark
+    public int isPlural()
+    {
+        int plurals = 0;
+        for (String word : corpus)
+        {
+            if (PlingStemmer.isPlural(word))
+            {
+                plurals++;
+            }
+        }
+        return plurals;
+    }
+
+    @Benchmark
+    public int isPluralCached()
+    {
+        final StemCache cache = StemCache.getShared();
+        int plurals = 0;
+        for (String word : corpus)
+        {
+            if (cache.isPlural(word))
+            {
+                plurals++;
+            }
+        }
+        return plurals;
+    }
+}
@@ -0,0 +1,84 @@
+package com.ethlo.zally.benchmarks;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.ethlo.zally.ModelCache;
+import com.ethlo.zally.ZallyRunner;
+import com.typesafe.config.ConfigFactory;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ValidateBenchmark
+{
+    @Param({"50", "500"})
+    private int paths;
+
+    @Param({"4"})
+    private int operations;
+
+    @Param({"50"})
+    private int schemas;
+
+    @Param({"5"})
+    private int refDepth;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private String url;
+
+    private ZallyRunner runner;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        url = SpecGenerator.write(Files.createTempDirectory("zally-benchmark"), paths, operations, schemas, refDepth).toString();
+        runner = new ZallyRunner(ConfigFactory.load("reference"), new QuietLog());
+        runner.setThreads(threads);
+    }
+
+    @Benchmark
+    public Map<CheckDetails, List<Result>> validate() throws IOException
+    {
+        // A fresh model cache, so parsing and resolving stay part of the measurement
+        runner.setModelCache(new ModelCache());
+        return runner.validate(url, Collections.emptySet());
+    }
+}
@@ -0,0 +1,433 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.swagger.models.Method;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.ComposedSchema;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+
+/**
+ * Inventory of the operations of a specification, for comparing and aggregating many APIs. Each operation is listed
+ * with its path, method, operation id, tags, number of parameters and responses, the depth of its deepest request or
+ * response schema and whether it is deprecated, followed by totals.
+ * <p>
+ * The inventory is written in one pass over the paths, as each operation is visited. It works on models with any
+ * {@link Resolution}: references are followed to the components, and schemas shared by the resolver are recognized by
+ * identity. The depth of a schema is computed once, unless it is on a cycle, where it is measured from where the
+ * cycle is entered.
+ */
+public class ApiInventory
+{
+    private static final String COMPONENT_SCHEMA_PREFIX = "#/components/schemas/";
+
+    private final OpenAPI openAPI;
+    private final Map<Schema<?>, Integer> depths = new IdentityHashMap<>();
+    private final Map<Schema<?>, Integer> measuring = new IdentityHashMap<>();
+    private int reachedLevel = Integer.MAX_VALUE;
+    private int operations;
+    private int deprecated;
+    private int maxSchemaDepth;
+
+    public ApiInventory(final OpenAPI openAPI)
+    {
+        this.openAPI = openAPI;
+    }
+
+    /**
+     * @param source Name of the specification, written with each operation so inventories can be concatenated
+     */
+    public void write(final String source, final InventoryFormat format, final Writer out) throws IOException
+    {
+        final Emitter emitter = format == InventoryFormat.CSV ? new CsvEmitter(source, out) : new JsonEmitter(source, openAPI, out);
+        if (openAPI.getPaths() != null)
+        {
+            for (Map.Entry<String, PathItem> entry : openAPI.getPaths().entrySet())
+            {
+                final PathItem pathItem = entry.getValue();
+                visit(entry.getKey(), Method.GET, pathItem.getGet(), pathItem.getParameters(), emitter);
+                visit(entry.getKey(), Method.PUT, pathItem.getPut(), pathItem.getParameters(), emitter);
+                visit(entry.getKey(), Method.DELETE, pathItem.getDelete(), pathItem.getParameters(), emitter);
+                visit(entry.getKey(), Method.HEAD, pathItem.getHead(), pathItem.getParameters(), emitter);
+                visit(entry.getKey(), Method.OPTIONS, pathItem.getOptions(), pathItem.getParameters(), emitter);
+                visit(entry.getKey(), Method.POST, pathItem.getPost(), pathItem.getParameters(), emitter);
+                visit(entry.getKey(), Method.PATCH, pathItem.getPatch(), pathItem.getParameters(), emitter);
+            }
+        }
+        emitter.end(this);
+        out.flush();
+    }
+
+    public int getOperations()
+    {
+        return operations;
+    }
+
+    public int getDeprecated()
+    {
+        return deprecated;
+    }
+
+    public int getMaxSchemaDepth()
+    {
+        return maxSchemaDepth;
+    }
+
+    private void visit(final String path, final Method method, final Operation operation, final List<Parameter> pathParameters, final Emitter emitter) throws IOException
+    {
+        if (operation == null)
+        {
+            return;
+        }
+
+        int schemaDepth = 0;
+        final RequestBody requestBody = resolve(operation.getRequestBody());
+        if (requestBody != null)
+        {
+            schemaDepth = getDepth(requestBody.getContent());
+        }
+        if (operation.getResponses() != null)
+        {
+            for (ApiResponse response : operation.getResponses().values())
+            {
+                final ApiResponse resolved = resolve(response);
+                schemaDepth = Math.max(schemaDepth, getDepth(resolved != null ? resolved.getContent() : null));
+            }
+        }
+
+        final boolean isDeprecated = Boolean.TRUE.equals(operation.getDeprecated());
+        operations++;
+        deprecated += isDeprecated ? 1 : 0;
+        maxSchemaDepth = Math.max(maxSchemaDepth, schemaDepth);
+        emitter.operation(path,
+                method.name(),
+                operation.getOperationId(),
+                operation.getTags(),
+                countParameters(pathParameters, operation.getParameters()),
+                operation.getResponses() != null ? operation.getResponses().size() : 0,
+                schemaDepth,
+                isDeprecated);
+    }
+
+    /**
+     * @return The number of distinct parameters of an operation, where an operation parameter overrides a path
+     * parameter with the same name and location
+     */
+    private int countParameters(final List<Parameter> pathParameters, final List<Parameter> operationParameters)
+    {
+        final Set<String> keys = new HashSet<>();
+        addParameterKeys(operationParameters, keys);
+        addParameterKeys(pathParameters, keys);
+        return keys.size();
+    }
+
+    private void addParameterKeys(final List<Parameter> parameters, final Set<String> keys)
+    {
+        if (parameters != null)
+        {
+            for (Parameter parameter : parameters)
+            {
+                final Parameter resolved = resolve(parameter);
+                keys.add(resolved != null && resolved.getName() != null ? resolved.getIn() + ":" + resolved.getName() : "$ref:" + parameter.get$ref());
+            }
+        }
+    }
+
+    private Parameter resolve(final Parameter parameter)
+    {
+        if (parameter == null || parameter.get$ref() == null || openAPI.getComponents() == null || openAPI.getComponents().getParameters() == null)
+        {
+            return parameter;
+        }
+        return openAPI.getComponents().getParameters().get(getComponentName(parameter.get$ref()));
+    }
+
+    private RequestBody resolve(final RequestBody requestBody)
+    {
+        if (requestBody == null || requestBody.get$ref() == null || openAPI.getComponents() == null || openAPI.getComponents().getRequestBodies() == null)
+        {
+            return requestBody;
+        }
+        return openAPI.getComponents().getRequestBodies().get(getComponentName(requestBody.get$ref()));
+    }
+
+    private ApiResponse resolve(final ApiResponse response)
+    {
+        if (response == null || response.get$ref() == null || openAPI.getComponents() == null || openAPI.getComponents().getResponses() == null)
+        {
+            return response;
+        }
+        return openAPI.getComponents().getResponses().get(getComponentName(response.get$ref()));
+    }
+
+    private static String getComponentName(final String ref)
+    {
+        return ref.substring(ref.lastIndexOf('/') + 1);
+    }
+
+    private int getDepth(final Content content)
+    {
+        int depth = 0;
+        if (content != null)
+        {
+            for (MediaType mediaType : content.values())
+            {
+                depth = Math.max(depth, getDepth(mediaType.getSchema()));
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * @return The number of nested levels of the schema, where a schema without properties or items counts as one.
+     * Compositions take the depth of their deepest member. A reference back into a schema being measured counts as one.
+     */
+    int getDepth(final Schema<?> schema)
+    {
+        if (schema == null)
+        {
+            return 0;
+        }
+
+        final String ref = schema.get$ref();
+        if (ref != null)
+        {
+            final Schema<?> component = ref.startsWith(COMPONENT_SCHEMA_PREFIX) && openAPI.getComponents() != null && openAPI.getComponents().getSchemas() != null
+                    ? openAPI.getComponents().getSchemas().get(ref.substring(COMPONENT_SCHEMA_PREFIX.length()))
+                    : null;
+            return component != null ? getDepth(component) : 1;
+        }
+
+        final Integer known = depths.get(schema);
+        if (known != null)
+        {
+            return known;
+        }
+        final Integer measuringLevel = measuring.get(schema);
+        if (measuringLevel != null)
+        {
+            reachedLevel = Math.min(reachedLevel, measuringLevel);
+            return 1;
+        }
+
+        // The schemas being measured are kept apart from the finished depths. A schema on a cycle is measured from
+        // where the cycle is entered and never memoized, so its depth does not depend on which schema was measured first
+        final int level = measuring.size();
+        measuring.put(schema, level);
+        final int outerReachedLevel = reachedLevel;
+        reachedLevel = Integer.MAX_VALUE;
+        final int depth = measure(schema);
+        measuring.remove(schema);
+        if (reachedLevel > level)
+        {
+            depths.put(schema, depth);
+            reachedLevel = outerReachedLevel;
+        }
+        else
+        {
+            reachedLevel = Math.min(outerReachedLevel, reachedLevel);
+        }
+        return depth;
+    }
+
+    private int measure(final Schema<?> schema)
+    {
+        int children = 0;
+        if (schema.getProperties() != null)
+        {
+            for (Schema<?> property : schema.getProperties().values())
+            {
+                children = Math.max(children, getDepth(property));
+            }
+        }
+        if (schema instanceof ArraySchema)
+        {
+            children = Math.max(children, getDepth(((ArraySchema) schema).getItems()));
+        }
+        if (schema.getAdditionalProperties() instanceof Schema)
+        {
+            children = Math.max(children, getDepth((Schema<?>) schema.getAdditionalProperties()));
+        }
+
+        int depth = 1 + children;
+        if (schema instanceof ComposedSchema)
+        {
+            final ComposedSchema composed = (ComposedSchema) schema;
+            depth = Math.max(depth, getMaxDepth(composed.getAllOf()));
+            depth = Math.max(depth, getMaxDepth(composed.getAnyOf()));
+            depth = Math.max(depth, getMaxDepth(composed.getOneOf()));
+        }
+        return depth;
+    }
+
+    private int getMaxDepth(final List<Schema> schemas)
+    {
+        int depth = 0;
+        if (schemas != null)
+        {
+            for (Schema<?> schema : schemas)
+            {
+                depth = Math.max(depth, getDepth(schema));
+            }
+        }
+        return depth;
+    }
+
+    private interface Emitter
+    {
+        void operation(String path, String method, String operationId, List<String> tags, int parameters, int responses, int schemaDepth, boolean deprecated) throws IOException;
+
+        void end(ApiInventory inventory) throws IOException;
+    }
+
+    private static class JsonEmitter implements Emitter
+    {
+        private final JsonGenerator generator;
+
+        private JsonEmitter(final String source, final OpenAPI openAPI, final Writer out) throws IOException
+        {
+            this.generator = new JsonFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("source", source);
+            if (openAPI.getInfo() != null)
+            {
+                generator.writeStringField("title", openAPI.getInfo().getTitle());
+                generator.writeStringField("version", openAPI.getInfo().getVersion());
+            }
+            generator.writeArrayFieldStart("operations");
+        }
+
+        @Override
+        public void operation(final String path, final String method, final String operationId, final List<String> tags, final int parameters, final int responses, final int schemaDepth, final boolean deprecated) throws IOException
+        {
+            generator.writeStartObject();
+            generator.writeStringField("path", path);
+            generator.writeStringField("method", method);
+            if (operationId != null)
+            {
+                generator.writeStringField("operationId", operationId);
+            }
+            generator.writeArrayFieldStart("tags");
+            if (tags != null)
+            {
+                for (String tag : tags)
+                {
+                    generator.writeString(tag);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("parameters", parameters);
+            generator.writeNumberField("responses", responses);
+            generator.writeNumberField("schemaDepth", schemaDepth);
+            generator.writeBooleanField("deprecated", deprecated);
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void end(final ApiInventory inventory) throws IOException
+        {
+            generator.writeEndArray();
+            generator.writeObjectFieldStart("summary");
+            generator.writeNumberField("operations", inventory.getOperations());
+            generator.writeNumberField("deprecated", inventory.getDeprecated());
+            generator.writeNumberField("maxSchemaDepth", inventory.getMaxSchemaDepth());
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            generator.close();
+        }
+    }
+
+    private static class CsvEmitter implements Emitter
+    {
+        private final String source;
+        private final Writer out;
+
+        private CsvEmitter(final String source, final Writer out) throws IOException
+        {
+            this.source = source;
+            this.out = out;
+            out.write("source,path,method,operationId,tags,parameters,responses,schemaDepth,deprecated\n");
+        }
+
+        @Override
+        public void operation(final String path, final String method, final String operationId, final List<String> tags, final int parameters, final int responses, final int schemaDepth, final boolean deprecated) throws IOException
+        {
+            writeField(source);
+            out.write(',');
+            writeField(path);
+            out.write(',');
+            out.write(method);
+            out.write(',');
+            writeField(operationId);
+            out.write(',');
+            writeField(tags != null ? String.join(";", tags) : null);
+            out.write(',');
+            out.write(Integer.toString(parameters));
+            out.write(',');
+            out.write(Integer.toString(responses));
+            out.write(',');
+            out.write(Integer.toString(schemaDepth));
+            out.write(',');
+            out.write(Boolean.toString(deprecated));
+            out.write('\n');
+        }
+
+        @Override
+        public void end(final ApiInventory inventory)
+        {
+        }
+
+        private void writeField(final String value) throws IOException
+        {
+            if (value == null)
+            {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
@@ -20,27 +20,33 @@ package com.ethlo.zally;
  * #L%
  */
 
-import java.io.ByteArrayOutputStream;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
 
-import com.google.common.collect.Iterators;
+import org.apache.maven.plugin.logging.Log;
+
 import io.swagger.models.Method;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.Operation;
 import io.swagger.v3.oas.models.PathItem;
 import io.swagger.v3.oas.models.Paths;
 
+/**
+ * Renders the paths of a specification as a tree of path segments with the operations as leaves. Children are indexed
+ * by name while the tree is built, and the lines are passed on one at a time while rendering, so large specifications
+ * are neither scanned repeatedly nor held in memory as text.
+ */
 public class ApiReporter
 {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
     private final OpenAPI openAPI;
 
     public ApiReporter(final OpenAPI openAPI)
@@ -48,79 +54,117 @@ public class ApiReporter
         this.openAPI = openAPI;
     }
 
-    private Map<Method, Operation> getOperations(PathItem value)
+    public String render()
     {
-        final Map<Method, Operation> operations = new LinkedHashMap<>();
-        operations.put(Method.GET, value.getGet());
-        operations.put(Method.PUT, value.getPut());
-        operations.put(Method.DELETE, value.getDelete());
-        operations.put(Method.HEAD, value.getHead());
-        operations.put(Method.OPTIONS, value.getOptions());
-        operations.put(Method.POST, value.getPost());
-        operations.put(Method.PATCH, value.getPatch());
-        operations.values().removeIf(Objects::isNull);
-        return operations;
+        final StringWriter out = new StringWriter();
+        try
+        {
+            render(out);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
     }
 
-    public String render()
+    public void render(final Writer out) throws IOException
     {
-        final Paths paths = this.openAPI.getPaths();
-        final Node root = new Node("");
-        for (final Map.Entry<String, PathItem> pathEntry : paths.entrySet())
+        render(line -> out.append(line).append(LINE_SEPARATOR));
+        out.flush();
+    }
+
+    /**
+     * Logs the tree one line at a time
+     */
+    public void render(final Log log)
+    {
+        try
         {
-            final Map<Method, Operation> methodOperations = getOperations(pathEntry.getValue());
-            for (final Map.Entry<Method, Operation> methodOperationEntry : methodOperations.entrySet())
-            {
-                root.addPath(pathEntry.getKey(), methodOperationEntry.getKey(), methodOperationEntry.getValue().getOperationId());
-            }
+            render(log::info);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
         }
-        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
-        printTree(root, bout);
-        return bout.toString(StandardCharsets.UTF_8);
     }
 
-    private void print(String prefix, Node node, boolean isTail, boolean isRoot, PrintWriter out)
+    private void render(final LineWriter out) throws IOException
     {
-        final String strConnector = isRoot ? "" : isTail ? "└── " : "├── ";
-        final String strNode = node.item;
-        out.println(prefix + strConnector + strNode);
-        final Set<Node> children = node.getChildren();
+        final Node root = buildTree();
+        if (!root.children.isEmpty())
+        {
+            final StringBuilder prefix = new StringBuilder();
+            final StringBuilder line = new StringBuilder();
+            out.write(line.append(root.item));
+            print(prefix, root, true, line, out);
+        }
+    }
 
-        if (!children.isEmpty())
+    Node buildTree()
+    {
+        final Node root = new Node("");
+        final Paths paths = this.openAPI.getPaths();
+        if (paths == null)
         {
-            children.stream().limit(children.size() - 1)
-                    .forEach(child ->
-                            print(prefix + (isTail ? "    " : "│   "), child, false, false, out));
+            return root;
+        }
 
-            print(prefix + (isTail ? "    " : "│   "), Iterators.getLast(children.iterator()), true, false, out);
+        for (final Map.Entry<String, PathItem> pathEntry : paths.entrySet())
+        {
+            final PathItem pathItem = pathEntry.getValue();
+            addOperation(root, pathEntry.getKey(), Method.GET, pathItem.getGet());
+            addOperation(root, pathEntry.getKey(), Method.PUT, pathItem.getPut());
+            addOperation(root, pathEntry.getKey(), Method.DELETE, pathItem.getDelete());
+            addOperation(root, pathEntry.getKey(), Method.HEAD, pathItem.getHead());
+            addOperation(root, pathEntry.getKey(), Method.OPTIONS, pathItem.getOptions());
+            addOperation(root, pathEntry.getKey(), Method.POST, pathItem.getPost());
+            addOperation(root, pathEntry.getKey(), Method.PATCH, pathItem.getPatch());
         }
-        out.flush();
+        return root;
     }
 
-    public void printTree(Node ref, OutputStream out)
+    private static void addOperation(final Node root, final String pathUri, final Method method, final Operation operation)
     {
-        final PrintWriter pw = new PrintWriter(out);
-
-        final Set<Node> roots = ref.getChildren();
-        if (roots == null)
+        if (operation != null)
         {
-            pw.println(ref + " does not exist");
-            pw.flush();
-            return;
+            root.addPath(pathUri, method, operation.getOperationId());
         }
-        else if (roots.isEmpty())
+    }
+
+    /**
+     * Prints the children of the node. The prefix is extended while descending and cut back afterwards, so each line
+     * is built in the same buffer.
+     */
+    private static void print(final StringBuilder prefix, final Node node, final boolean isTail, final StringBuilder line, final LineWriter out) throws IOException
+    {
+        final int length = prefix.length();
+        prefix.append(isTail ? "    " : "│   ");
+        final Iterator<Node> iterator = node.children.values().iterator();
+        while (iterator.hasNext())
         {
-            //pw.println(ref + " has no children");
-            pw.flush();
-            return;
+            final Node child = iterator.next();
+            final boolean last = !iterator.hasNext();
+            line.setLength(0);
+            out.write(line.append(prefix).append(last ? "└── " : "├── ").append(child.item));
+            if (!child.children.isEmpty())
+            {
+                print(prefix, child, last, line, out);
+            }
         }
-        print("", ref, true, true, pw);
+        prefix.setLength(length);
+    }
+
+    @FunctionalInterface
+    private interface LineWriter
+    {
+        void write(CharSequence line) throws IOException;
     }
 
     static class Node
     {
         private final String item;
-        private final Set<Node> children = new LinkedHashSet<>();
+        private final Map<String, Node> children = new LinkedHashMap<>();
 
         public Node(final String item)
         {
@@ -132,35 +176,34 @@ public class ApiReporter
             return item;
         }
 
-        public Set<Node> getChildren()
+        public Collection<Node> getChildren()
         {
-            return children;
+            return children.values();
         }
 
         public void addPath(final String pathUri, final Method method, final String operationId)
         {
-            final AtomicReference<Node> nodeRef = new AtomicReference<>(this);
-            Arrays.stream(pathUri.split("/"))
-                    .filter(p -> !p.isEmpty())
-                    .forEach(pathPart ->
-                    {
-                        final Node newNode = nodeRef.get().getOrCreateNode(pathPart);
-                        nodeRef.get().children.add(newNode);
-                        nodeRef.set(newNode);
-                    });
-            nodeRef.get().children.add(new Node(method.name() + " - " + operationId));
-        }
-
-        private Node getOrCreateNode(final String item)
-        {
-            for (Node child : children)
+            Node node = this;
+            int start = 0;
+            while (start <= pathUri.length())
             {
-                if (child.getItem().equals(item))
+                int end = pathUri.indexOf('/', start);
+                if (end < 0)
                 {
-                    return child;
+                    end = pathUri.length();
                 }
+                if (end > start)
+                {
+                    node = node.getOrCreateNode(pathUri.substring(start, end));
+                }
+                start = end + 1;
             }
-            return new Node(item);
+            node.getOrCreateNode(method.name() + " - " + operationId);
+        }
+
+        private Node getOrCreateNode(final String item)
+        {
+            return children.computeIfAbsent(item, Node::new);
         }
 
         @Override
@@ -0,0 +1,43 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * How duplicates in a parsed model are shared to reduce memory use, see {@link Canonicalizer}
+ */
+public enum Canonicalization
+{
+    /**
+     * The model is kept as parsed and resolved
+     */
+    NONE,
+
+    /**
+     * Equal strings are replaced by a single instance. Results are unaffected
+     */
+    STRINGS,
+
+    /**
+     * Equal strings are replaced by a single instance, and structurally equal schemas by a single shared schema.
+     * Violations inside a shared schema are reported at its first occurrence only
+     */
+    SCHEMAS
+}
@@ -0,0 +1,390 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.Schema;
+
+/**
+ * Shrinks a parsed model by replacing equal strings with a single instance and, optionally, structurally equal
+ * {@link Schema} subtrees with a single shared schema. Fully resolved specifications repeat the same names,
+ * descriptions, media types and inlined schemas many times, so this typically removes most of the duplicates left by
+ * parsing and resolving. The model is walked bottom-up, so a schema is compared only after its children are canonical.
+ * Schemas whose subtree reaches a cycle cannot be hashed and are kept as they are; other schemas are shared wherever
+ * they are visited.
+ */
+public class Canonicalizer
+{
+    private static final String MODEL_PACKAGE = "io.swagger.v3.oas.models";
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+
+    private static final Map<Class<?>, List<Field>> fieldsByClass = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Long> shallowSizes = new ConcurrentHashMap<>();
+
+    private final boolean shareSchemas;
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<Schema<?>, Schema<?>> schemas = new HashMap<>();
+    private final Map<Object, Object> canonical = new IdentityHashMap<>();
+    private final Set<Object> inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Object> reachesCycle = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean cyclic;
+    private long stringsShared;
+    private long schemasShared;
+    private long bytesSaved;
+
+    private Canonicalizer(final boolean shareSchemas)
+    {
+        this.shareSchemas = shareSchemas;
+    }
+
+    public static Statistics canonicalize(final OpenAPI openAPI, final Canonicalization canonicalization)
+    {
+        final Canonicalizer canonicalizer = new Canonicalizer(canonicalization == Canonicalization.SCHEMAS);
+        if (openAPI != null && canonicalization != Canonicalization.NONE)
+        {
+            canonicalizer.fields(openAPI);
+        }
+        return new Statistics(canonicalizer.stringsShared, canonicalizer.schemasShared, canonicalizer.bytesSaved);
+    }
+
+    private Object value(final Object value)
+    {
+        if (value instanceof String)
+        {
+            return string((String) value);
+        }
+        if (value instanceof List)
+        {
+            list((List<?>) value);
+            return value;
+        }
+        if (value instanceof Map)
+        {
+            map((Map<?, ?>) value);
+            return value;
+        }
+        if (value instanceof Schema)
+        {
+            return schema((Schema<?>) value);
+        }
+        if (value != null && value.getClass().getName().startsWith(MODEL_PACKAGE))
+        {
+            return object(value);
+        }
+        return value;
+    }
+
+    private String string(final String value)
+    {
+        final String existing = strings.putIfAbsent(value, value);
+        if (existing == null)
+        {
+            return value;
+        }
+        if (existing != value)
+        {
+            stringsShared++;
+            bytesSaved += sizeOf(value);
+        }
+        return existing;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void list(final List<?> list)
+    {
+        try
+        {
+            ((List<Object>) list).replaceAll(this::value);
+        }
+        catch (UnsupportedOperationException ignored)
+        {
+            // Immutable, left as is
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void map(final Map<?, ?> map)
+    {
+        final Map<Object, Object> entries = new LinkedHashMap<>();
+        boolean keysChanged = false;
+        for (Map.Entry<?, ?> entry : map.entrySet())
+        {
+            final Object key = entry.getKey() instanceof String ? string((String) entry.getKey()) : entry.getKey();
+            keysChanged |= key != entry.getKey();
+            entries.put(key, value(entry.getValue()));
+        }
+
+        try
+        {
+            final Map<Object, Object> target = (Map<Object, Object>) map;
+            if (keysChanged)
+            {
+                // Re-inserting keeps the iteration order of ordered maps
+                target.clear();
+                target.putAll(entries);
+            }
+            else
+            {
+                target.entrySet().forEach(entry -> entry.setValue(entries.get(entry.getKey())));
+            }
+        }
+        catch (UnsupportedOperationException ignored)
+        {
+            // Immutable, left as is
+        }
+    }
+
+    private Object object(final Object value)
+    {
+        final Object existing = canonical.get(value);
+        if (existing != null)
+        {
+            cyclic |= reachesCycle.contains(value);
+            return existing;
+        }
+        if (!inProgress.add(value))
+        {
+            cyclic = true;
+            return value;
+        }
+        final boolean outerCyclic = enter();
+        fields(value);
+        inProgress.remove(value);
+        leave(value, outerCyclic);
+        canonical.put(value, value);
+        return value;
+    }
+
+    private Schema<?> schema(final Schema<?> schema)
+    {
+        final Object existing = canonical.get(schema);
+        if (existing != null)
+        {
+            cyclic |= reachesCycle.contains(schema);
+            return (Schema<?>) existing;
+        }
+        if (!inProgress.add(schema))
+        {
+            cyclic = true;
+            return schema;
+        }
+        final boolean outerCyclic = enter();
+        fields(schema);
+        inProgress.remove(schema);
+        final boolean subtreeCyclic = cyclic;
+        leave(schema, outerCyclic);
+
+        // Hashing a schema that reaches a cycle would never end
+        Schema<?> result = schema;
+        if (shareSchemas && !subtreeCyclic)
+        {
+            final Schema<?> shared = schemas.putIfAbsent(schema, schema);
+            if (shared != null && shared != schema)
+            {
+                schemasShared++;
+                bytesSaved += shallowSizeOf(schema);
+                result = shared;
+            }
+        }
+        canonical.put(schema, result);
+        return result;
+    }
+
+    /**
+     * Starts tracking whether the subtree of a value reaches a cycle
+     *
+     * @return Whether the enclosing subtree reached one so far
+     */
+    private boolean enter()
+    {
+        final boolean outer = cyclic;
+        cyclic = false;
+        return outer;
+    }
+
+    private void leave(final Object value, final boolean outerCyclic)
+    {
+        if (cyclic)
+        {
+            reachesCycle.add(value);
+        }
+        cyclic |= outerCyclic;
+    }
+
+    private void fields(final Object value)
+    {
+        for (Field field : getFields(value.getClass()))
+        {
+            try
+            {
+                final Object current = field.get(value);
+                final Object replacement = value(current);
+                if (replacement != current)
+                {
+                    field.set(value, replacement);
+                }
+            }
+            catch (IllegalAccessException exc)
+            {
+                throw new IllegalStateException("Unable to canonicalize field " + field, exc);
+            }
+        }
+    }
+
+    private static List<Field> getFields(final Class<?> type)
+    {
+        return fieldsByClass.computeIfAbsent(type, t ->
+        {
+            final List<Field> result = new ArrayList<>();
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass())
+            {
+                for (Field field : c.getDeclaredFields())
+                {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive())
+                    {
+                        field.setAccessible(true);
+                        result.add(field);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return Estimated bytes retained by the string, assuming compressed references and compact strings
+     */
+    static long sizeOf(final String value)
+    {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++)
+        {
+            latin1 = value.charAt(i) < 256;
+        }
+        return align(OBJECT_HEADER + REFERENCE + 8) + align(16L + (latin1 ? value.length() : 2L * value.length()));
+    }
+
+    /**
+     * @return Estimated bytes retained by the schema itself and the collections it owns, not counting shared children
+     */
+    private static long shallowSizeOf(final Schema<?> schema)
+    {
+        long size = shallowSizes.computeIfAbsent(schema.getClass(), type ->
+        {
+            long fields = 0;
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+            {
+                for (Field field : c.getDeclaredFields())
+                {
+                    if (!Modifier.isStatic(field.getModifiers()))
+                    {
+                        fields += field.getType() == long.class || field.getType() == double.class ? 8 : REFERENCE;
+                    }
+                }
+            }
+            return align(OBJECT_HEADER + fields);
+        });
+
+        for (Field field : getFields(schema.getClass()))
+        {
+            try
+            {
+                final Object value = field.get(schema);
+                if (value instanceof Map)
+                {
+                    final int entries = ((Map<?, ?>) value).size();
+                    size += 56 + align(16L + REFERENCE * Integer.highestOneBit(Math.max(1, entries * 4 / 3) * 2)) + 40L * entries;
+                }
+                else if (value instanceof List)
+                {
+                    size += 24 + align(16L + REFERENCE * ((List<?>) value).size());
+                }
+            }
+            catch (IllegalAccessException exc)
+            {
+                throw new IllegalStateException("Unable to read field " + field, exc);
+            }
+        }
+        return size;
+    }
+
+    private static long align(final long size)
+    {
+        return (size + 7) & ~7L;
+    }
+
+    public static class Statistics
+    {
+        private final long strings;
+        private final long schemas;
+        private final long bytesSaved;
+
+        public Statistics(final long strings, final long schemas, final long bytesSaved)
+        {
+            this.strings = strings;
+            this.schemas = schemas;
+            this.bytesSaved = bytesSaved;
+        }
+
+        /**
+         * @return The number of string instances replaced by an equal one
+         */
+        public long getStrings()
+        {
+            return strings;
+        }
+
+        /**
+         * @return The number of schema instances replaced by an equal one
+         */
+        public long getSchemas()
+        {
+            return schemas;
+        }
+
+        /**
+         * @return Estimated bytes no longer reachable from the model
+         */
+        public long getBytesSaved()
+        {
+            return bytesSaved;
+        }
+
+        @Override
+        public String toString()
+        {
+            return strings + " strings and " + schemas + " schemas shared, about " + (bytesSaved / 1024) + " KiB saved";
+        }
+    }
+}
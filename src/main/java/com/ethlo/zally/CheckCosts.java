@@ -0,0 +1,107 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.logging.Log;
+import org.zalando.zally.core.CheckDetails;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Time taken by each check in previous runs, so a fail-fast run can start with the cheapest checks. Recorded times
+ * are averaged with the previous value, so a single slow run does not reorder the checks.
+ */
+public class CheckCosts
+{
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, Long> nanos = new ConcurrentHashMap<>();
+
+    public static CheckCosts load(final Path file, final Log logger)
+    {
+        final CheckCosts costs = new CheckCosts();
+        if (file != null && Files.exists(file))
+        {
+            try
+            {
+                final JsonNode checks = mapper.readTree(file.toFile()).path("checks");
+                checks.fields().forEachRemaining(entry -> costs.nanos.put(entry.getKey(), entry.getValue().asLong()));
+            }
+            catch (IOException | RuntimeException exc)
+            {
+                logger.warn("Ignoring unreadable check costs " + file + ": " + exc.getMessage());
+            }
+        }
+        return costs;
+    }
+
+    public void save(final Path file, final Log logger)
+    {
+        final ObjectNode root = mapper.createObjectNode();
+        final ObjectNode checks = root.putObject("checks");
+        nanos.forEach(checks::put);
+        try
+        {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            final Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "costs", ".tmp");
+            mapper.writeValue(tmp.toFile(), root);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException exc)
+        {
+            logger.warn("Unable to write check costs " + file + ": " + exc.getMessage());
+        }
+    }
+
+    /**
+     * @return The recorded time of the check in nanoseconds, if it has run before
+     */
+    public OptionalLong get(final CheckDetails checkDetails)
+    {
+        final Long value = nanos.get(getKey(checkDetails));
+        return value != null ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    public void record(final CheckDetails checkDetails, final long elapsedNanos)
+    {
+        nanos.merge(getKey(checkDetails), elapsedNanos, (previous, current) -> (previous + current) / 2);
+    }
+
+    public int size()
+    {
+        return nanos.size();
+    }
+
+    private static String getKey(final CheckDetails checkDetails)
+    {
+        return checkDetails.getInstance().getClass().getName() + "." + checkDetails.getMethod().getName();
+    }
+}
@@ -0,0 +1,118 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.maven.plugin.logging.Log;
+import org.zalando.zally.rule.api.Context;
+
+/**
+ * Calls one check method on its rule instance. Created once per check when the rules are loaded, so running a check
+ * does not go through {@link Method#invoke}. Checks of public rule classes visible from the plugin get a generated
+ * implementation the JIT can inline, other checks are called through a bound method handle, see
+ * {@link MethodHandleInvoker}.
+ */
+@FunctionalInterface
+public interface CheckInvoker
+{
+    Object invoke(Context context);
+
+    /**
+     * @param logger Where falling back to a method handle for a check that looked linkable is reported
+     */
+    static CheckInvoker of(final Object instance, final Method method, final Log logger)
+    {
+        final MethodHandle handle;
+        try
+        {
+            if (!method.canAccess(instance))
+            {
+                method.setAccessible(true);
+            }
+            handle = MethodHandles.lookup().unreflect(method);
+        }
+        catch (IllegalAccessException | RuntimeException e)
+        {
+            throw new IllegalStateException("Cannot access check method " + method, e);
+        }
+
+        if (isLinkable(method))
+        {
+            final CallSite site;
+            try
+            {
+                site = LambdaMetafactory.metafactory(MethodHandles.lookup(),
+                        "invoke",
+                        MethodType.methodType(CheckInvoker.class, method.getDeclaringClass()),
+                        MethodType.methodType(Object.class, Context.class),
+                        handle,
+                        MethodType.methodType(method.getReturnType(), Context.class));
+            }
+            catch (LambdaConversionException e)
+            {
+                logger.debug("Calling check " + method + " through a method handle: " + e.getMessage());
+                return new MethodHandleInvoker(instance, handle);
+            }
+
+            try
+            {
+                return (CheckInvoker) site.getTarget().invoke(instance);
+            }
+            catch (RuntimeException | Error e)
+            {
+                throw e;
+            }
+            catch (Throwable e)
+            {
+                throw new IllegalStateException("Cannot create invoker for check method " + method, e);
+            }
+        }
+        return new MethodHandleInvoker(instance, handle);
+    }
+
+    /**
+     * @return <code>true</code> if a class generated next to this one can call the method directly
+     */
+    private static boolean isLinkable(final Method method)
+    {
+        final Class<?> type = method.getDeclaringClass();
+        if (!Modifier.isPublic(type.getModifiers()) || !Modifier.isPublic(method.getModifiers()) || method.getReturnType().isPrimitive())
+        {
+            return false;
+        }
+        try
+        {
+            return Class.forName(type.getName(), false, CheckInvoker.class.getClassLoader()) == type;
+        }
+        catch (ClassNotFoundException | LinkageError e)
+        {
+            return false;
+        }
+    }
+}
@@ -22,15 +22,20 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoFailureException;
@@ -41,8 +46,6 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.JsonPointer;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
@@ -53,6 +56,7 @@ import io.swagger.v3.core.util.Yaml;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.Operation;
 import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.info.Info;
 
 @Mojo(threadSafe = true, name = "extract", defaultPhase = LifecyclePhase.GENERATE_SOURCES)
 public class ExtractMojo extends AbstractMojo
@@ -69,6 +73,18 @@ public class ExtractMojo extends AbstractMojo
     @Parameter(property = "skip", defaultValue = "false")
     private boolean skip;
 
+    @Parameter(property = "configFiles")
+    private List<File> configFiles;
+
+    @Parameter(property = "outputDirectory")
+    private File outputDirectory;
+
+    @Parameter(property = "zally.threads", defaultValue = "1")
+    private int threads;
+
+    @Parameter(property = "zally.resolution", defaultValue = "NONE")
+    private Resolution resolution = Resolution.NONE;
+
     @Parameter(property = "filters")
     private List<OperationFilter> filters;
 
@@ -87,152 +103,215 @@ public class ExtractMojo extends AbstractMojo
     @Parameter(defaultValue = "${mojoExecution}", readonly = true, required = true)
     private MojoExecution mojoExecution;
 
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
     private static final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory()
             .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES)
             .enable(YAMLGenerator.Feature.SPLIT_LINES)
             .enable(YAMLGenerator.Feature.ALWAYS_QUOTE_NUMBERS_AS_STRINGS))
             .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
-    private static final ObjectMapper mapper = new ObjectMapper();
 
     @Override
     public void execute() throws MojoFailureException
     {
-        final Optional<OpenAPI> loaded = load(getLog(), skip, source, false);
+        final Optional<OpenAPI> loaded = load(getLog(), skip, source, resolution, ModelCache.forSession(session));
 
         if (name == null)
         {
             name = mojoExecution.getExecutionId();
         }
 
+        final Path buildOutputDirectory = Paths.get(project.getBuild().getOutputDirectory());
         if (outputFile == null)
         {
-            outputFile = Paths.get(project.getBuild().getOutputDirectory()).resolve(name + ".yaml").toFile();
+            outputFile = buildOutputDirectory.resolve(name + ".yaml").toFile();
         }
 
+        final Map<String, ExtractionDefinition> definitions = new LinkedHashMap<>();
+        final Map<String, File> outputFiles = new LinkedHashMap<>();
         if (configFile != null)
         {
-            try
+            final ExtractionDefinition extractionDefinition = readDefinition(configFile);
+            if (this.title == null)
             {
-                final ExtractionDefinition extractionDefinition = yamlMapper.readValue(configFile, ExtractionDefinition.class);
-                if (this.title == null)
-                {
-                    this.title = extractionDefinition.getTitle();
-                }
-
-                if (this.description == null)
-                {
-                    this.description = extractionDefinition.getDescription();
-                }
-
-                this.filters = extractionDefinition.getFilters();
+                this.title = extractionDefinition.getTitle();
             }
-            catch (IOException exc)
+
+            if (this.description == null)
             {
-                throw new UncheckedIOException(exc);
+                this.description = extractionDefinition.getDescription();
             }
+
+            this.filters = extractionDefinition.getFilters();
+        }
+
+        if (filters != null)
+        {
+            definitions.put(name, new ExtractionDefinition(title, description, filters));
+            outputFiles.put(name, outputFile);
+        }
+
+        final Path extractDirectory = outputDirectory != null ? outputDirectory.toPath() : buildOutputDirectory;
+        for (File file : Optional.ofNullable(configFiles).orElse(Collections.emptyList()))
+        {
+            final String extractName = file.getName().replaceFirst("\\.[^.]*$", "");
+            definitions.put(extractName, readDefinition(file));
+            outputFiles.put(extractName, extractDirectory.resolve(extractName + ".yaml").toFile());
         }
 
         loaded.ifPresent(openAPI ->
         {
-            getLog().info(String.format("Processing extraction %s", name));
-            final AtomicInteger totalEvaluated = new AtomicInteger(0);
-            final AtomicInteger totalMatched = new AtomicInteger(0);
-            final OpenAPI filtered = new SpecFilter().filter(openAPI, new AbstractSpecFilter()
+            final ForkJoinPool pool = WorkerThreadFactory.newPool(Math.max(1, threads));
+            try
             {
-                @Override
-                public Optional<Operation> filterOperation(final Operation operation, final ApiDescription api, final Map<String, List<String>> params, final Map<String, String> cookies, final Map<String, List<String>> headers)
+                pool.submit(() -> extract(getLog(), openAPI, definitions).entrySet().parallelStream().forEach(e ->
                 {
-                    final String path = api.getPath();
-                    final PathItem pathItem = openAPI.getPaths().get(path);
-                    final Map<String, Object> extensionMap = new LinkedHashMap<>(Optional.ofNullable(pathItem.getExtensions()).orElse(Collections.emptyMap()));
-                    extensionMap.putAll(operation.getExtensions());
-                    final OperationData operationData = new OperationData(operation, api, extensionMap);
-                    if (filters.stream().anyMatch(filter ->
+                    final File file = outputFiles.get(e.getKey());
+                    try
                     {
-                        final boolean matched = match(filter, operationData);
-                        if (matched)
-                        {
-                            totalMatched.incrementAndGet();
-                            getLog().info(String.format("Including '%s' in '%s' because '%s'", operation.getOperationId(), name, filter.asString()));
-                        }
-                        totalEvaluated.incrementAndGet();
-                        return matched;
-                    }))
+                        getLog().info("Writing extracted APIs to " + file);
+                        Files.createDirectories(file.toPath().getParent());
+                        Yaml.mapper().writeValue(file, e.getValue());
+                    }
+                    catch (IOException exc)
                     {
-                        return Optional.of(operation);
+                        throw new UncheckedIOException(exc);
                     }
-                    return Optional.empty();
-                }
-
-                @Override
-                public boolean isRemovingUnreferencedDefinitions()
+                })).get();
+            }
+            catch (InterruptedException exc)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(exc);
+            }
+            catch (ExecutionException exc)
+            {
+                if (exc.getCause() instanceof RuntimeException)
                 {
-                    return true;
+                    throw (RuntimeException) exc.getCause();
                 }
-            }, null, null, null);
-
-
-            Optional.ofNullable(title).ifPresent(t -> filtered.getInfo().setTitle(t));
-            Optional.ofNullable(description).ifPresent(t -> filtered.getInfo().setDescription(t));
-            getLog().info(String.format("Included %s/%s API operations in extract", totalMatched.get(), totalEvaluated.get()));
-
-            try
-            {
-                getLog().info("Writing extracted APIs to " + outputFile);
-                Files.createDirectories(outputFile.toPath().getParent());
-                Yaml.mapper().writeValue(outputFile, filtered);
+                throw new IllegalStateException(exc.getCause());
             }
-            catch (IOException e)
+            finally
             {
-                throw new UncheckedIOException(e);
+                pool.shutdown();
             }
         });
     }
 
-    public static boolean match(final OperationFilter filter, final OperationData data)
+    private static ExtractionDefinition readDefinition(final File file)
     {
-        final String path = filter.getPointer().startsWith("/") ? filter.getPointer() : "/" + filter.getPointer();
-        final String regexp = filter.getExpression();
         try
         {
-            final JsonNode jsonNode = mapper.readTree(mapper.writeValueAsString(data));
-            final JsonNode value = jsonNode.at(JsonPointer.compile(path));
-            if (value.isObject())
+            return yamlMapper.readValue(file, ExtractionDefinition.class);
+        }
+        catch (IOException exc)
+        {
+            throw new UncheckedIOException(exc);
+        }
+    }
+
+    /**
+     * Classifies every operation against all the extraction definitions in a single traversal of the specification,
+     * then builds one filtered specification per definition. The filtering of the individual extracts runs in
+     * parallel when called from within a {@link ForkJoinPool}.
+     *
+     * @param log         The log to report inclusions to
+     * @param openAPI     The parsed specification, which is not modified
+     * @param definitions The extraction definitions by name
+     * @return The filtered specifications by extraction name, in the order of the definitions
+     */
+    public static Map<String, OpenAPI> extract(final Log log, final OpenAPI openAPI, final Map<String, ExtractionDefinition> definitions)
+    {
+        final Map<String, Set<Operation>> included = new LinkedHashMap<>();
+        final Map<String, FilterIndex> indexes = new LinkedHashMap<>();
+        definitions.forEach((name, definition) ->
+        {
+            included.put(name, Collections.newSetFromMap(new IdentityHashMap<>()));
+            indexes.put(name, new FilterIndex(definition.getFilters()));
+        });
+
+        int total = 0;
+        for (Map.Entry<String, PathItem> pathEntry : Optional.<Map<String, PathItem>>ofNullable(openAPI.getPaths()).orElse(Collections.emptyMap()).entrySet())
+        {
+            final PathItem pathItem = pathEntry.getValue();
+            for (Map.Entry<PathItem.HttpMethod, Operation> operationEntry : pathItem.readOperationsMap().entrySet())
             {
-                final Iterator<String> fieldNames = value.fieldNames();
-                while (fieldNames.hasNext())
+                final Operation operation = operationEntry.getValue();
+                final Map<String, Object> extensionMap = new LinkedHashMap<>(Optional.ofNullable(pathItem.getExtensions()).orElse(Collections.emptyMap()));
+                extensionMap.putAll(Optional.ofNullable(operation.getExtensions()).orElse(Collections.emptyMap()));
+                final OperationData operationData = new OperationData(operation, new ApiDescription(pathEntry.getKey(), operationEntry.getKey().toString()), extensionMap);
+                total++;
+
+                for (Map.Entry<String, FilterIndex> index : indexes.entrySet())
                 {
-                    if (filter.isMatch(fieldNames.next()))
+                    index.getValue().match(operationData).ifPresent(filter ->
                     {
-                        return true;
-                    }
+                        included.get(index.getKey()).add(operation);
+                        log.info(String.format("Including '%s' in '%s' because '%s'", operation.getOperationId(), index.getKey(), filter.asString()));
+                    });
                 }
             }
-            else if (value.isArray())
+        }
+
+        final int totalEvaluated = total;
+        final Map<String, OpenAPI> result = new ConcurrentHashMap<>();
+        definitions.entrySet().parallelStream().forEach(definition ->
+        {
+            final Set<Operation> operations = included.get(definition.getKey());
+            final OpenAPI filtered = new SpecFilter().filter(openAPI, new AbstractSpecFilter()
             {
-                final Iterator<JsonNode> elements = value.elements();
-                while (elements.hasNext())
+                @Override
+                public Optional<Operation> filterOperation(final Operation operation, final ApiDescription api, final Map<String, List<String>> params, final Map<String, String> cookies, final Map<String, List<String>> headers)
                 {
-                    if (filter.isMatch(elements.next().textValue()))
-                    {
-                        return true;
-                    }
+                    return operations.contains(operation) ? Optional.of(operation) : Optional.empty();
                 }
-            }
-            else if (value.isTextual())
-            {
-                return filter.isMatch(value.textValue());
-            }
 
-            return false;
-        }
-        catch (IOException exc)
+                @Override
+                public boolean isRemovingUnreferencedDefinitions()
+                {
+                    return true;
+                }
+            }, null, null, null);
+
+            // The filtered specification shares the info object with the source
+            filtered.setInfo(copy(openAPI.getInfo()));
+            Optional.ofNullable(definition.getValue().getTitle()).ifPresent(t -> filtered.getInfo().setTitle(t));
+            Optional.ofNullable(definition.getValue().getDescription()).ifPresent(t -> filtered.getInfo().setDescription(t));
+            log.info(String.format("Included %s/%s API operations in extract '%s'", operations.size(), totalEvaluated, definition.getKey()));
+            result.put(definition.getKey(), filtered);
+        });
+
+        final Map<String, OpenAPI> ordered = new LinkedHashMap<>();
+        definitions.keySet().forEach(name -> ordered.put(name, result.get(name)));
+        return ordered;
+    }
+
+    private static Info copy(final Info info)
+    {
+        if (info == null)
         {
-            throw new UncheckedIOException(exc);
+            return new Info();
         }
+        final Info copy = new Info()
+                .title(info.getTitle())
+                .description(info.getDescription())
+                .summary(info.getSummary())
+                .termsOfService(info.getTermsOfService())
+                .contact(info.getContact())
+                .license(info.getLicense())
+                .version(info.getVersion());
+        copy.setExtensions(info.getExtensions());
+        return copy;
     }
 
-    public static Optional<OpenAPI> load(final Log log, final boolean skip, final String source, final boolean inlined) throws MojoFailureException
+    public static boolean match(final OperationFilter filter, final OperationData data)
+    {
+        return filter.isMatch(data);
+    }
+
+    public static Optional<OpenAPI> load(final Log log, final boolean skip, final String source, final Resolution resolution, final ModelCache modelCache) throws MojoFailureException
     {
         if (skip)
         {
@@ -248,6 +327,13 @@ public class ExtractMojo extends AbstractMojo
         }
 
         log.info("Reading file '" + source + "'");
-        return Optional.of(inlined ? new OpenApiParser().parseInlined(source) : new OpenApiParser().parse(source));
+        try
+        {
+            return Optional.of(modelCache.get(source, resolution));
+        }
+        catch (IOException exc)
+        {
+            throw new UncheckedIOException(exc);
+        }
     }
 }
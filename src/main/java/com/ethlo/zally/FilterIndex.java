@@ -0,0 +1,314 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Index over an ordered list of filters, returning the first filter matching an operation. The filters are grouped by
+ * pointer, so each pointer is evaluated once per operation. Literal expressions are hash lookups, expressions with a
+ * literal prefix are found through a prefix trie and only run when the prefix matches, and the remaining expressions
+ * are combined into a single alternation.
+ */
+public class FilterIndex
+{
+    private static final String META_CHARACTERS = "\\.[]{}()*+?^$|";
+    private static final String QUANTIFIERS = "*+?{";
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+    // Named groups clash when the same name is used twice, and an unterminated quote would swallow the alternatives after it
+    private static final Pattern NOT_COMBINABLE = Pattern.compile("\\(\\?<[a-zA-Z]|\\\\Q");
+
+    private final List<OperationFilter> filters;
+    private final List<PointerIndex> pointers;
+
+    public FilterIndex(final List<OperationFilter> filters)
+    {
+        this.filters = new ArrayList<>(filters);
+        final Map<String, PointerIndex> byPointer = new LinkedHashMap<>();
+        for (int i = 0; i < this.filters.size(); i++)
+        {
+            final OperationFilter filter = this.filters.get(i);
+            byPointer.computeIfAbsent(OperationFilter.normalize(filter.getPointer()), PointerIndex::new).add(i, filter);
+        }
+        byPointer.values().forEach(PointerIndex::build);
+        this.pointers = new ArrayList<>(byPointer.values());
+    }
+
+    /**
+     * @param data The operation to match
+     * @return The first filter, in declaration order, that matches the operation
+     */
+    public Optional<OperationFilter> match(final OperationData data)
+    {
+        int best = Integer.MAX_VALUE;
+        for (PointerIndex pointer : pointers)
+        {
+            best = pointer.match(data, best);
+        }
+        return best == Integer.MAX_VALUE ? Optional.empty() : Optional.of(filters.get(best));
+    }
+
+    public List<OperationFilter> getFilters()
+    {
+        return Collections.unmodifiableList(filters);
+    }
+
+    /**
+     * @return The leading characters of the expression that can only match themselves
+     */
+    static String getLiteralPrefix(final String expression)
+    {
+        if (expression.indexOf('|') >= 0)
+        {
+            return "";
+        }
+
+        int end = 0;
+        while (end < expression.length() && META_CHARACTERS.indexOf(expression.charAt(end)) < 0)
+        {
+            end++;
+        }
+
+        // A quantifier applies to the character before it
+        if (end < expression.length() && end > 0 && QUANTIFIERS.indexOf(expression.charAt(end)) >= 0)
+        {
+            end--;
+        }
+        return expression.substring(0, end);
+    }
+
+    private static boolean hasLineTerminator(final String value, final int from)
+    {
+        for (int i = from; i < value.length(); i++)
+        {
+            final char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029')
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Candidate
+    {
+        private final int index;
+        private final Pattern pattern;
+        private final int prefixLength;
+        private final boolean anySuffix;
+
+        private Candidate(final int index, final Pattern pattern, final int prefixLength, final boolean anySuffix)
+        {
+            this.index = index;
+            this.pattern = pattern;
+            this.prefixLength = prefixLength;
+            this.anySuffix = anySuffix;
+        }
+
+        private boolean matches(final String value)
+        {
+            if (anySuffix && !hasLineTerminator(value, prefixLength))
+            {
+                return true;
+            }
+            return pattern.matcher(value).matches();
+        }
+    }
+
+    private static class TrieNode
+    {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private final List<Candidate> candidates = new ArrayList<>();
+    }
+
+    private static class PointerIndex
+    {
+        private final Function<OperationData, Iterable<?>> values;
+        private final Map<String, Integer> literals = new HashMap<>();
+        private final Set<String> expressions = new HashSet<>();
+        private final TrieNode prefixes = new TrieNode();
+        private final List<Candidate> combinable = new ArrayList<>();
+        private final List<Candidate> separate = new ArrayList<>();
+        private Pattern combined;
+        private int[] combinedGroups;
+        private int[] combinedIndexes;
+
+        private PointerIndex(final String pointer)
+        {
+            this.values = OperationFilter.compile(pointer);
+        }
+
+        private void add(final int index, final OperationFilter filter)
+        {
+            if (!expressions.add(filter.getExpression()))
+            {
+                // Can never be the first match
+                return;
+            }
+
+            final String literal = filter.getLiteral();
+            if (literal != null)
+            {
+                literals.putIfAbsent(literal, index);
+                return;
+            }
+
+            final String expression = filter.getExpression();
+            final String prefix = getLiteralPrefix(expression);
+            if (!prefix.isEmpty())
+            {
+                TrieNode node = prefixes;
+                for (int i = 0; i < prefix.length(); i++)
+                {
+                    node = node.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+                }
+                final boolean anySuffix = expression.substring(prefix.length()).equals(".*");
+                node.candidates.add(new Candidate(index, filter.getPattern(), prefix.length(), anySuffix));
+            }
+            else if (BACK_REFERENCE.matcher(expression).find() || NOT_COMBINABLE.matcher(expression).find())
+            {
+                // Group numbers would change, or group names and quotes clash, when combined
+                separate.add(new Candidate(index, filter.getPattern(), 0, false));
+            }
+            else
+            {
+                combinable.add(new Candidate(index, filter.getPattern(), 0, false));
+            }
+        }
+
+        private void build()
+        {
+            if (combinable.size() < 2)
+            {
+                separate.addAll(combinable);
+                separate.sort((a, b) -> Integer.compare(a.index, b.index));
+                return;
+            }
+
+            final StringBuilder alternation = new StringBuilder();
+            combinedGroups = new int[combinable.size()];
+            combinedIndexes = new int[combinable.size()];
+            int group = 1;
+            for (int i = 0; i < combinable.size(); i++)
+            {
+                final Candidate candidate = combinable.get(i);
+                alternation.append(i > 0 ? "|(" : "(").append(candidate.pattern.pattern()).append(')');
+                combinedGroups[i] = group;
+                combinedIndexes[i] = candidate.index;
+                group += 1 + candidate.pattern.matcher("").groupCount();
+            }
+            try
+            {
+                combined = Pattern.compile(alternation.toString());
+            }
+            catch (PatternSyntaxException e)
+            {
+                // Valid on their own, so still matched one by one
+                combinedGroups = null;
+                combinedIndexes = null;
+                separate.addAll(combinable);
+                separate.sort((a, b) -> Integer.compare(a.index, b.index));
+            }
+        }
+
+        private int match(final OperationData data, final int best)
+        {
+            int result = best;
+            for (Object element : values.apply(data))
+            {
+                if (element instanceof String)
+                {
+                    result = match((String) element, result);
+                }
+            }
+            return result;
+        }
+
+        private int match(final String value, final int best)
+        {
+            int result = best;
+
+            final Integer literal = literals.get(value);
+            if (literal != null && literal < result)
+            {
+                result = literal;
+            }
+
+            TrieNode node = prefixes;
+            for (int i = 0; i < value.length() && node != null; i++)
+            {
+                node = node.children.get(value.charAt(i));
+                if (node != null)
+                {
+                    for (Candidate candidate : node.candidates)
+                    {
+                        if (candidate.index < result && candidate.matches(value))
+                        {
+                            result = candidate.index;
+                        }
+                    }
+                }
+            }
+
+            // Alternatives are tried in order, so the first group taking part in the match is the first filter
+            if (combined != null && combinedIndexes[0] < result)
+            {
+                final Matcher matcher = combined.matcher(value);
+                if (matcher.matches())
+                {
+                    for (int i = 0; i < combinedGroups.length; i++)
+                    {
+                        if (matcher.start(combinedGroups[i]) >= 0)
+                        {
+                            result = Math.min(result, combinedIndexes[i]);
+                            break;
+                        }
+                    }
+                }
+            }
+
+            for (Candidate candidate : separate)
+            {
+                if (candidate.index >= result)
+                {
+                    break;
+                }
+                if (candidate.matches(value))
+                {
+                    result = candidate.index;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.callbacks.Callback;
+import io.swagger.v3.oas.models.headers.Header;
+import io.swagger.v3.oas.models.links.Link;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+
+/**
+ * Replaces local <code>$ref</code>s with the referenced component itself, instead of with a copy. Each component is
+ * resolved the first time it is referenced and the result is memoized, so a schema referenced from hundreds of places
+ * exists once in memory. References back into a schema that is still being resolved are kept as <code>$ref</code>s,
+ * so the resulting model has no cycles.
+ * <p>
+ * The model is walked in the order the full resolver walks it: the paths in document order, and per operation its
+ * parameters, callbacks, request body and responses, before any remaining components. A cycle is therefore broken at
+ * the same edge as with {@link Resolution#FULL}, which also shares each resolved schema: with <code>A -&gt; B -&gt; A</code>
+ * first reached through <code>A</code>, <code>B</code> keeps a <code>$ref</code> to <code>A</code> wherever it is used.
+ */
+public class LazyResolver
+{
+    private static final String SCHEMAS = "#/components/schemas/";
+    private static final String PARAMETERS = "#/components/parameters/";
+    private static final String RESPONSES = "#/components/responses/";
+    private static final String REQUEST_BODIES = "#/components/requestBodies/";
+    private static final String HEADERS = "#/components/headers/";
+    private static final String LINKS = "#/components/links/";
+    private static final String CALLBACKS = "#/components/callbacks/";
+
+    private final Components components;
+    private final Map<String, Schema> resolvedSchemas = new HashMap<>();
+    private final Set<String> resolving = new HashSet<>();
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private LazyResolver(final Components components)
+    {
+        this.components = Optional.ofNullable(components).orElse(new Components());
+    }
+
+    public static OpenAPI resolve(final OpenAPI openAPI)
+    {
+        if (openAPI != null)
+        {
+            new LazyResolver(openAPI.getComponents()).resolveAll(openAPI);
+        }
+        return openAPI;
+    }
+
+    private void resolveAll(final OpenAPI openAPI)
+    {
+        // Paths first, so cycles are broken where the full resolver breaks them
+        Optional.ofNullable(openAPI.getPaths()).ifPresent(paths -> paths.values().forEach(this::pathItem));
+
+        Optional.ofNullable(components.getSchemas()).ifPresent(schemas -> schemas.replaceAll((name, schema) -> namedSchema(name, schema)));
+        Optional.ofNullable(components.getParameters()).ifPresent(parameters -> parameters.replaceAll((name, parameter) -> parameter(parameter)));
+        Optional.ofNullable(components.getHeaders()).ifPresent(headers -> headers.replaceAll((name, header) -> header(header)));
+        Optional.ofNullable(components.getRequestBodies()).ifPresent(bodies -> bodies.replaceAll((name, body) -> requestBody(body)));
+        Optional.ofNullable(components.getResponses()).ifPresent(responses -> responses.replaceAll((name, response) -> response(response)));
+        Optional.ofNullable(components.getLinks()).ifPresent(links -> links.replaceAll((name, link) -> link(link)));
+        Optional.ofNullable(components.getCallbacks()).ifPresent(callbacks -> callbacks.replaceAll((name, callback) -> callback(callback)));
+    }
+
+    private void pathItem(final PathItem pathItem)
+    {
+        if (pathItem == null || !visited.add(pathItem))
+        {
+            return;
+        }
+        for (Operation operation : pathItem.readOperations())
+        {
+            parameters(operation.getParameters());
+            Optional.ofNullable(operation.getCallbacks()).ifPresent(callbacks -> callbacks.replaceAll((name, callback) -> callback(callback)));
+            operation.setRequestBody(requestBody(operation.getRequestBody()));
+            Optional.ofNullable(operation.getResponses()).ifPresent(responses -> responses.replaceAll((code, response) -> response(response)));
+        }
+        parameters(pathItem.getParameters());
+    }
+
+    private Callback callback(final Callback callback)
+    {
+        final Callback resolved = component(callback, callback != null ? callback.get$ref() : null, CALLBACKS, components.getCallbacks());
+        if (resolved != null && visited.add(resolved))
+        {
+            resolved.values().forEach(this::pathItem);
+        }
+        return resolved;
+    }
+
+    private Link link(final Link link)
+    {
+        final Link resolved = component(link, link != null ? link.get$ref() : null, LINKS, components.getLinks());
+        if (resolved != null && visited.add(resolved))
+        {
+            headers(resolved.getHeaders());
+        }
+        return resolved;
+    }
+
+    private void headers(final Map<String, Header> headers)
+    {
+        if (headers != null)
+        {
+            headers.replaceAll((name, header) -> header(header));
+        }
+    }
+
+    private void parameters(final List<Parameter> parameters)
+    {
+        if (parameters != null)
+        {
+            parameters.replaceAll(this::parameter);
+        }
+    }
+
+    private Parameter parameter(final Parameter parameter)
+    {
+        final Parameter resolved = component(parameter, parameter != null ? parameter.get$ref() : null, PARAMETERS, components.getParameters());
+        if (resolved != null && visited.add(resolved))
+        {
+            resolved.setSchema(schema(resolved.getSchema()));
+            content(resolved.getContent());
+        }
+        return resolved;
+    }
+
+    private Header header(final Header header)
+    {
+        final Header resolved = component(header, header != null ? header.get$ref() : null, HEADERS, components.getHeaders());
+        if (resolved != null && visited.add(resolved))
+        {
+            resolved.setSchema(schema(resolved.getSchema()));
+            content(resolved.getContent());
+        }
+        return resolved;
+    }
+
+    private RequestBody requestBody(final RequestBody requestBody)
+    {
+        final RequestBody resolved = component(requestBody, requestBody != null ? requestBody.get$ref() : null, REQUEST_BODIES, components.getRequestBodies());
+        if (resolved != null && visited.add(resolved))
+        {
+            content(resolved.getContent());
+        }
+        return resolved;
+    }
+
+    private ApiResponse response(final ApiResponse response)
+    {
+        final ApiResponse resolved = component(response, response != null ? response.get$ref() : null, RESPONSES, components.getResponses());
+        if (resolved != null && visited.add(resolved))
+        {
+            headers(resolved.getHeaders());
+            content(resolved.getContent());
+            Optional.ofNullable(resolved.getLinks()).ifPresent(links -> links.replaceAll((name, link) -> link(link)));
+        }
+        return resolved;
+    }
+
+    private void content(final Content content)
+    {
+        if (content != null)
+        {
+            for (MediaType mediaType : content.values())
+            {
+                if (mediaType != null)
+                {
+                    mediaType.setSchema(schema(mediaType.getSchema()));
+                    Optional.ofNullable(mediaType.getEncoding()).ifPresent(encodings -> encodings.values().stream().filter(Objects::nonNull).forEach(encoding -> headers(encoding.getHeaders())));
+                }
+            }
+        }
+    }
+
+    private static <T> T component(final T value, final String ref, final String prefix, final Map<String, T> available)
+    {
+        if (ref != null && ref.startsWith(prefix) && available != null)
+        {
+            final T referenced = available.get(ref.substring(prefix.length()));
+            if (referenced != null)
+            {
+                return referenced;
+            }
+        }
+        return value;
+    }
+
+    private Schema namedSchema(final String name, final Schema schema)
+    {
+        final Schema resolved = resolvedSchemas.get(name);
+        if (resolved != null)
+        {
+            return resolved;
+        }
+
+        resolving.add(name);
+        final Schema result = schema(schema);
+        resolving.remove(name);
+        resolvedSchemas.put(name, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Schema schema(final Schema schema)
+    {
+        if (schema == null)
+        {
+            return null;
+        }
+
+        final String ref = schema.get$ref();
+        if (ref != null)
+        {
+            if (!ref.startsWith(SCHEMAS) || components.getSchemas() == null)
+            {
+                return schema;
+            }
+            final String name = ref.substring(SCHEMAS.length());
+            final Schema referenced = components.getSchemas().get(name);
+            if (referenced == null || resolving.contains(name))
+            {
+                // Unknown, or a recursive reference
+                return schema;
+            }
+            return namedSchema(name, referenced);
+        }
+
+        if (visited.add(schema))
+        {
+            Optional.ofNullable(schema.getProperties()).ifPresent(properties -> ((Map<String, Schema>) properties).replaceAll((name, property) -> schema(property)));
+            schema.setItems(schema(schema.getItems()));
+            schema.setNot(schema(schema.getNot()));
+            if (schema.getAdditionalProperties() instanceof Schema)
+            {
+                schema.setAdditionalProperties(schema((Schema) schema.getAdditionalProperties()));
+            }
+            schemas(schema.getAllOf());
+            schemas(schema.getAnyOf());
+            schemas(schema.getOneOf());
+        }
+        return schema;
+    }
+
+    private void schemas(final List<Schema> schemas)
+    {
+        if (schemas != null)
+        {
+            schemas.replaceAll(this::schema);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+import org.zalando.zally.rule.api.Context;
+
+/**
+ * Calls a check through a method handle bound to its rule instance, for checks a generated class cannot call directly
+ */
+class MethodHandleInvoker implements CheckInvoker
+{
+    private final MethodHandle bound;
+
+    MethodHandleInvoker(final Object instance, final MethodHandle handle)
+    {
+        this.bound = handle.bindTo(instance).asType(MethodType.methodType(Object.class, Context.class));
+    }
+
+    @Override
+    public Object invoke(final Context context)
+    {
+        try
+        {
+            return (Object) bound.invokeExact(context);
+        }
+        catch (RuntimeException | Error e)
+        {
+            throw e;
+        }
+        catch (Throwable e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
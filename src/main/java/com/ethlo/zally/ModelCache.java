@@ -0,0 +1,146 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenSession;
+
+import io.swagger.v3.oas.models.OpenAPI;
+
+/**
+ * Parsed specification models shared by all goals of a build, so each specification is read and resolved at most once
+ * per {@link Resolution}. Entries are keyed on the source path, the resolution and a digest of the content of the
+ * source and its referenced files. The models are shared and must be treated as read-only. External documents
+ * referenced from several specifications are read once, see {@link ReferenceCache}.
+ * <p>
+ * Models can optionally be canonicalized after resolution, see {@link Canonicalization}.
+ */
+public class ModelCache
+{
+    private static final Map<MavenSession, ModelCache> sessions = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<String, Entry> models = new ConcurrentHashMap<>();
+    private final ReferenceCache references = new ReferenceCache();
+
+    /**
+     * @param session The current session, or <code>null</code> for a cache that is not shared
+     * @return The cache for the session
+     */
+    public static ModelCache forSession(final MavenSession session)
+    {
+        if (session == null)
+        {
+            return new ModelCache();
+        }
+        return sessions.computeIfAbsent(session, s -> new ModelCache());
+    }
+
+    public OpenAPI get(final String url, final Resolution resolution) throws IOException
+    {
+        return get(url, resolution, Profiler.NONE);
+    }
+
+    public OpenAPI get(final String url, final Resolution resolution, final Profiler profiler) throws IOException
+    {
+        return get(url, resolution, Canonicalization.NONE, profiler);
+    }
+
+    public OpenAPI get(final String url, final Resolution resolution, final Canonicalization canonicalization, final Profiler profiler) throws IOException
+    {
+        final String path = Files.exists(Paths.get(url)) ? Paths.get(url).toAbsolutePath().normalize().toString() : url;
+        final String prefix = resolution + "+" + canonicalization + ":" + path + ":";
+        final String key = prefix + SourceFiles.getContentKey(url);
+        if (!models.containsKey(key))
+        {
+            // Keep only the current version of a source, as a long-lived cache sees every edit
+            models.keySet().removeIf(k -> k.startsWith(prefix));
+        }
+        return models.computeIfAbsent(key, k -> new Entry()).get(url, resolution, canonicalization, references, profiler);
+    }
+
+    /**
+     * @param model A model returned by this cache
+     * @return The outcome of canonicalizing the model, if it was canonicalized
+     */
+    public Optional<Canonicalizer.Statistics> getStatistics(final OpenAPI model)
+    {
+        return models.values().stream()
+                .filter(entry -> entry.model == model && entry.statistics != null)
+                .map(entry -> entry.statistics)
+                .findFirst();
+    }
+
+    /**
+     * @return The external documents referenced by the specifications parsed through this cache
+     */
+    public ReferenceCache getReferences()
+    {
+        return references;
+    }
+
+    public int size()
+    {
+        return models.size();
+    }
+
+    private static class Entry
+    {
+        private volatile OpenAPI model;
+        private volatile Canonicalizer.Statistics statistics;
+
+        private synchronized OpenAPI get(final String url, final Resolution resolution, final Canonicalization canonicalization, final ReferenceCache references, final Profiler profiler)
+        {
+            if (model == null)
+            {
+                final OpenApiParser parser = new OpenApiParser(references);
+                OpenAPI result;
+                try (Profiler.Measurement ignored = profiler.start(Profiler.PARSE, url))
+                {
+                    result = parser.parse(url);
+                }
+                if (resolution != Resolution.NONE)
+                {
+                    try (Profiler.Measurement ignored = profiler.start(Profiler.RESOLVE, url))
+                    {
+                        result = parser.resolve(result, resolution);
+                    }
+                }
+                if (canonicalization != Canonicalization.NONE)
+                {
+                    try (Profiler.Measurement ignored = profiler.start(Profiler.CANONICALIZE, url))
+                    {
+                        statistics = parser.canonicalize(result, canonicalization);
+                    }
+                }
+                model = result;
+            }
+            return model;
+        }
+    }
+}
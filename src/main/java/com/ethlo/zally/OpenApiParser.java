@@ -19,28 +19,99 @@ package com.ethlo.zally;
  * #L%
  */
 
-import io.swagger.parser.util.ParseOptions;
+import java.util.ArrayList;
+
 import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIResolver;
 import io.swagger.v3.parser.OpenAPIV3Parser;
+import io.swagger.v3.parser.core.models.ParseOptions;
+import io.swagger.v3.parser.core.models.SwaggerParseResult;
 import io.swagger.v3.parser.util.ResolverFully;
 
 public class OpenApiParser
 {
+    private final ReferenceCache references;
+
+    public OpenApiParser()
+    {
+        this(null);
+    }
+
+    /**
+     * @param references Cache of external documents to read <code>$ref</code>s through, or <code>null</code> to read them for every parse
+     */
+    public OpenApiParser(final ReferenceCache references)
+    {
+        this.references = references;
+    }
+
     public OpenAPI parseInlined(String url)
     {
-        final ParseOptions parseOptions = new ParseOptions();
-        parseOptions.setResolve(true);
-        final OpenAPI parseResult = new OpenAPIV3Parser().read(url);
+        return inline(parse(url));
+    }
+
+    public OpenAPI inline(final OpenAPI parseResult)
+    {
         new ResolverFully(true).resolveFully(parseResult);
         return parseResult;
     }
 
+    public OpenAPI resolve(final OpenAPI parseResult, final Resolution resolution)
+    {
+        switch (resolution)
+        {
+            case FULL:
+                return inline(parseResult);
+            case LAZY:
+                return LazyResolver.resolve(parseResult);
+            default:
+                return parseResult;
+        }
+    }
+
+    /**
+     * Replaces repeated values in the model with shared instances
+     *
+     * @return What was shared, and the estimated memory saved
+     */
+    public Canonicalizer.Statistics canonicalize(final OpenAPI parseResult, final Canonicalization canonicalization)
+    {
+        return Canonicalizer.canonicalize(parseResult, canonicalization);
+    }
+
     public OpenAPI parse(final String url)
     {
-        final ParseOptions parseOptions = new ParseOptions();
-        parseOptions.setResolve(true);
-        final OpenAPI parseResult = new OpenAPIV3Parser().read(url);
-        //new ResolverFully(true).resolveFully(parseResult);
-        return parseResult;
+        if (references != null)
+        {
+            final OpenAPI parseResult = parseWithReferences(url);
+            if (parseResult != null)
+            {
+                return parseResult;
+            }
+        }
+        return new OpenAPIV3Parser().read(url);
+    }
+
+    /**
+     * Same as {@link OpenAPIV3Parser#read(String)}, with the resolver reading external documents through the cache
+     */
+    private OpenAPI parseWithReferences(final String url)
+    {
+        final ParseOptions unresolved = new ParseOptions();
+        final SwaggerParseResult result = new OpenAPIV3Parser().readLocation(url, null, unresolved);
+        if (result == null || result.getOpenAPI() == null)
+        {
+            return null;
+        }
+
+        final ParseOptions options = new ParseOptions();
+        options.setResolve(true);
+        final OpenAPIResolver resolver = new OpenAPIResolver(result.getOpenAPI(), new ArrayList<>(), url, null, options);
+        if (!references.attach(resolver.getCache()))
+        {
+            return null;
+        }
+        resolver.resolve(result);
+        return result.getOpenAPI();
     }
 }
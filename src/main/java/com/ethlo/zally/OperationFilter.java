@@ -20,16 +20,30 @@ package com.ethlo.zally;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class OperationFilter
 {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final Pattern REGEX_META = Pattern.compile("[\\\\.\\[\\]{}()*+?^$|]");
+
     private Pattern matcher;
+    private String literal;
     private String pointer;
     private String expression;
+    private Function<OperationData, Iterable<?>> accessor;
 
     public OperationFilter()
     {
@@ -38,7 +52,7 @@ public class OperationFilter
 
     public OperationFilter(@JsonProperty("pointer") final String pointer, @JsonProperty("expression") final String expression)
     {
-        this.pointer = pointer;
+        setPointer(pointer);
         setExpression(expression);
     }
 
@@ -55,12 +69,14 @@ public class OperationFilter
     public void setPointer(final String pointer)
     {
         this.pointer = pointer;
+        this.accessor = null;
     }
 
     public void setExpression(final String expression)
     {
         this.expression = expression;
         this.matcher = Pattern.compile(expression);
+        this.literal = REGEX_META.matcher(expression).find() ? null : expression;
     }
 
     @Override
@@ -94,6 +110,135 @@ public class OperationFilter
 
     public boolean isMatch(String value)
     {
-        return matcher.matcher(value).matches();
+        if (value == null)
+        {
+            return false;
+        }
+        return literal != null ? literal.equals(value) : matcher.matcher(value).matches();
+    }
+
+    /**
+     * Evaluates the pointer against the operation. The well-known fields are read directly, while other pointers are
+     * evaluated against the JSON representation of the operation
+     */
+    public boolean isMatch(OperationData data)
+    {
+        Function<OperationData, Iterable<?>> result = accessor;
+        if (result == null)
+        {
+            result = compile(pointer);
+            accessor = result;
+        }
+        for (Object value : result.apply(data))
+        {
+            if (value instanceof String && isMatch((String) value))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The expression if it has no regular expression meta characters, otherwise <code>null</code>
+     */
+    String getLiteral()
+    {
+        return literal;
+    }
+
+    Pattern getPattern()
+    {
+        return matcher;
+    }
+
+    static String normalize(final String pointer)
+    {
+        return pointer.startsWith("/") ? pointer : "/" + pointer;
+    }
+
+    /**
+     * Compiles a pointer into a function returning the values of an operation the expression is matched against. Only
+     * the {@link String} values are candidates for a match.
+     */
+    static Function<OperationData, Iterable<?>> compile(final String pointer)
+    {
+        final JsonPointer jsonPointer = JsonPointer.compile(normalize(pointer));
+        final JsonPointer tail = jsonPointer.tail();
+        switch (jsonPointer.getMatchingProperty())
+        {
+            case "method":
+                return tail.matches() ? data -> Collections.singletonList(data.getMethod()) : data -> Collections.emptyList();
+            case "path":
+                return tail.matches() ? data -> Collections.singletonList(data.getPath()) : data -> Collections.emptyList();
+            case "operationId":
+                return tail.matches() ? data -> Collections.singletonList(data.getOperationId()) : data -> Collections.emptyList();
+            case "deprecated":
+                // Not textual, so never matches
+                return data -> Collections.emptyList();
+            case "tags":
+                if (tail.matches())
+                {
+                    return data -> Optional.<Iterable<?>>ofNullable(data.getTags()).orElse(Collections.emptyList());
+                }
+                else if (tail.mayMatchElement() && tail.tail().matches())
+                {
+                    final int index = tail.getMatchingIndex();
+                    return data -> data.getTags() != null && index < data.getTags().size() ? Collections.singletonList(data.getTags().get(index)) : Collections.emptyList();
+                }
+                return data -> Collections.emptyList();
+            case "extensions":
+                if (tail.matches())
+                {
+                    return data -> data.getExtensions() != null ? data.getExtensions().keySet() : Collections.emptyList();
+                }
+                else if (tail.tail().matches())
+                {
+                    final String name = tail.getMatchingProperty();
+                    return data -> getValues(data.getExtensions() != null ? data.getExtensions().get(name) : null, data, jsonPointer);
+                }
+                return data -> getNodeValues(mapper.valueToTree(data).at(jsonPointer));
+            default:
+                return data -> getNodeValues(mapper.valueToTree(data).at(jsonPointer));
+        }
+    }
+
+    private static Iterable<?> getValues(final Object value, final OperationData data, final JsonPointer jsonPointer)
+    {
+        if (value == null || value instanceof Boolean || value instanceof Number)
+        {
+            return Collections.emptyList();
+        }
+        else if (value instanceof String)
+        {
+            return Collections.singletonList(value);
+        }
+        else if (value instanceof Map)
+        {
+            return ((Map<?, ?>) value).keySet();
+        }
+        else if (value instanceof List)
+        {
+            return (List<?>) value;
+        }
+        return getNodeValues(mapper.valueToTree(data).at(jsonPointer));
+    }
+
+    private static Iterable<?> getNodeValues(final JsonNode value)
+    {
+        final List<String> values = new ArrayList<>();
+        if (value.isObject())
+        {
+            value.fieldNames().forEachRemaining(values::add);
+        }
+        else if (value.isArray())
+        {
+            value.elements().forEachRemaining(element -> values.add(element.textValue()));
+        }
+        else if (value.isTextual())
+        {
+            values.add(value.textValue());
+        }
+        return values;
     }
 }
@@ -0,0 +1,191 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Records wall-clock time and allocated bytes per phase of a run, for example parsing or a single check. Measurements
+ * of the same phase and name are summed up. Measurements may be nested, in which case the inner one is also included
+ * in the outer one.
+ */
+public class Profiler
+{
+    public static final String CONFIG = "config";
+    public static final String DISCOVERY = "discovery";
+    public static final String INSTANTIATION = "instantiation";
+    public static final String STREAM = "stream";
+    public static final String PARSE = "parse";
+    public static final String RESOLVE = "resolve";
+    public static final String CANONICALIZE = "canonicalize";
+    public static final String CHECK = "check";
+    public static final String LOCATE = "locate";
+    public static final String REPORT = "report";
+
+    /**
+     * A profiler that records nothing
+     */
+    public static final Profiler NONE = new Profiler(false, false);
+
+    private static final Measurement NOOP = () ->
+    {
+    };
+
+    private final boolean enabled;
+    private final boolean jfr;
+    private final ThreadMXBean threadMXBean;
+    private final ConcurrentMap<String, Map<String, Totals>> totals = new ConcurrentHashMap<>();
+
+    public Profiler(final boolean enabled, final boolean jfr)
+    {
+        this.enabled = enabled || jfr;
+        this.jfr = jfr;
+        this.threadMXBean = ManagementFactory.getThreadMXBean();
+    }
+
+    public Measurement start(final String phase, final String name)
+    {
+        if (!enabled)
+        {
+            return NOOP;
+        }
+
+        final PhaseEvent event = jfr ? new PhaseEvent() : null;
+        if (event != null)
+        {
+            event.phase = phase;
+            event.name = name;
+            event.begin();
+        }
+        final long startBytes = allocatedBytes();
+        final long startNanos = System.nanoTime();
+        return () ->
+        {
+            final long nanos = System.nanoTime() - startNanos;
+            final long bytes = startBytes >= 0 ? allocatedBytes() - startBytes : 0;
+            totals.computeIfAbsent(phase, p -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(name, n -> new Totals())
+                    .add(nanos, bytes);
+            if (event != null)
+            {
+                event.commit();
+            }
+        };
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void write(final Path target) throws IOException
+    {
+        final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        final ObjectNode root = mapper.createObjectNode();
+        final ArrayNode phases = root.putArray("phases");
+        final List<ObjectNode> nodes = new ArrayList<>();
+        totals.forEach((phase, byName) -> byName.forEach((name, t) ->
+        {
+            final ObjectNode node = mapper.createObjectNode();
+            node.put("phase", phase);
+            node.put("name", name);
+            node.put("count", t.count.get());
+            node.put("wallMillis", t.nanos.get() / 1_000_000D);
+            node.put("allocatedBytes", t.bytes.get());
+            nodes.add(node);
+        }));
+
+        // Most expensive first
+        nodes.sort(Comparator.comparingDouble((ObjectNode n) -> n.get("wallMillis").asDouble()).reversed());
+        phases.addAll(nodes);
+
+        if (target.toAbsolutePath().getParent() != null)
+        {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+        }
+        mapper.writeValue(target.toFile(), root);
+    }
+
+    private long allocatedBytes()
+    {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+        {
+            final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+            {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    public interface Measurement extends AutoCloseable
+    {
+        @Override
+        void close();
+    }
+
+    private static class Totals
+    {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private void add(final long nanos, final long bytes)
+        {
+            this.count.incrementAndGet();
+            this.nanos.addAndGet(nanos);
+            this.bytes.addAndGet(bytes);
+        }
+    }
+
+    @Name("com.ethlo.zally.Phase")
+    @Label("Zally Phase")
+    @Category("Zally")
+    public static class PhaseEvent extends Event
+    {
+        @Label("Phase")
+        String phase;
+
+        @Label("Name")
+        String name;
+    }
+}
@@ -0,0 +1,204 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.swagger.v3.parser.ResolverCache;
+
+/**
+ * Contents of external documents referenced through <code>$ref</code>, shared by all specifications parsed in a
+ * session, so a common fragment referenced from many specifications is read once. Documents are keyed on their
+ * canonical location, and files also on their modification time and size, so a changed file is read again. The
+ * least recently used documents are evicted when the total size exceeds the limit.
+ */
+public class ReferenceCache
+{
+    public static final long DEFAULT_MAX_CHARACTERS = 32L * 1024 * 1024;
+
+    private final long maxCharacters;
+    private final LinkedHashMap<String, String> documents = new LinkedHashMap<>(16, 0.75F, true);
+    private long characters;
+    private long hits;
+    private long misses;
+
+    public ReferenceCache()
+    {
+        this(DEFAULT_MAX_CHARACTERS);
+    }
+
+    public ReferenceCache(final long maxCharacters)
+    {
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * Makes the swagger parser's resolver read external documents through this cache
+     *
+     * @param resolverCache The cache of the resolver about to resolve a specification
+     * @return Whether the cache could be attached. If not, the resolver reads the documents itself
+     */
+    public boolean attach(final ResolverCache resolverCache)
+    {
+        // The private fields of ResolverCache, as of swagger-parser-v3 2.0.32 (from zally-core 2.1.1). ReferenceCacheTest
+        // fails if they change, so a dependency upgrade cannot silently turn this cache off
+        try
+        {
+            final Path parentDirectory = (Path) getField("parentDirectory").get(resolverCache);
+            final String rootPath = (String) getField("rootPath").get(resolverCache);
+            getField("externalFileCache").set(resolverCache, new View(parentDirectory, rootPath));
+            return true;
+        }
+        catch (ReflectiveOperationException | ClassCastException | SecurityException exc)
+        {
+            // Not the resolver version this was written for
+            return false;
+        }
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    public synchronized int size()
+    {
+        return documents.size();
+    }
+
+    synchronized String get(final String key)
+    {
+        final String content = documents.get(key);
+        if (content != null)
+        {
+            hits++;
+        }
+        else
+        {
+            misses++;
+        }
+        return content;
+    }
+
+    synchronized void put(final String key, final String content)
+    {
+        if (content == null || content.length() > maxCharacters)
+        {
+            return;
+        }
+
+        final String previous = documents.put(key, content);
+        characters += content.length() - (previous != null ? previous.length() : 0);
+        final Iterator<String> eldest = documents.values().iterator();
+        while (characters > maxCharacters && eldest.hasNext())
+        {
+            characters -= eldest.next().length();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return The key of a referenced document, as the resolver would locate it
+     */
+    static String getKey(final String file, final Path parentDirectory, final String rootPath)
+    {
+        if (file.contains("://"))
+        {
+            return file;
+        }
+        if (parentDirectory != null)
+        {
+            final Path path = parentDirectory.resolve(file).toAbsolutePath().normalize();
+            try
+            {
+                if (Files.isRegularFile(path))
+                {
+                    return path.toUri() + "@" + Files.getLastModifiedTime(path).toMillis() + ":" + Files.size(path);
+                }
+            }
+            catch (IOException ignored)
+            {
+                // Keyed on the location only
+            }
+            return "classpath:" + parentDirectory.resolve(file).normalize().toString().replace('\\', '/');
+        }
+        return rootPath != null ? URI.create(rootPath).resolve(file).toString() : file;
+    }
+
+    private static Field getField(final String name) throws NoSuchFieldException
+    {
+        final Field field = ResolverCache.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    /**
+     * The resolver's per-specification file cache, backed by the shared documents
+     */
+    private class View extends HashMap<String, String>
+    {
+        private final Path parentDirectory;
+        private final String rootPath;
+
+        private View(final Path parentDirectory, final String rootPath)
+        {
+            this.parentDirectory = parentDirectory;
+            this.rootPath = rootPath;
+        }
+
+        @Override
+        public String get(final Object file)
+        {
+            final String local = super.get(file);
+            if (local != null || !(file instanceof String))
+            {
+                return local;
+            }
+            return ReferenceCache.this.get(getKey((String) file, parentDirectory, rootPath));
+        }
+
+        @Override
+        public String put(final String file, final String content)
+        {
+            ReferenceCache.this.put(getKey(file, parentDirectory, rootPath), content);
+            return super.put(file, content);
+        }
+
+        @Override
+        public void putAll(final Map<? extends String, ? extends String> entries)
+        {
+            entries.forEach(this::put);
+        }
+    }
+}
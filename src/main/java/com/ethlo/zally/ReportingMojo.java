@@ -20,9 +20,15 @@ package com.ethlo.zally;/*-
 
 import static com.ethlo.zally.ExtractMojo.load;
 
-import java.util.Arrays;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -41,22 +47,62 @@ public class ReportingMojo extends AbstractMojo
     @Parameter(property = "zally.skip", defaultValue = "false")
     private boolean skip;
 
+    @Parameter(property = "zally.resolution", defaultValue = "FULL")
+    private Resolution resolution = Resolution.FULL;
+
+    @Parameter(property = "zally.inventoryFile")
+    private File inventoryFile;
+
+    @Parameter(property = "zally.inventoryFormat", defaultValue = "JSON")
+    private InventoryFormat inventoryFormat = InventoryFormat.JSON;
+
     @Parameter(defaultValue = "${project}", required = true, readonly = true)
     private MavenProject project;
 
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
     @Override
     public void execute() throws MojoFailureException
     {
-        final Optional<OpenAPI> loaded = load(getLog(), skip, source, true);
+        final ModelCache modelCache = ModelCache.forSession(session);
+        final Optional<OpenAPI> loaded = load(getLog(), skip, source, resolution, modelCache);
 
         loaded.ifPresent(openAPI ->
         {
             getLog().info("Analyzing file '" + source + "'");
             getLog().info("");
             getLog().info("API path hierarchy:");
-            final String hierarchy = new ApiReporter(new OpenApiParser().parseInlined(source)).render();
-            Arrays.stream(hierarchy.split("\n")).forEach(line -> getLog().info(line));
+            new ApiReporter(openAPI).render(getLog());
             getLog().info("");
         });
+
+        if (loaded.isPresent() && inventoryFile != null)
+        {
+            writeInventory(loaded.get());
+        }
+    }
+
+    private void writeInventory(final OpenAPI openAPI) throws MojoFailureException
+    {
+        try
+        {
+            // The inventory follows references and recognizes shared schemas, so the model of the report is used as is
+            final ApiInventory inventory = new ApiInventory(openAPI);
+            final Path target = inventoryFile.toPath();
+            if (target.toAbsolutePath().getParent() != null)
+            {
+                Files.createDirectories(target.toAbsolutePath().getParent());
+            }
+            try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8))
+            {
+                inventory.write(source, inventoryFormat, out);
+            }
+            getLog().info("Wrote inventory of " + inventory.getOperations() + " operations (" + inventory.getDeprecated() + " deprecated) to " + inventoryFile);
+        }
+        catch (IOException e)
+        {
+            throw new MojoFailureException("Unable to write inventory to " + inventoryFile, e);
+        }
     }
 }
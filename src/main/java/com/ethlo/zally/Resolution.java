@@ -0,0 +1,43 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * How <code>$ref</code>s are resolved after parsing
+ */
+public enum Resolution
+{
+    /**
+     * References are kept as parsed
+     */
+    NONE,
+
+    /**
+     * Local references are replaced by the referenced component, which is resolved once and shared by all the places
+     * referencing it. Memory use stays proportional to the source document
+     */
+    LAZY,
+
+    /**
+     * References are inlined and <code>allOf</code> schemas are merged, using the swagger parser's full resolver
+     */
+    FULL
+}
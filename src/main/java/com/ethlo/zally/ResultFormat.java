@@ -0,0 +1,52 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Format of the result file
+ */
+public enum ResultFormat
+{
+    /**
+     * One line per violation, after a header with the number of violations
+     */
+    TEXT,
+
+    /**
+     * A JSON array with one object per violation
+     */
+    JSON,
+
+    /**
+     * One JSON object per violation and line
+     */
+    JSONL,
+
+    /**
+     * A SARIF 2.1.0 log, as read by code scanning tools
+     */
+    SARIF,
+
+    /**
+     * A JUnit XML report with one failed test case per violation, as read by CI servers
+     */
+    JUNIT
+}
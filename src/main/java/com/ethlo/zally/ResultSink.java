@@ -0,0 +1,74 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+/**
+ * Receives violations one at a time, as they are found, so they can be counted, logged and written without first
+ * being collected
+ */
+public interface ResultSink
+{
+    /**
+     * @param source The specification the violation was found in
+     */
+    void accept(String source, CheckDetails checkDetails, Result result);
+
+    /**
+     * Called once all violations of a specification have been passed on
+     */
+    default void end(final String source)
+    {
+    }
+
+    /**
+     * @return A sink passing every violation on to each of the sinks, in order
+     */
+    static ResultSink of(final ResultSink... sinks)
+    {
+        final List<ResultSink> all = Arrays.asList(sinks);
+        return new ResultSink()
+        {
+            @Override
+            public void accept(final String source, final CheckDetails checkDetails, final Result result)
+            {
+                for (ResultSink sink : all)
+                {
+                    sink.accept(source, checkDetails, result);
+                }
+            }
+
+            @Override
+            public void end(final String source)
+            {
+                for (ResultSink sink : all)
+                {
+                    sink.end(source);
+                }
+            }
+        };
+    }
+}
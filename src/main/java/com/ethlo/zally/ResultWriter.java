@@ -0,0 +1,533 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import kotlin.ranges.IntRange;
+
+/**
+ * Writes violations to a result file as they are reported, through a single buffered stream. The file is complete
+ * once the writer is closed. Formats starting with the number of violations spool the violations to a temporary file
+ * until then, so memory use does not grow with the number of violations.
+ */
+public abstract class ResultWriter implements ResultSink, Closeable
+{
+    protected final Writer out;
+    private final Spool spool;
+    private long count;
+    private Path baseDirectory;
+    private boolean sourcesShown = true;
+
+    protected ResultWriter(final Writer out, final Spool spool)
+    {
+        this.out = out;
+        this.spool = spool;
+    }
+
+    public static ResultWriter open(final Path target, final ResultFormat format) throws IOException
+    {
+        final Path directory = target.toAbsolutePath().getParent();
+        if (directory != null)
+        {
+            Files.createDirectories(directory);
+        }
+        final Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8);
+        return create(out, format, () -> new Spool(Files.createTempFile(directory, "zally-results", ".tmp")));
+    }
+
+    /**
+     * @return A writer spooling in memory where needed, for small result sets
+     */
+    public static ResultWriter create(final Writer out, final ResultFormat format) throws IOException
+    {
+        return create(out, format, () -> new Spool(null));
+    }
+
+    private static ResultWriter create(final Writer out, final ResultFormat format, final SpoolFactory spools) throws IOException
+    {
+        switch (format != null ? format : ResultFormat.TEXT)
+        {
+            case JSON:
+                return new JsonResultWriter(out, false);
+            case JSONL:
+                return new JsonResultWriter(out, true);
+            case SARIF:
+                return new SarifResultWriter(out);
+            case JUNIT:
+                return new JunitResultWriter(out, spools.create());
+            default:
+                return new TextResultWriter(out, spools.create());
+        }
+    }
+
+    /**
+     * Directory the SARIF artifact locations are made relative to. Default is none, which keeps the sources as given
+     */
+    public void setBaseDirectory(final Path baseDirectory)
+    {
+        this.baseDirectory = baseDirectory;
+    }
+
+    /**
+     * Whether the text, JSON and JUnit formats name the source of each violation, which is only needed when several
+     * were validated. SARIF always locates the violations in their source. Default is true
+     */
+    public void setSourcesShown(final boolean sourcesShown)
+    {
+        this.sourcesShown = sourcesShown;
+    }
+
+    /**
+     * @param source The specification the violation was found in
+     */
+    @Override
+    public void accept(final String source, final CheckDetails checkDetails, final Result result)
+    {
+        try
+        {
+            count++;
+            write(source, checkDetails, result);
+        }
+        catch (IOException exc)
+        {
+            throw new UncheckedIOException(exc);
+        }
+    }
+
+    /**
+     * @return The number of violations written so far
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    protected abstract void write(String source, CheckDetails checkDetails, Result result) throws IOException;
+
+    /**
+     * @return The source if sources are shown, otherwise <code>null</code>
+     */
+    protected String shown(final String source)
+    {
+        return sourcesShown ? source : null;
+    }
+
+    /**
+     * @return The source as a URI reference, relative to the base directory where it is inside of it
+     */
+    protected String toUri(final String source)
+    {
+        Path path;
+        try
+        {
+            path = Paths.get(source);
+        }
+        catch (InvalidPathException exc)
+        {
+            return source;
+        }
+
+        if (path.isAbsolute() && baseDirectory != null)
+        {
+            final Path base = baseDirectory.toAbsolutePath().normalize();
+            if (path.normalize().startsWith(base))
+            {
+                path = base.relativize(path.normalize());
+            }
+        }
+        if (path.isAbsolute())
+        {
+            return path.toUri().toString();
+        }
+
+        final String relative = path.toString().replace(File.separatorChar, '/');
+        try
+        {
+            return new URI(null, null, relative, null).toASCIIString();
+        }
+        catch (URISyntaxException exc)
+        {
+            return relative;
+        }
+    }
+
+    protected abstract void end() throws IOException;
+
+    /**
+     * @return Where formats needing the number of violations up front write the violations until the writer is closed
+     */
+    protected Writer getSpool()
+    {
+        return spool.writer;
+    }
+
+    /**
+     * Copies the spooled violations to the output
+     */
+    protected void transferSpool() throws IOException
+    {
+        spool.writer.flush();
+        try (Reader reader = spool.reader())
+        {
+            reader.transferTo(out);
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            end();
+        }
+        finally
+        {
+            try
+            {
+                out.close();
+            }
+            finally
+            {
+                if (spool != null)
+                {
+                    spool.delete();
+                }
+            }
+        }
+    }
+
+    static String format(final CheckDetails checkDetails, final Result result)
+    {
+        return checkDetails.getRule().id()
+                + " - " + result.getViolationType()
+                + " - " + checkDetails.getInstance().getClass().getSimpleName()
+                + " - " + result.getDescription()
+                + " - " + result.getPointer()
+                + " - " + result.getLines();
+    }
+
+    private interface SpoolFactory
+    {
+        Spool create() throws IOException;
+    }
+
+    private static class Spool
+    {
+        private final Path file;
+        private final Writer writer;
+
+        private Spool(final Path file) throws IOException
+        {
+            this.file = file;
+            this.writer = file != null ? Files.newBufferedWriter(file, StandardCharsets.UTF_8) : new StringWriter();
+        }
+
+        private Reader reader() throws IOException
+        {
+            return file != null ? Files.newBufferedReader(file, StandardCharsets.UTF_8) : new StringReader(writer.toString());
+        }
+
+        private void delete() throws IOException
+        {
+            writer.close();
+            if (file != null)
+            {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static class TextResultWriter extends ResultWriter
+    {
+        private TextResultWriter(final Writer out, final Spool spool)
+        {
+            super(out, spool);
+        }
+
+        @Override
+        protected void write(final String source, final CheckDetails checkDetails, final Result result) throws IOException
+        {
+            final Writer spool = getSpool();
+            if (shown(source) != null)
+            {
+                spool.write(source);
+                spool.write(" - ");
+            }
+            spool.write(format(checkDetails, result));
+            spool.write(System.lineSeparator());
+        }
+
+        @Override
+        protected void end() throws IOException
+        {
+            out.write("Rule violations (" + getCount() + ")" + System.lineSeparator());
+            transferSpool();
+        }
+    }
+
+    private static class JsonResultWriter extends ResultWriter
+    {
+        private final JsonGenerator generator;
+        private final boolean lines;
+
+        private JsonResultWriter(final Writer out, final boolean lines) throws IOException
+        {
+            super(out, null);
+            this.lines = lines;
+            this.generator = new JsonFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (lines)
+            {
+                generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            }
+            else
+            {
+                generator.writeStartArray();
+            }
+        }
+
+        @Override
+        protected void write(final String source, final CheckDetails checkDetails, final Result result) throws IOException
+        {
+            generator.writeStartObject();
+            if (shown(source) != null)
+            {
+                generator.writeStringField("source", source);
+            }
+            generator.writeStringField("id", checkDetails.getRule().id());
+            generator.writeStringField("rule", checkDetails.getInstance().getClass().getSimpleName());
+            generator.writeStringField("severity", result.getViolationType().name());
+            generator.writeStringField("title", result.getTitle());
+            generator.writeStringField("description", result.getDescription());
+            generator.writeStringField("pointer", result.getPointer().toString());
+            final IntRange range = result.getLines();
+            if (range != null)
+            {
+                generator.writeNumberField("startLine", range.getFirst());
+                generator.writeNumberField("endLine", range.getLast());
+            }
+            if (result.getUrl() != null)
+            {
+                generator.writeStringField("url", result.getUrl().toString());
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        protected void end() throws IOException
+        {
+            if (!lines)
+            {
+                generator.writeEndArray();
+            }
+            generator.writeRaw('\n');
+            generator.close();
+        }
+    }
+
+    private static class SarifResultWriter extends ResultWriter
+    {
+        private final JsonGenerator generator;
+        private final Map<String, CheckDetails> rules = new LinkedHashMap<>();
+
+        private SarifResultWriter(final Writer out) throws IOException
+        {
+            super(out, null);
+            this.generator = new JsonFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("$schema", "https://json.schemastore.org/sarif-2.1.0.json");
+            generator.writeStringField("version", "2.1.0");
+            generator.writeArrayFieldStart("runs");
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("results");
+        }
+
+        @Override
+        protected void write(final String source, final CheckDetails checkDetails, final Result result) throws IOException
+        {
+            rules.putIfAbsent(checkDetails.getRule().id(), checkDetails);
+
+            generator.writeStartObject();
+            generator.writeStringField("ruleId", checkDetails.getRule().id());
+            generator.writeStringField("level", getLevel(result));
+            generator.writeObjectFieldStart("message");
+            generator.writeStringField("text", result.getDescription());
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("locations");
+            generator.writeStartObject();
+            if (source != null || result.getLines() != null)
+            {
+                generator.writeObjectFieldStart("physicalLocation");
+                if (source != null)
+                {
+                    generator.writeObjectFieldStart("artifactLocation");
+                    generator.writeStringField("uri", toUri(source));
+                    generator.writeEndObject();
+                }
+                if (result.getLines() != null)
+                {
+                    generator.writeObjectFieldStart("region");
+                    generator.writeNumberField("startLine", Math.max(1, result.getLines().getFirst()));
+                    generator.writeNumberField("endLine", Math.max(1, result.getLines().getLast()));
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+            generator.writeArrayFieldStart("logicalLocations");
+            generator.writeStartObject();
+            generator.writeStringField("fullyQualifiedName", result.getPointer().toString());
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        @Override
+        protected void end() throws IOException
+        {
+            generator.writeEndArray();
+
+            // Only known once all results are written
+            generator.writeObjectFieldStart("tool");
+            generator.writeObjectFieldStart("driver");
+            generator.writeStringField("name", "zally-maven-plugin");
+            generator.writeArrayFieldStart("rules");
+            for (CheckDetails checkDetails : rules.values())
+            {
+                generator.writeStartObject();
+                generator.writeStringField("id", checkDetails.getRule().id());
+                generator.writeStringField("name", checkDetails.getInstance().getClass().getSimpleName());
+                generator.writeObjectFieldStart("shortDescription");
+                generator.writeStringField("text", checkDetails.getRule().title());
+                generator.writeEndObject();
+                generator.writeStringField("helpUri", checkDetails.getRuleSet().getUrl().toString());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            generator.close();
+        }
+
+        private static String getLevel(final Result result)
+        {
+            switch (result.getViolationType())
+            {
+                case MUST:
+                    return "error";
+                case SHOULD:
+                    return "warning";
+                default:
+                    return "note";
+            }
+        }
+    }
+
+    private static class JunitResultWriter extends ResultWriter
+    {
+        private final XMLStreamWriter xml;
+
+        private JunitResultWriter(final Writer out, final Spool spool) throws IOException
+        {
+            super(out, spool);
+            try
+            {
+                // The test cases are written as fragments, the enclosing test suite once the counts are known
+                this.xml = XMLOutputFactory.newInstance().createXMLStreamWriter(getSpool());
+            }
+            catch (XMLStreamException e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        protected void write(final String source, final CheckDetails checkDetails, final Result result) throws IOException
+        {
+            try
+            {
+                xml.writeStartElement("testcase");
+                xml.writeAttribute("classname", (shown(source) != null ? source + "." : "") + checkDetails.getInstance().getClass().getSimpleName());
+                xml.writeAttribute("name", checkDetails.getRule().id() + " " + result.getPointer());
+                xml.writeStartElement("failure");
+                xml.writeAttribute("type", result.getViolationType().name());
+                xml.writeAttribute("message", result.getDescription());
+                xml.writeCharacters(format(checkDetails, result));
+                xml.writeEndElement();
+                xml.writeEndElement();
+            }
+            catch (XMLStreamException e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        protected void end() throws IOException
+        {
+            try
+            {
+                xml.flush();
+                out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+                out.write("<testsuite name=\"zally\" tests=\"" + getCount() + "\" failures=\"" + getCount() + "\" errors=\"0\" skipped=\"0\">");
+                transferSpool();
+                out.write("</testsuite>");
+                out.write(System.lineSeparator());
+            }
+            catch (XMLStreamException e)
+            {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.logging.Log;
+import org.zalando.zally.rule.api.Check;
+import org.zalando.zally.rule.api.Context;
+import org.zalando.zally.rule.api.Rule;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Index of the rule classes available on the plugin classpath and their <code>@Check</code> methods. The full
+ * classpath scan only runs when no index exists for the current classpath. The index is keyed on a digest of the
+ * classpath elements (path, size and modification time) and kept both in memory and, when a directory is given,
+ * in a <code>META-INF/services</code> style text file.
+ */
+public class RuleIndex
+{
+    private static final Map<String, RuleIndex> loaded = new ConcurrentHashMap<>();
+
+    private final String key;
+    private final Map<String, List<String>> checksByRuleClass;
+
+    private RuleIndex(final String key, final Map<String, List<String>> checksByRuleClass)
+    {
+        this.key = key;
+        this.checksByRuleClass = Collections.unmodifiableMap(checksByRuleClass);
+    }
+
+    public static RuleIndex load(final Path directory, final Log logger)
+    {
+        return load(directory, new ClassGraph().getClasspathFiles(), logger);
+    }
+
+    static RuleIndex load(final Path directory, final List<File> classpath, final Log logger)
+    {
+        final String key = classpathKey(classpath);
+        final Path indexFile = directory != null ? directory.resolve("rule-index-" + key + ".txt") : null;
+        final RuleIndex index = loaded.computeIfAbsent(key, k -> readOrScan(k, indexFile, logger));
+        if (indexFile != null && !Files.exists(indexFile))
+        {
+            try
+            {
+                index.write(indexFile);
+            }
+            catch (IOException exc)
+            {
+                logger.warn("Unable to write rule index " + indexFile + ": " + exc.getMessage());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Forget the indexes loaded by this JVM, so the next load reads the index file or scans again
+     */
+    static void clearLoaded()
+    {
+        loaded.clear();
+    }
+
+    private static RuleIndex readOrScan(final String key, final Path indexFile, final Log logger)
+    {
+        if (indexFile != null && Files.exists(indexFile))
+        {
+            try
+            {
+                logger.debug("Using rule index " + indexFile);
+                return read(key, indexFile);
+            }
+            catch (IOException | RuntimeException exc)
+            {
+                logger.warn("Ignoring unreadable rule index " + indexFile + ": " + exc.getMessage());
+            }
+        }
+
+        logger.debug("Scanning classpath for rules");
+        return new RuleIndex(key, scan());
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * @return The rule class names mapped to the names of their <code>@Check</code> methods, in discovery order
+     */
+    public Map<String, List<String>> getChecksByRuleClass()
+    {
+        return checksByRuleClass;
+    }
+
+    private static Map<String, List<String>> scan()
+    {
+        try (ScanResult result = new ClassGraph().enableClassInfo().enableAnnotationInfo().scan())
+        {
+            final Map<String, List<String>> checks = new LinkedHashMap<>();
+            for (ClassInfo classInfo : result.getClassesWithAnnotation(Rule.class.getName()))
+            {
+                checks.put(classInfo.getName(), getCheckMethodNames(classInfo.loadClass()));
+            }
+            return checks;
+        }
+    }
+
+    static boolean isCheckMethod(final Method method)
+    {
+        return method.getAnnotation(Check.class) != null
+                && method.getParameterTypes().length == 1
+                && method.getParameterTypes()[0] == Context.class;
+    }
+
+    private static List<String> getCheckMethodNames(final Class<?> ruleClass)
+    {
+        final List<String> names = new ArrayList<>();
+        for (Method method : ruleClass.getDeclaredMethods())
+        {
+            if (isCheckMethod(method))
+            {
+                names.add(method.getName());
+            }
+        }
+        return names;
+    }
+
+    private static RuleIndex read(final String key, final Path indexFile) throws IOException
+    {
+        final Map<String, List<String>> checks = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8))
+        {
+            if (line.isBlank() || line.startsWith("#"))
+            {
+                continue;
+            }
+            final String[] parts = line.trim().split("\\s+");
+            checks.put(parts[0], Arrays.asList(Arrays.copyOfRange(parts, 1, parts.length)));
+        }
+        return new RuleIndex(key, checks);
+    }
+
+    private void write(final Path indexFile) throws IOException
+    {
+        final List<String> lines = new ArrayList<>();
+        lines.add("# Rule classes and @Check methods for classpath " + key);
+        checksByRuleClass.forEach((ruleClass, methods) -> lines.add(ruleClass + (methods.isEmpty() ? "" : " " + String.join(" ", methods))));
+
+        Files.createDirectories(indexFile.getParent());
+        final Path tmp = Files.createTempFile(indexFile.getParent(), "rule-index", ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String classpathKey(final List<File> classpath)
+    {
+        try
+        {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (File element : classpath)
+            {
+                update(digest, element.toPath());
+                if (element.isDirectory())
+                {
+                    try (Stream<Path> files = Files.walk(element.toPath()))
+                    {
+                        for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList()))
+                        {
+                            update(digest, file);
+                        }
+                    }
+                }
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest())
+            {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException exc)
+        {
+            throw new IllegalStateException(exc);
+        }
+        catch (IOException exc)
+        {
+            throw new UncheckedIOException(exc);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final Path path) throws IOException
+    {
+        final String entry = path.toAbsolutePath() + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis() + "\n";
+        digest.update(entry.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,107 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Runs a {@link ValidationServer} with the configuration of the validate goal until stopped, for validate runs with
+ * <code>daemon</code> enabled and for editors to send validations to.
+ */
+@Mojo(threadSafe = true, name = "serve")
+public class ServeMojo extends ZallyMojo
+{
+    @Parameter(property = "zally.port", defaultValue = "0")
+    private int port;
+
+    @Parameter(property = "zally.stop", defaultValue = "false")
+    private boolean stop;
+
+    @Override
+    public void execute() throws MojoFailureException
+    {
+        final Path daemonFile = getDaemonFile();
+        if (stop)
+        {
+            stop(daemonFile);
+            return;
+        }
+
+        final ZallyRunner zallyRunner = createRunner(Profiler.NONE);
+        try (ValidationServer server = new ValidationServer(zallyRunner, getConfigurationKey(zallyRunner), getLog()))
+        {
+            server.start(port);
+            server.writeDaemonFile(daemonFile);
+            getLog().info("Validation server listening on port " + server.getPort() + ", stop with -Dzally.stop");
+            server.awaitStop();
+        }
+        catch (IOException e)
+        {
+            throw new MojoFailureException("Unable to run validation server: " + e.getMessage(), e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            deleteDaemonFile(daemonFile);
+        }
+    }
+
+    private void stop(final Path daemonFile)
+    {
+        if (!Files.exists(daemonFile))
+        {
+            getLog().info("No validation server is running");
+            return;
+        }
+
+        try
+        {
+            ValidationClient.stop(daemonFile);
+            getLog().info("Stopped validation server");
+        }
+        catch (IOException e)
+        {
+            getLog().info("Validation server is not running: " + e.getMessage());
+        }
+        deleteDaemonFile(daemonFile);
+    }
+
+    private void deleteDaemonFile(final Path daemonFile)
+    {
+        try
+        {
+            Files.deleteIfExists(daemonFile);
+        }
+        catch (IOException e)
+        {
+            getLog().warn("Unable to delete " + daemonFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+import org.zalando.zally.rule.api.Severity;
+
+/**
+ * Counts violations per severity
+ */
+public class SeverityCounter implements ResultSink
+{
+    private final Map<Severity, Long> counts = new EnumMap<>(Severity.class);
+
+    @Override
+    public synchronized void accept(final String source, final CheckDetails checkDetails, final Result result)
+    {
+        counts.merge(result.getViolationType(), 1L, Long::sum);
+    }
+
+    public synchronized long getCount(final Severity severity)
+    {
+        return counts.getOrDefault(severity, 0L);
+    }
+
+    public synchronized long getTotal()
+    {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return The severities of the violations seen so far
+     */
+    public synchronized Set<Severity> getSeverities()
+    {
+        return counts.isEmpty() ? EnumSet.noneOf(Severity.class) : EnumSet.copyOf(counts.keySet());
+    }
+}
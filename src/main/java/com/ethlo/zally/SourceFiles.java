@@ -0,0 +1,131 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads specification sources the same way the parser finds them: from the filesystem, falling back to the classpath.
+ */
+public class SourceFiles
+{
+    private static final Pattern REF = Pattern.compile("[\"']?\\$ref[\"']?\\s*:\\s*[\"']?([^\"'#\\s,}]*)");
+
+    private SourceFiles()
+    {
+    }
+
+    public static Optional<byte[]> read(final String url) throws IOException
+    {
+        final Path path = Paths.get(url);
+        if (Files.exists(path))
+        {
+            return Optional.of(Files.readAllBytes(path));
+        }
+
+        final String resource = url.startsWith("/") ? url.substring(1) : url;
+        try (final InputStream in = SourceFiles.class.getClassLoader().getResourceAsStream(resource))
+        {
+            return in != null ? Optional.of(in.readAllBytes()) : Optional.empty();
+        }
+    }
+
+    public static Optional<InputStream> open(final String url) throws IOException
+    {
+        final Path path = Paths.get(url);
+        if (Files.exists(path))
+        {
+            return Optional.of(Files.newInputStream(path));
+        }
+
+        final String resource = url.startsWith("/") ? url.substring(1) : url;
+        return Optional.ofNullable(SourceFiles.class.getClassLoader().getResourceAsStream(resource));
+    }
+
+    /**
+     * Finds the source and every local file it references through <code>$ref</code>, transitively, without parsing
+     * the documents. Remote references are not followed.
+     *
+     * @param url The source file
+     * @return The source followed by the referenced files, in the order they are found
+     */
+    public static Set<String> getReferencedFiles(final String url) throws IOException
+    {
+        final Set<String> found = new LinkedHashSet<>();
+        final Deque<String> pending = new ArrayDeque<>();
+        pending.add(url);
+        while (!pending.isEmpty())
+        {
+            final String current = pending.poll();
+            if (!found.add(current))
+            {
+                continue;
+            }
+
+            final Optional<byte[]> content = read(current);
+            if (content.isEmpty())
+            {
+                continue;
+            }
+
+            final Matcher matcher = REF.matcher(new String(content.get(), StandardCharsets.UTF_8));
+            while (matcher.find())
+            {
+                final String ref = matcher.group(1);
+                if (!ref.isEmpty() && !ref.contains("://"))
+                {
+                    final Path parent = Paths.get(current).getParent();
+                    pending.add((parent != null ? parent.resolve(ref) : Paths.get(ref)).normalize().toString());
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param url The source file
+     * @return A digest of the names and contents of the source and every local file it references
+     */
+    public static String getContentKey(final String url) throws IOException
+    {
+        final List<String> parts = new ArrayList<>();
+        for (String file : getReferencedFiles(url))
+        {
+            parts.add(file);
+            parts.add(read(file).map(ValidationCache::digest).orElse("missing"));
+        }
+        return ValidationCache.digest(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+    }
+}
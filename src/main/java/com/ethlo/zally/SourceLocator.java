@@ -0,0 +1,136 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.plugin.logging.Log;
+import org.zalando.zally.core.JsonPointerLocator;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import kotlin.ranges.IntRange;
+
+/**
+ * Maps JSON pointers to line ranges in a specification source. The source is read and tokenized once, on the first
+ * lookup, and every resolved pointer is memoized, so a validation run costs one parse of the file regardless of the
+ * number of violations. Pointers into external <code>$ref</code>'d documents resolve to the referencing node.
+ */
+public class SourceLocator
+{
+    private final String url;
+    private final Log logger;
+    private final Map<JsonPointer, IntRange> lines = new ConcurrentHashMap<>();
+    private volatile JsonPointerLocator locator;
+
+    // Work counters, so tests can tell the cost of a run without timing it
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicLong parsedLength = new AtomicLong();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    public SourceLocator(final String url, final Log logger)
+    {
+        this.url = url;
+        this.logger = logger;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public IntRange locate(final JsonPointer pointer)
+    {
+        return lines.computeIfAbsent(pointer, p ->
+        {
+            lookups.incrementAndGet();
+            return getLocator().locate(p);
+        });
+    }
+
+    /**
+     * @return The number of times the source was read
+     */
+    int getReads()
+    {
+        return reads.get();
+    }
+
+    /**
+     * @return The number of characters tokenized
+     */
+    long getParsedLength()
+    {
+        return parsedLength.get();
+    }
+
+    /**
+     * @return The number of pointers resolved against the tokenized source rather than the memo
+     */
+    int getLookups()
+    {
+        return lookups.get();
+    }
+
+    private JsonPointerLocator getLocator()
+    {
+        JsonPointerLocator result = locator;
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = locator;
+                if (result == null)
+                {
+                    final String source = readSource().orElse("");
+                    parsedLength.addAndGet(source.length());
+                    result = new JsonPointerLocator(source);
+                    locator = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Optional<String> readSource()
+    {
+        reads.incrementAndGet();
+        try
+        {
+            final Optional<byte[]> content = SourceFiles.read(url);
+            if (content.isEmpty())
+            {
+                logger.warn("Could not find source file " + url + " for locating violations");
+            }
+            return content.map(bytes -> new String(bytes, StandardCharsets.UTF_8));
+        }
+        catch (IOException e)
+        {
+            logger.warn("Could not read source file " + url + " for locating violations", e);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Implemented by rules whose checks only need the local context of a node, like naming and casing rules. When streaming
+ * validation is enabled, the rule is applied to the parser events of the source document and its <code>@Check</code>
+ * methods are not invoked, so the object model is only built if other rules need it. Violations are reported for the
+ * first <code>@Check</code> method of the rule.
+ */
+public interface StreamingCheck
+{
+    /**
+     * Called for every field name. The name is the last segment of the context
+     */
+    default void onField(StreamingContext context)
+    {
+    }
+
+    /**
+     * Called for every scalar value, located at the current segments of the context
+     */
+    default void onValue(StreamingContext context, String value)
+    {
+    }
+}
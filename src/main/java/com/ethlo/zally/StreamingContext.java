@@ -0,0 +1,51 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.fasterxml.jackson.core.JsonPointer;
+
+/**
+ * The location of the current event of a streaming validation
+ */
+public interface StreamingContext
+{
+    /**
+     * @return The number of segments of the current location
+     */
+    int getDepth();
+
+    /**
+     * @param index The index of the segment, from the document root
+     * @return The field name or array index of the segment
+     */
+    String getSegment(int index);
+
+    /**
+     * @param depth The number of leading segments to include
+     * @return The pointer to the current location, or to one of its ancestors
+     */
+    JsonPointer getPointer(int depth);
+
+    /**
+     * Reports a violation for the node at the given depth of the current location
+     */
+    void violation(String description, int depth);
+}
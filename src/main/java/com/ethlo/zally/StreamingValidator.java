@@ -0,0 +1,296 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import kotlin.ranges.IntRange;
+
+/**
+ * Applies {@link StreamingCheck}s to the parser events of a source document, without building an object model. Memory
+ * use is bounded by the nesting depth of the document. Violations get the exact line range of the reported node, and
+ * <code>x-zally-ignore</code> markers on the node or its ancestors are honored. References are not followed, so only
+ * the source document itself is checked.
+ */
+public class StreamingValidator implements StreamingContext
+{
+    private static final YAMLFactory yamlFactory = new YAMLFactory();
+    private static final String IGNORE = "x-zally-ignore";
+
+    private final Map<StreamingCheck, CheckDetails> checks;
+    private final Map<CheckDetails, List<Result>> results = new LinkedHashMap<>();
+    private final List<Frame> frames = new ArrayList<>();
+    private String[] segments = new String[32];
+    private int depth;
+    private int line;
+    private CheckDetails current;
+
+    private StreamingValidator(final Map<StreamingCheck, CheckDetails> checks)
+    {
+        this.checks = checks;
+        checks.values().forEach(details -> results.put(details, new ArrayList<>()));
+    }
+
+    /**
+     * @param url    The source document
+     * @param checks The checks to apply, with the check their violations are reported for
+     * @return The violations of each check, ordered by line
+     */
+    public static Map<CheckDetails, List<Result>> validate(final String url, final Map<StreamingCheck, CheckDetails> checks) throws IOException
+    {
+        final StreamingValidator validator = new StreamingValidator(checks);
+        try (InputStream in = SourceFiles.open(url).orElseThrow(() -> new FileNotFoundException(url));
+             JsonParser parser = yamlFactory.createParser(in))
+        {
+            validator.run(parser);
+        }
+        validator.results.values().forEach(list -> list.sort(Comparator.comparingInt(result -> result.getLines().getFirst())));
+        return validator.results;
+    }
+
+    private void run(final JsonParser parser) throws IOException
+    {
+        int fieldLine = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null)
+        {
+            line = parser.getTokenLocation().getLineNr();
+            if (token == JsonToken.FIELD_NAME)
+            {
+                setSegment(frames.size() - 1, parser.getCurrentName());
+                fieldLine = line;
+                depth = frames.size();
+                for (Map.Entry<StreamingCheck, CheckDetails> check : checks.entrySet())
+                {
+                    current = check.getValue();
+                    check.getKey().onField(this);
+                }
+            }
+            else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY)
+            {
+                close(parser.getCurrentLocation().getLineNr());
+            }
+            else
+            {
+                // A field value or an array element
+                int startLine = line;
+                if (!frames.isEmpty())
+                {
+                    final Frame parent = frames.get(frames.size() - 1);
+                    if (parent.array)
+                    {
+                        setSegment(frames.size() - 1, Integer.toString(++parent.index));
+                    }
+                    else
+                    {
+                        startLine = fieldLine;
+                    }
+                }
+
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY)
+                {
+                    frames.add(new Frame(token == JsonToken.START_ARRAY, startLine));
+                }
+                else
+                {
+                    onValue(parser.getText());
+                }
+            }
+        }
+    }
+
+    private void onValue(final String value)
+    {
+        depth = frames.size();
+        if (value != null)
+        {
+            collectIgnore(value);
+        }
+
+        for (Map.Entry<StreamingCheck, CheckDetails> check : checks.entrySet())
+        {
+            current = check.getValue();
+            check.getKey().onValue(this, value);
+        }
+    }
+
+    private void collectIgnore(final String value)
+    {
+        final int size = frames.size();
+        if (size >= 1 && !frames.get(size - 1).array && IGNORE.equals(segments[size - 1]))
+        {
+            frames.get(size - 1).ignores.add(value);
+        }
+        else if (size >= 2 && frames.get(size - 1).array && IGNORE.equals(segments[size - 2]))
+        {
+            frames.get(size - 2).ignores.add(value);
+        }
+    }
+
+    private void close(final int endLine)
+    {
+        final Frame frame = frames.remove(frames.size() - 1);
+        final Frame parent = frames.isEmpty() ? null : frames.get(frames.size() - 1);
+        for (Pending pending : frame.pending)
+        {
+            if (pending.endLine < 0)
+            {
+                pending.endLine = endLine;
+            }
+
+            final String ruleId = pending.details.getRule().id();
+            if (frame.ignores.contains(ruleId) || frame.ignores.contains("*"))
+            {
+                continue;
+            }
+
+            if (parent != null)
+            {
+                parent.pending.add(pending);
+            }
+            else
+            {
+                results.get(pending.details).add(pending.toResult());
+            }
+        }
+    }
+
+    private void setSegment(final int index, final String segment)
+    {
+        if (index >= segments.length)
+        {
+            segments = Arrays.copyOf(segments, segments.length * 2);
+        }
+        segments[index] = segment;
+    }
+
+    @Override
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    @Override
+    public String getSegment(final int index)
+    {
+        if (index < 0 || index >= depth)
+        {
+            throw new IndexOutOfBoundsException("Segment " + index + " of " + depth);
+        }
+        return segments[index];
+    }
+
+    @Override
+    public JsonPointer getPointer(final int depth)
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++)
+        {
+            sb.append('/').append(segments[i].replace("~", "~0").replace("/", "~1"));
+        }
+        return JsonPointer.compile(sb.toString());
+    }
+
+    @Override
+    public void violation(final String description, final int depth)
+    {
+        if (depth < 0 || depth > this.depth)
+        {
+            throw new IllegalArgumentException("Depth " + depth + " is outside of the current location");
+        }
+
+        final Pending pending = new Pending(current, description, getPointer(depth));
+        if (depth == frames.size())
+        {
+            // The current scalar value, or the current field
+            pending.startLine = line;
+            pending.endLine = line;
+            frames.get(frames.size() - 1).pending.add(pending);
+        }
+        else
+        {
+            final Frame frame = frames.get(depth);
+            pending.startLine = frame.startLine;
+            frame.pending.add(pending);
+        }
+    }
+
+    private static class Frame
+    {
+        private final boolean array;
+        private final int startLine;
+        private final Set<String> ignores = new HashSet<>();
+        private final List<Pending> pending = new ArrayList<>();
+        private int index = -1;
+
+        private Frame(final boolean array, final int startLine)
+        {
+            this.array = array;
+            this.startLine = startLine;
+        }
+    }
+
+    private static class Pending
+    {
+        private final CheckDetails details;
+        private final String description;
+        private final JsonPointer pointer;
+        private int startLine;
+        private int endLine = -1;
+
+        private Pending(final CheckDetails details, final String description, final JsonPointer pointer)
+        {
+            this.details = details;
+            this.description = description;
+            this.pointer = pointer;
+        }
+
+        private Result toResult()
+        {
+            return new Result(
+                    details.getRule().id(),
+                    details.getRuleSet().url(details.getRule()),
+                    details.getRule().title(),
+                    description,
+                    details.getCheck().severity(),
+                    pointer,
+                    new IntRange(startLine, endLine)
+            );
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.Log;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+import org.zalando.zally.rule.api.Severity;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import kotlin.ranges.IntRange;
+
+/**
+ * Stores validation results per source, so unchanged sources are not parsed and validated again. An entry is only
+ * reused if its key matches, which covers the source, every file it references, the rule configuration, the skipped
+ * rules and the plugin classpath (and with it the rule set versions). Entries are written and read one result at a
+ * time, so the memory used does not grow with the number of violations.
+ */
+public class ValidationCache
+{
+    // Part of every key, so entries written in an older layout are not read
+    private static final String FORMAT = "results-2";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Path directory;
+    private final String configurationKey;
+    private final Log logger;
+
+    public ValidationCache(final Path directory, final String configurationKey, final Log logger)
+    {
+        this.directory = directory;
+        this.configurationKey = configurationKey;
+        this.logger = logger;
+    }
+
+    public String getKey(final String url) throws IOException
+    {
+        return digest((FORMAT + "\n" + configurationKey + "\n" + SourceFiles.getContentKey(url)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Passes the stored results for the source on to the sink, if there is an entry with the key. The entry is read
+     * twice, once to check that every check in it is known and once to pass the results on, so nothing is passed on
+     * from an entry that cannot be used, without holding its results in memory.
+     *
+     * @return Whether the results were passed on
+     */
+    public boolean replay(final String url, final String key, final ZallyRunner zallyRunner, final ResultSink sink)
+    {
+        final Path entryFile = getEntryFile(url);
+        if (!Files.exists(entryFile))
+        {
+            return false;
+        }
+
+        try
+        {
+            return read(entryFile, url, key, zallyRunner, null) && read(entryFile, url, key, zallyRunner, sink);
+        }
+        catch (IOException | RuntimeException exc)
+        {
+            logger.warn("Ignoring unreadable validation cache entry " + entryFile + ": " + exc.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Starts a new entry for the source. Results are written to a temporary file as they are passed on, and only
+     * replace the previous entry on {@link Entry#commit()}. Closing an entry that was not committed discards it.
+     */
+    public Entry create(final String url, final String key)
+    {
+        return new Entry(url, key);
+    }
+
+    private boolean read(final Path entryFile, final String url, final String key, final ZallyRunner zallyRunner, final ResultSink sink) throws IOException
+    {
+        try (JsonParser parser = mapper.getFactory().createParser(entryFile.toFile()))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+            {
+                return false;
+            }
+
+            // The key is written before the results
+            boolean matched = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("key".equals(field))
+                {
+                    matched = key.equals(parser.getText());
+                    if (!matched)
+                    {
+                        return false;
+                    }
+                }
+                else if ("results".equals(field) && matched && parser.currentToken() == JsonToken.START_ARRAY)
+                {
+                    while (parser.nextToken() == JsonToken.START_OBJECT)
+                    {
+                        final JsonNode node = mapper.readTree(parser);
+                        final Optional<CheckDetails> checkDetails = zallyRunner.getCheckDetails(node.path("rule").asText(), node.path("method").asText());
+                        if (checkDetails.isEmpty())
+                        {
+                            return false;
+                        }
+                        if (sink != null)
+                        {
+                            sink.accept(url, checkDetails.get(), readResult(node.path("result")));
+                        }
+                    }
+                    return true;
+                }
+                else
+                {
+                    parser.skipChildren();
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A cache entry being written, see {@link #create(String, String)}
+     */
+    public class Entry implements ResultSink, Closeable
+    {
+        private final Path entryFile;
+        private Path temporaryFile;
+        private JsonGenerator generator;
+        private boolean committed;
+
+        private Entry(final String url, final String key)
+        {
+            this.entryFile = getEntryFile(url);
+            try
+            {
+                Files.createDirectories(directory);
+                temporaryFile = Files.createTempFile(directory, "validation", ".tmp");
+                generator = mapper.getFactory().createGenerator(temporaryFile.toFile(), JsonEncoding.UTF8);
+                generator.writeStartObject();
+                generator.writeStringField("source", url);
+                generator.writeStringField("key", key);
+                generator.writeArrayFieldStart("results");
+            }
+            catch (IOException exc)
+            {
+                failed(exc);
+            }
+        }
+
+        @Override
+        public void accept(final String source, final CheckDetails checkDetails, final Result result)
+        {
+            if (generator == null)
+            {
+                return;
+            }
+
+            final ObjectNode node = mapper.createObjectNode();
+            node.put("rule", checkDetails.getInstance().getClass().getName());
+            node.put("method", checkDetails.getMethod().getName());
+            writeResult(result, node.putObject("result"));
+            try
+            {
+                generator.writeTree(node);
+            }
+            catch (IOException exc)
+            {
+                failed(exc);
+            }
+        }
+
+        /**
+         * Makes the results written so far the entry for the source
+         */
+        public void commit()
+        {
+            if (generator == null)
+            {
+                return;
+            }
+
+            try
+            {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.close();
+                generator = null;
+                Files.move(temporaryFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                committed = true;
+            }
+            catch (IOException exc)
+            {
+                failed(exc);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if (committed)
+            {
+                return;
+            }
+            discard();
+        }
+
+        private void failed(final IOException exc)
+        {
+            logger.warn("Unable to write validation cache entry " + entryFile + ": " + exc.getMessage());
+            discard();
+        }
+
+        private void discard()
+        {
+            try
+            {
+                if (generator != null)
+                {
+                    generator.close();
+                    generator = null;
+                }
+                if (temporaryFile != null)
+                {
+                    Files.deleteIfExists(temporaryFile);
+                }
+            }
+            catch (IOException exc)
+            {
+                logger.debug("Unable to delete " + temporaryFile + ": " + exc.getMessage());
+            }
+        }
+    }
+
+    private Path getEntryFile(final String url)
+    {
+        return directory.resolve(digest(url.getBytes(StandardCharsets.UTF_8)) + ".json");
+    }
+
+    static void writeResult(final Result result, final ObjectNode node)
+    {
+        node.put("id", result.getId());
+        node.put("url", result.getUrl().toString());
+        node.put("title", result.getTitle());
+        node.put("description", result.getDescription());
+        node.put("severity", result.getViolationType().name());
+        node.put("pointer", result.getPointer().toString());
+        final IntRange lines = result.getLines();
+        if (lines != null)
+        {
+            node.putArray("lines").add(lines.getFirst()).add(lines.getLast());
+        }
+    }
+
+    static Result readResult(final JsonNode node)
+    {
+        final JsonNode lines = node.path("lines");
+        return new Result(
+                node.path("id").asText(),
+                URI.create(node.path("url").asText()),
+                node.path("title").asText(),
+                node.path("description").asText(),
+                Severity.valueOf(node.path("severity").asText()),
+                JsonPointer.compile(node.path("pointer").asText()),
+                lines.isArray() ? new IntRange(lines.get(0).asInt(), lines.get(1).asInt()) : null
+        );
+    }
+
+    public static String digest(final byte[] data)
+    {
+        try
+        {
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(data))
+            {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException exc)
+        {
+            throw new IllegalStateException(exc);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.rule.api.Severity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Sends validations to a running {@link ValidationServer}. The violations are passed on to the sink with the checks
+ * of the local runner, so they are reported the same way as those of a local validation.
+ */
+public class ValidationClient
+{
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Longest wait for the next line of a response, which covers waiting for another client's validation
+     */
+    private static final int READ_TIMEOUT_MILLIS = 120_000;
+
+    private final int port;
+    private final String token;
+    private final String configurationKey;
+    private Collection<Severity> failFast = Collections.emptySet();
+
+    public ValidationClient(final int port, final String token, final String configurationKey)
+    {
+        this.port = port;
+        this.token = token;
+        this.configurationKey = configurationKey;
+    }
+
+    /**
+     * Severities the server stops validating a source at, see {@link ZallyRunner#setFailFast(Collection)}
+     */
+    public void setFailFast(final Collection<Severity> failFast)
+    {
+        this.failFast = failFast != null ? failFast : Collections.emptySet();
+    }
+
+    /**
+     * @return A client for the server described by the file, if it was started with the same configuration
+     */
+    public static Optional<ValidationClient> connect(final Path daemonFile, final String configurationKey, final Log logger)
+    {
+        if (daemonFile == null || !Files.exists(daemonFile))
+        {
+            return Optional.empty();
+        }
+
+        try
+        {
+            final JsonNode node = mapper.readTree(daemonFile.toFile());
+            if (!configurationKey.equals(node.path("key").asText()))
+            {
+                logger.info("Validation server was started with another configuration, validating locally");
+                return Optional.empty();
+            }
+            return Optional.of(new ValidationClient(node.path("port").asInt(), node.path("token").asText(), configurationKey));
+        }
+        catch (IOException e)
+        {
+            logger.warn("Ignoring unreadable validation server file " + daemonFile + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Passes each violation on to the sink as soon as it is received.
+     *
+     * @return <code>false</code> if the validation stopped early because of a fail-fast violation
+     * @throws IOException          If the server could not be reached, did not answer in time or failed, before any
+     *                              violation was passed on, so the source can still be validated locally
+     * @throws UncheckedIOException If the server failed after violations were passed on, as validating locally would
+     *                              report them twice
+     */
+    public boolean validate(final String url, final Set<String> skipped, final ZallyRunner zallyRunner, final ResultSink sink) throws IOException
+    {
+        if (!ValidationServer.isLocalFile(url))
+        {
+            throw new IOException("Only local files are validated by the server: " + url);
+        }
+
+        final ObjectNode request = mapper.createObjectNode();
+        request.put("token", token);
+        request.put("key", configurationKey);
+        request.put("source", Paths.get(url).toAbsolutePath().toString());
+        skipped.forEach(request.putArray("skipRules")::add);
+        failFast.forEach(severity -> request.withArray("failFast").add(severity.name()));
+
+        boolean reported = false;
+        try (Socket socket = connect(port))
+        {
+            final OutputStream out = socket.getOutputStream();
+            out.write((mapper.writeValueAsString(request) + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                final JsonNode node = mapper.readTree(line);
+                if (node.has("error"))
+                {
+                    throw new IOException(node.path("error").asText());
+                }
+                if (node.has("complete"))
+                {
+                    return node.path("complete").asBoolean();
+                }
+
+                final CheckDetails checkDetails = zallyRunner.getCheckDetails(node.path("rule").asText(), node.path("method").asText())
+                        .orElseThrow(() -> new IOException("Unknown check " + node.path("rule").asText() + "." + node.path("method").asText()));
+                sink.accept(url, checkDetails, ValidationCache.readResult(node.path("result")));
+                reported = true;
+            }
+            throw new IOException("Validation server closed the connection");
+        }
+        catch (IOException e)
+        {
+            if (reported)
+            {
+                throw new UncheckedIOException("Validation server failed after reporting violations: " + e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Asks the server described by the file to stop
+     */
+    public static void stop(final Path daemonFile) throws IOException
+    {
+        final JsonNode node = mapper.readTree(daemonFile.toFile());
+        final ObjectNode request = mapper.createObjectNode();
+        request.put("token", node.path("token").asText());
+        request.put("stop", true);
+        try (Socket socket = connect(node.path("port").asInt()))
+        {
+            socket.getOutputStream().write((mapper.writeValueAsString(request) + "\n").getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+            final String line = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+            if (line != null && mapper.readTree(line).has("error"))
+            {
+                throw new IOException(mapper.readTree(line).path("error").asText());
+            }
+        }
+    }
+
+    private static Socket connect(final int port) throws IOException
+    {
+        final Socket socket = new Socket();
+        try
+        {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            // A stalled server fails the read with a SocketTimeoutException, so the build validates locally
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            return socket;
+        }
+        catch (IOException e)
+        {
+            socket.close();
+            throw e;
+        }
+    }
+}
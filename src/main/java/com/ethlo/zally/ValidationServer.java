@@ -0,0 +1,353 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.maven.plugin.logging.Log;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+import org.zalando.zally.rule.api.Severity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Keeps a {@link ZallyRunner} warm between validations. The rules stay instantiated, parsed models and referenced
+ * documents stay cached, and the JIT keeps its work, so validating an edited file takes milliseconds instead of a new
+ * Maven run. Requests are read from a socket on the loopback interface, one JSON object per line:
+ * <pre>
+ * {"token": "...", "key": "...", "source": "/path/api.yaml", "skipRules": ["..."], "failFast": ["MUST"]}
+ * {"token": "...", "stop": true}
+ * </pre>
+ * Each violation is answered with a line holding the rule class, the check method and the result, followed by a line
+ * with <code>complete</code> or <code>error</code>. Every request must carry the random token generated when the
+ * server starts, which is only readable from the daemon file by the user running the server, and only existing local
+ * files are validated, so other local processes can neither stop the server nor make it read arbitrary locations.
+ * Requests with a configuration key other than the server's are refused, so a client never gets results for other
+ * rule settings. Requests are handled one at a time on the accepting thread, as rules are not required to be
+ * thread-safe. A client that does not send its request within {@link #REQUEST_TIMEOUT_MILLIS}, or sends a line longer
+ * than {@link #MAX_REQUEST_BYTES}, is disconnected.
+ */
+public class ValidationServer implements Closeable
+{
+    public static final int REQUEST_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Longest request line accepted, far above what a list of skipped rules needs
+     */
+    public static final int MAX_REQUEST_BYTES = 64 * 1024;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final ZallyRunner zallyRunner;
+    private final String configurationKey;
+    private final String token = createToken();
+    private final Log logger;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private ServerSocket serverSocket;
+
+    public ValidationServer(final ZallyRunner zallyRunner, final String configurationKey, final Log logger)
+    {
+        this.zallyRunner = zallyRunner;
+        this.configurationKey = configurationKey;
+        this.logger = logger;
+    }
+
+    /**
+     * @param port The port to listen on, or 0 for any free port
+     */
+    public void start(final int port) throws IOException
+    {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        final Thread thread = new Thread(this::serve, "zally-validation-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Writes the port, token and configuration key for clients to find the server. The file is only readable by its
+     * owner, as the token is what lets a client use the server.
+     */
+    public void writeDaemonFile(final Path file) throws IOException
+    {
+        final ObjectNode node = mapper.createObjectNode();
+        node.put("port", getPort());
+        node.put("token", token);
+        node.put("key", configurationKey);
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        // Restricted before the token is written, then moved into place
+        final Path temporary;
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+        {
+            temporary = Files.createTempFile(directory, "zally-daemon", ".tmp", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        else
+        {
+            temporary = Files.createTempFile(directory, "zally-daemon", ".tmp");
+            final File restricted = temporary.toFile();
+            restricted.setReadable(false, false);
+            restricted.setWritable(false, false);
+            restricted.setReadable(true, true);
+            restricted.setWritable(true, true);
+        }
+        Files.writeString(temporary, mapper.writeValueAsString(node), StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return Whether the source is an existing local file, the only kind of source the server validates
+     */
+    public static boolean isLocalFile(final String url)
+    {
+        try
+        {
+            return url != null && !url.isEmpty() && Files.isRegularFile(Paths.get(url));
+        }
+        catch (InvalidPathException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Blocks until the server is closed or asked to stop
+     */
+    public void awaitStop() throws InterruptedException
+    {
+        stopped.await();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        stopped.countDown();
+        if (serverSocket != null)
+        {
+            serverSocket.close();
+        }
+    }
+
+    private void serve()
+    {
+        while (!serverSocket.isClosed())
+        {
+            try (Socket socket = serverSocket.accept())
+            {
+                socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+                handle(socket);
+            }
+            catch (SocketTimeoutException e)
+            {
+                logger.warn("Validation request not received within " + REQUEST_TIMEOUT_MILLIS + " ms, closed the connection");
+            }
+            catch (SocketException e)
+            {
+                // Closed while waiting for a connection
+            }
+            catch (IOException | RuntimeException e)
+            {
+                logger.warn("Validation request failed: " + e.getMessage(), e);
+            }
+        }
+        stopped.countDown();
+    }
+
+    private void handle(final Socket socket) throws IOException
+    {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        final ObjectNode response = mapper.createObjectNode();
+        final byte[] line = readLine(new BufferedInputStream(socket.getInputStream()));
+        boolean stop = false;
+        if (line == null)
+        {
+            return;
+        }
+        else if (line.length > MAX_REQUEST_BYTES)
+        {
+            response.put("error", "Request exceeds " + MAX_REQUEST_BYTES + " bytes");
+        }
+        else
+        {
+            stop = handle(line, writer, response);
+        }
+        writeLine(writer, response);
+        writer.flush();
+        if (stop)
+        {
+            close();
+        }
+    }
+
+    /**
+     * @return Whether the server was asked to stop
+     */
+    private boolean handle(final byte[] line, final Writer writer, final ObjectNode response)
+    {
+        final JsonNode request;
+        try
+        {
+            request = mapper.readTree(line);
+        }
+        catch (IOException e)
+        {
+            response.put("error", "Invalid request: " + e.getMessage());
+            return false;
+        }
+
+        if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), request.path("token").asText().getBytes(StandardCharsets.UTF_8)))
+        {
+            response.put("error", "Invalid token");
+            return false;
+        }
+        if (request.path("stop").asBoolean())
+        {
+            response.put("complete", true);
+            return true;
+        }
+        if (!configurationKey.equals(request.path("key").asText()))
+        {
+            response.put("error", "Configuration does not match the server");
+            return false;
+        }
+        if (!isLocalFile(request.path("source").asText()))
+        {
+            response.put("error", "Source is not an existing local file");
+            return false;
+        }
+
+        final Set<Severity> failFast = EnumSet.noneOf(Severity.class);
+        for (JsonNode severity : request.path("failFast"))
+        {
+            try
+            {
+                failFast.add(Severity.valueOf(severity.asText()));
+            }
+            catch (IllegalArgumentException e)
+            {
+                response.put("error", "Unknown severity " + severity.asText());
+                return false;
+            }
+        }
+
+        final String url = request.path("source").asText();
+        final Set<String> skipped = new HashSet<>();
+        request.path("skipRules").forEach(rule -> skipped.add(rule.asText()));
+        final long started = System.nanoTime();
+        try
+        {
+            zallyRunner.setFailFast(failFast);
+            final boolean complete = zallyRunner.validate(url, skipped, (source, checkDetails, result) -> writeResult(writer, checkDetails, result));
+            response.put("complete", complete);
+            logger.info("Validated " + url + " in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+        catch (IOException | RuntimeException e)
+        {
+            response.put("error", String.valueOf(e.getMessage()));
+        }
+        return false;
+    }
+
+    /**
+     * @return The bytes up to the next line break, <code>null</code> at the end of the stream, or {@link #MAX_REQUEST_BYTES}
+     * + 1 bytes if the line is longer than that, so an authenticated client cannot make the server buffer without limit
+     */
+    private static byte[] readLine(final InputStream in) throws IOException
+    {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n')
+        {
+            line.write(b);
+            if (line.size() > MAX_REQUEST_BYTES)
+            {
+                break;
+            }
+        }
+        return b == -1 && line.size() == 0 ? null : line.toByteArray();
+    }
+
+    private static String createToken()
+    {
+        final byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void writeResult(final Writer writer, final CheckDetails checkDetails, final Result result)
+    {
+        final ObjectNode node = mapper.createObjectNode();
+        node.put("rule", checkDetails.getInstance().getClass().getName());
+        node.put("method", checkDetails.getMethod().getName());
+        ValidationCache.writeResult(result, node.putObject("result"));
+        try
+        {
+            writeLine(writer, node);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLine(final Writer writer, final JsonNode node) throws IOException
+    {
+        writer.write(mapper.writeValueAsString(node));
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,55 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Creates fork-join workers with the context class loader of the thread that created the pool. The default factory
+ * gives workers the system class loader, so checks and parsers looking up resources or services through the context
+ * class loader would not see the plugin's class realm when run on a worker.
+ */
+public class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory
+{
+    private final ClassLoader contextClassLoader;
+
+    public WorkerThreadFactory(final ClassLoader contextClassLoader)
+    {
+        this.contextClassLoader = contextClassLoader;
+    }
+
+    /**
+     * @return A pool whose workers use the context class loader of the calling thread
+     */
+    public static ForkJoinPool newPool(final int parallelism)
+    {
+        return new ForkJoinPool(parallelism, new WorkerThreadFactory(Thread.currentThread().getContextClassLoader()), null, false);
+    }
+
+    @Override
+    public ForkJoinWorkerThread newThread(final ForkJoinPool pool)
+    {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setContextClassLoader(contextClassLoader);
+        return thread;
+    }
+}
@@ -18,32 +18,40 @@ package com.ethlo.zally;/*-
  * #L%
  */
 
+import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.model.FileSet;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.DirectoryScanner;
 import org.zalando.zally.core.CheckDetails;
 import org.zalando.zally.core.Result;
 import org.zalando.zally.core.RuleDetails;
@@ -64,18 +72,27 @@ public class ZallyMojo extends AbstractMojo
     @Parameter(required = true, defaultValue = "${project.basedir}/src/main/resources/api.yaml", property = "zally.source")
     private String source;
 
+    @Parameter
+    private FileSet sources;
+
     @Parameter(property = "zally.failOn")
     private List<Severity> failOn;
 
     @Parameter(property = "zally.resultFile")
     private String resultFile;
 
+    @Parameter(property = "zally.resultFormat", defaultValue = "TEXT")
+    private ResultFormat resultFormat;
+
     @Parameter(property = "zally.skip", defaultValue = "false")
     private boolean skip;
 
     @Parameter(defaultValue = "${project}", required = true, readonly = true)
     private MavenProject project;
 
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
     @Parameter(property = "zally.ruleConfigs")
     private Map<String, String> ruleConfigs;
 
@@ -85,6 +102,48 @@ public class ZallyMojo extends AbstractMojo
     @Parameter(property = "zally.skipRules")
     private Set<String> skipRules;
 
+    @Parameter(property = "zally.threads", defaultValue = "1")
+    private int threads;
+
+    @Parameter(property = "zally.serialRules")
+    private Set<String> serialRules;
+
+    @Parameter(property = "zally.cacheDirectory", defaultValue = "${project.build.directory}/zally-cache")
+    private File cacheDirectory;
+
+    @Parameter(property = "zally.profileFile")
+    private File profileFile;
+
+    @Parameter(property = "zally.profileJfr", defaultValue = "false")
+    private boolean profileJfr;
+
+    @Parameter(property = "zally.resolution", defaultValue = "FULL")
+    private Resolution resolution;
+
+    /**
+     * Apply the rules implementing {@link StreamingCheck} while streaming the source. Only
+     * WhiteListedPluralizeNamesForArraysRule does; the model is still built unless the Zalando rules are skipped
+     */
+    @Parameter(property = "zally.streaming", defaultValue = "false")
+    private boolean streaming;
+
+    @Parameter(property = "zally.canonicalization", defaultValue = "NONE")
+    private Canonicalization canonicalization;
+
+    @Parameter(property = "zally.failFast", defaultValue = "false")
+    private boolean failFast;
+
+    @Parameter(property = "zally.ruleIndexDirectory", defaultValue = "${settings.localRepository}/.cache/zally-maven-plugin")
+    private File ruleIndexDirectory;
+
+    @Parameter(property = "zally.daemon", defaultValue = "false")
+    private boolean daemon;
+
+    @Parameter(property = "zally.daemonFile", defaultValue = "${project.build.directory}/zally-daemon.json")
+    private File daemonFile;
+
+    private ValidationClient daemonClient;
+
     public ZallyMojo()
     {
         mapper = new ObjectMapper(new YAMLFactory());
@@ -100,29 +159,30 @@ public class ZallyMojo extends AbstractMojo
             return;
         }
 
-        Config config = parseConfigMap(ruleConfigs);
-        if (rulesConfigLocation != null)
+        final Profiler profiler = new Profiler(profileFile != null, profileJfr);
+        final ZallyRunner zallyRunner = createRunner(profiler);
+        final Path checkCostsFile = cacheDirectory != null ? cacheDirectory.toPath().resolve("check-costs.json") : null;
+        if (checkCostsFile != null)
         {
-            Path rulesConfigPath = Paths.get(rulesConfigLocation);
-            if (!Files.exists(rulesConfigPath))
+            zallyRunner.setCheckCosts(CheckCosts.load(checkCostsFile, getLog()));
+        }
+
+        final List<String> specs = getSources();
+        if (sources == null)
+        {
+            final boolean existsOnClassPath = getClass().getClassLoader().getResourceAsStream(source) != null;
+            final boolean existsOnFilesystem = Files.exists(Paths.get(source));
+            if (!existsOnClassPath && !existsOnFilesystem)
             {
-                throw new MojoFailureException("The specified rules config file could not be found: " + rulesConfigLocation);
+                throw new MojoFailureException("The specified source file could not be found: " + source);
             }
-            config = config.withFallback(ConfigFactory.parseFile(rulesConfigPath.toFile()).resolve());
+            printInfo("Validating file '" + source + "'");
         }
-        config = config.withFallback(ConfigFactory.load("reference"));
-
-        final ZallyRunner zallyRunner = new ZallyRunner(config, getLog());
-
-        final boolean existsOnClassPath = getClass().getClassLoader().getResourceAsStream(source) != null;
-        final boolean existsOnFilesystem = Files.exists(Paths.get(source));
-        if (!existsOnClassPath && !existsOnFilesystem)
+        else
         {
-            throw new MojoFailureException("The specified source file could not be found: " + source);
+            printInfo("Validating " + specs.size() + " files in '" + sources.getDirectory() + "'");
         }
 
-        printInfo("Validating file '" + source + "'");
-
         if (!failOn.isEmpty())
         {
             getLog().info("Will fail build on errors of severity: " + failOn
@@ -139,68 +199,169 @@ public class ZallyMojo extends AbstractMojo
         printErrorDescriptionsWithLink(zallyRunner.getRules());
 
         printSkippedRulesInfo(zallyRunner.getRules());
-        final Map<CheckDetails, List<Result>> results = validate(zallyRunner, skipRules, source);
-
-        // Map results to severity
-        final Map<Severity, Map<CheckDetails, List<Result>>> resultsBySeverity = new LinkedHashMap<>();
-        results.forEach((details, resultList) ->
+        final String configurationKey = cacheDirectory != null || daemon ? getConfigurationKey(zallyRunner) : null;
+        final ValidationCache cache = cacheDirectory != null ? new ValidationCache(cacheDirectory.toPath(), configurationKey, getLog()) : null;
+        daemonClient = daemon ? ValidationClient.connect(getDaemonFile(), configurationKey, getLog()).orElse(null) : null;
+        if (daemonClient != null)
         {
-            for (final Result result : resultList)
+            daemonClient.setFailFast(failFast ? failOn : null);
+            getLog().info("Delegating validation to the validation server");
+        }
+        final SeverityCounter counter = new SeverityCounter();
+        final ResultWriter writer = openResultWriter();
+        try
+        {
+            // Violations are counted, logged and written as they are found
+            final ResultSink loggingSink = new LoggingSink();
+            final ResultSink reportSink = new ResultSink()
             {
-                resultsBySeverity.compute(result.getViolationType(), (severity, resultsByDetail) ->
+                @Override
+                public void accept(final String source, final CheckDetails checkDetails, final Result result)
                 {
-                    if (resultsByDetail == null)
-                    {
-                        resultsByDetail = new LinkedHashMap<>();
-                    }
-                    resultsByDetail.compute(details, (cd, rs) ->
+                    try (Profiler.Measurement ignored = profiler.start(Profiler.REPORT, "results"))
                     {
-                        if (rs == null)
+                        loggingSink.accept(source, checkDetails, result);
+                        if (writer != null)
                         {
-                            rs = new LinkedList<>();
+                            writer.accept(source, checkDetails, result);
                         }
-                        rs.add(result);
-                        return rs;
-                    });
+                    }
+                }
 
-                    return resultsByDetail;
-                });
-            }
-        });
+                @Override
+                public void end(final String source)
+                {
+                    loggingSink.end(source);
+                }
+            };
+            validate(zallyRunner, cache, skipRules, specs, counter, reportSink);
+        }
+        finally
+        {
+            closeResultWriter(writer, profiler);
+        }
+
+        if (checkCostsFile != null)
+        {
+            zallyRunner.getCheckCosts().save(checkCostsFile, getLog());
+        }
 
-        printErrors(gatherViolations(resultsBySeverity));
+        if (specs.size() > 1)
+        {
+            printInfo("Validated " + specs.size() + " files with " + counter.getTotal() + " rule violations in total");
+        }
+        final Set<Severity> foundSeverities = counter.getSeverities();
 
-        writeResults(gatherViolations(resultsBySeverity));
+        writeProfile(profiler);
 
         // Check if we should halt the build due to validation errors
         for (Severity severity : failOn)
         {
-            final int size = Optional.ofNullable(resultsBySeverity.get(severity))
-                    .map(Map::size)
-                    .orElse(0);
-            if (size > 0)
+            if (foundSeverities.contains(severity))
             {
                 throw new MojoFailureException("Failing build due to errors with severity " + severity);
             }
         }
     }
 
-    private void printInfo(String message)
+    /**
+     * @return A runner for the rules and settings of this goal
+     */
+    protected ZallyRunner createRunner(final Profiler profiler) throws MojoFailureException
     {
-        getLog().info("");
-        getLog().info(message);
+        final Config config;
+        try (Profiler.Measurement ignored = profiler.start(Profiler.CONFIG, "rules"))
+        {
+            config = buildConfig();
+        }
+
+        final ZallyRunner zallyRunner = new ZallyRunner(config, getLog(), ruleIndexDirectory != null ? ruleIndexDirectory.toPath() : null, profiler);
+        zallyRunner.setThreads(threads);
+        zallyRunner.setSerialRules(serialRules);
+        zallyRunner.setModelCache(ModelCache.forSession(session));
+        zallyRunner.setResolution(resolution);
+        zallyRunner.setStreaming(streaming);
+        zallyRunner.setCanonicalization(canonicalization);
+        zallyRunner.setFailFast(failFast ? failOn : null);
+        return zallyRunner;
     }
 
-    private void printErrors(List<String> violations)
+    protected Path getDaemonFile()
     {
-        if (violations.isEmpty())
+        return daemonFile != null ? daemonFile.toPath() : Paths.get("target", "zally-daemon.json");
+    }
+
+    private Config buildConfig() throws MojoFailureException
+    {
+        Config config = parseConfigMap(ruleConfigs);
+        if (rulesConfigLocation != null)
         {
-            return;
+            Path rulesConfigPath = Paths.get(rulesConfigLocation);
+            if (!Files.exists(rulesConfigPath))
+            {
+                throw new MojoFailureException("The specified rules config file could not be found: " + rulesConfigLocation);
+            }
+            config = config.withFallback(ConfigFactory.parseFile(rulesConfigPath.toFile()).resolve());
         }
+        return config.withFallback(ConfigFactory.load("reference"));
+    }
 
-        printHeader("Rule violations (" + violations.size() + ")");
-        violations.forEach(v -> getLog().warn(v));
-        getLog().warn("");
+    private void writeProfile(Profiler profiler)
+    {
+        if (profileFile != null)
+        {
+            try
+            {
+                printInfo("Writing profile to " + profileFile);
+                profiler.write(profileFile.toPath());
+            }
+            catch (IOException e)
+            {
+                getLog().warn("Unable to write profile to " + profileFile, e);
+            }
+        }
+    }
+
+    private List<String> getSources()
+    {
+        if (sources == null)
+        {
+            return Collections.singletonList(source);
+        }
+
+        Path directory = Paths.get(sources.getDirectory());
+        if (!directory.isAbsolute() && project != null)
+        {
+            directory = project.getBasedir().toPath().resolve(directory);
+        }
+
+        final DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(directory.toFile());
+        if (!sources.getIncludes().isEmpty())
+        {
+            scanner.setIncludes(sources.getIncludes().toArray(new String[0]));
+        }
+        scanner.setExcludes(sources.getExcludes().toArray(new String[0]));
+        scanner.scan();
+
+        final List<String> files = new ArrayList<>();
+        for (String file : scanner.getIncludedFiles())
+        {
+            files.add(directory.resolve(file).toString());
+        }
+        Collections.sort(files);
+
+        if (files.isEmpty())
+        {
+            getLog().warn("No source files found in " + directory);
+        }
+        return files;
+    }
+
+    private void printInfo(String message)
+    {
+        getLog().info("");
+        getLog().info(message);
     }
 
     private void printHeader(String message)
@@ -286,39 +447,154 @@ public class ZallyMojo extends AbstractMojo
         }
     }
 
-    private void writeResults(List<String> violations)
+    private ResultWriter openResultWriter()
     {
-        if (resultFile != null && !resultFile.trim().equals(""))
+        if (resultFile == null || resultFile.trim().equals(""))
+        {
+            return null;
+        }
+
+        try
+        {
+            printInfo("Writing result file to " + resultFile);
+            getLog().info("");
+            final ResultWriter writer = ResultWriter.open(Paths.get(resultFile), resultFormat);
+            writer.setBaseDirectory(project != null ? project.getBasedir().toPath() : null);
+            writer.setSourcesShown(sources != null);
+            return writer;
+        }
+        catch (IOException e)
+        {
+            getLog().error("Could not write result file " + resultFile, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeResultWriter(ResultWriter writer, Profiler profiler)
+    {
+        if (writer == null)
+        {
+            return;
+        }
+
+        try (Profiler.Measurement ignored = profiler.start(Profiler.REPORT, "results"))
+        {
+            writer.close();
+        }
+        catch (IOException e)
+        {
+            getLog().error("Could not write result file " + resultFile, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected String getConfigurationKey(ZallyRunner zallyRunner) throws MojoFailureException
+    {
+        final List<String> parts = new ArrayList<>();
+        parts.add(zallyRunner.getClasspathKey());
+        parts.add(String.valueOf(ruleConfigs != null ? new TreeMap<>(ruleConfigs) : Collections.emptyMap()));
+        parts.add(String.valueOf(skipRules != null ? new TreeSet<>(skipRules) : Collections.emptySet()));
+        parts.add(String.valueOf(resolution));
+        parts.add(String.valueOf(streaming));
+        parts.add(String.valueOf(canonicalization));
+        if (rulesConfigLocation != null)
         {
             try
             {
-                printInfo("Writing result file to " + resultFile);
-                getLog().info("");
-                final Path target = Paths.get(resultFile);
-                Files.createDirectories(target.toAbsolutePath().getParent());
-                Files.writeString(target, "Rule violations (" + violations.size() + ")" + System.lineSeparator());
-                violations.forEach(v -> {
-                    try {
-                        Files.writeString(target, v + System.lineSeparator() , StandardOpenOption.APPEND);
-                    } catch (IOException e) {
-                        getLog().error("Could not write full output File", e);
-                        e.printStackTrace();
-                    }
-                });
+                parts.add(ValidationCache.digest(Files.readAllBytes(Paths.get(rulesConfigLocation))));
             }
             catch (IOException e)
             {
-                getLog().error(e);
-                throw new UncheckedIOException(e);
+                throw new MojoFailureException("Unable to read rules config file " + rulesConfigLocation, e);
             }
         }
+        return ValidationCache.digest(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void validate(ZallyRunner zallyRunner, ValidationCache cache, final Set<String> skipped, List<String> urls, SeverityCounter counter, ResultSink reportSink)
+    {
+        final ResultSink sink = ResultSink.of(counter, reportSink);
+        // The validation server handles one file at a time
+        if (urls.size() < 2 || threads < 2 || daemonClient != null)
+        {
+            for (int i = 0; i < urls.size(); i++)
+            {
+                final String url = urls.get(i);
+                printSourceInfo(url);
+                validate(zallyRunner, cache, skipped, url, sink);
+                sink.end(url);
+                if (isFailed(counter, urls.size() - i - 1))
+                {
+                    return;
+                }
+            }
+            return;
+        }
+
+        // Files are spread over their own threads, their checks over those of the runner. Serial rules stay serial across files
+        final ForkJoinPool pool = WorkerThreadFactory.newPool(threads);
+        try
+        {
+            final Map<String, Future<Map<CheckDetails, List<Result>>>> pending = new LinkedHashMap<>();
+            urls.forEach(url -> pending.put(url, pool.submit(() -> validate(zallyRunner, cache, skipped, url))));
+            // Reported per file, in order. Files still pending when failing fast are cancelled on shutdown
+            int remaining = pending.size();
+            for (Map.Entry<String, Future<Map<CheckDetails, List<Result>>>> entry : pending.entrySet())
+            {
+                final Map<CheckDetails, List<Result>> results = entry.getValue().get();
+                printSourceInfo(entry.getKey());
+                replay(entry.getKey(), results, sink);
+                sink.end(entry.getKey());
+                if (isFailed(counter, --remaining))
+                {
+                    break;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating files", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
     }
 
-    private Map<CheckDetails, List<Result>> validate(ZallyRunner zallyRunner, final Set<String> skipped, String url)
+    private void validate(ZallyRunner zallyRunner, ValidationCache cache, final Set<String> skipped, String url, ResultSink sink)
     {
         try
         {
-            return zallyRunner.validate(url, skipped);
+            if (cache == null)
+            {
+                validateSource(zallyRunner, skipped, url, sink);
+                return;
+            }
+
+            final String key = cache.getKey(url);
+            if (cache.replay(url, key, zallyRunner, sink))
+            {
+                getLog().info("Source '" + url + "' is unchanged, using previous validation results");
+                return;
+            }
+
+            // Written as the results are passed on. Results of a validation stopped early are not complete enough to be reused
+            try (ValidationCache.Entry entry = cache.create(url, key))
+            {
+                if (validateSource(zallyRunner, skipped, url, ResultSink.of(entry, sink)))
+                {
+                    entry.commit();
+                }
+            }
         }
         catch (IOException e)
         {
@@ -326,17 +602,85 @@ public class ZallyMojo extends AbstractMojo
         }
     }
 
-    private List<String> gatherViolations(Map<Severity, Map<CheckDetails, List<Result>>> results){
-        final List<String> violations = new ArrayList<>();
-        results.forEach((severity, res) ->
-                res.forEach((checkDetails, resultList) ->
-                        resultList.forEach(result ->
-                                violations.add(checkDetails.getRule().id()
-                                        + " - " + severity
-                                        + " - " + checkDetails.getInstance().getClass().getSimpleName()
-                                        + " - " + result.getDescription()
-                                        + " - " + result.getPointer()
-                                        + " - " + result.getLines()))));
-        return violations;
+    private boolean validateSource(ZallyRunner zallyRunner, final Set<String> skipped, String url, ResultSink sink) throws IOException
+    {
+        if (daemonClient != null && ValidationServer.isLocalFile(url))
+        {
+            try
+            {
+                return daemonClient.validate(url, skipped, zallyRunner, sink);
+            }
+            catch (IOException e)
+            {
+                getLog().warn("Validation server failed, validating locally: " + e.getMessage());
+                daemonClient = null;
+            }
+        }
+        return zallyRunner.validate(url, skipped, sink);
+    }
+
+    private boolean isFailed(SeverityCounter counter, int remaining)
+    {
+        if (!failFast || Collections.disjoint(counter.getSeverities(), failOn))
+        {
+            return false;
+        }
+        if (remaining > 0)
+        {
+            getLog().info("Failing fast, skipping validation of " + remaining + " remaining files");
+        }
+        return true;
+    }
+
+    private void replay(String url, Map<CheckDetails, List<Result>> results, ResultSink sink)
+    {
+        results.forEach((checkDetails, resultList) -> resultList.forEach(result -> sink.accept(url, checkDetails, result)));
+    }
+
+    private void printSourceInfo(String url)
+    {
+        if (sources != null)
+        {
+            printInfo("Results for file '" + url + "'");
+        }
+    }
+
+    /**
+     * @return The results of the source, held until it is its turn to be reported
+     */
+    private Map<CheckDetails, List<Result>> validate(ZallyRunner zallyRunner, ValidationCache cache, final Set<String> skipped, String url)
+    {
+        final Map<CheckDetails, List<Result>> results = new LinkedHashMap<>();
+        validate(zallyRunner, cache, skipped, url, (source, checkDetails, result) -> results.computeIfAbsent(checkDetails, c -> new ArrayList<>()).add(result));
+        return results;
+    }
+
+    /**
+     * Logs the violations of each file under a common header
+     */
+    private class LoggingSink implements ResultSink
+    {
+        private long count;
+
+        @Override
+        public void accept(final String source, final CheckDetails checkDetails, final Result result)
+        {
+            if (count++ == 0)
+            {
+                printHeader("Rule violations");
+            }
+            getLog().warn(ResultWriter.format(checkDetails, result));
+        }
+
+        @Override
+        public void end(final String source)
+        {
+            if (count > 0)
+            {
+                getLog().warn("");
+                getLog().info("Rule violations: " + count);
+            }
+            count = 0;
+        }
     }
 }
@@ -22,100 +22,501 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.maven.plugin.logging.Log;
 import org.jetbrains.annotations.NotNull;
 import org.zalando.zally.core.CheckDetails;
 import org.zalando.zally.core.DefaultContext;
-import org.zalando.zally.core.JsonPointerLocator;
 import org.zalando.zally.core.Result;
 import org.zalando.zally.core.RuleDetails;
 import org.zalando.zally.rule.api.Check;
 import org.zalando.zally.rule.api.Context;
 import org.zalando.zally.rule.api.Rule;
 import org.zalando.zally.rule.api.RuleSet;
+import org.zalando.zally.rule.api.Severity;
 import org.zalando.zally.rule.api.Violation;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
-import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ClassInfo;
-import io.github.classgraph.ClassInfoList;
-import io.github.classgraph.ScanResult;
 import io.swagger.v3.oas.models.OpenAPI;
+import kotlin.ranges.IntRange;
 
 public class ZallyRunner
 {
     private final List<RuleDetails> rules;
 
+    // Resolved once, in rule order, so validating does not repeat the reflection
+    private final List<CheckDetails> checks;
+    private final Map<CheckDetails, CompiledCheck> compiledChecks;
+    private final Map<String, CheckDetails> checksByName;
+
     private final Log logger;
 
+    private final String classpathKey;
+
+    private final Profiler profiler;
+
+    // Serial rules run under this lock, also when several files are validated at once
+    private final Object serialLock = new Object();
+
+    private int threads = 1;
+    private ForkJoinPool pool;
+
+    private Set<String> serialRules = Collections.emptySet();
+    private ModelCache modelCache = new ModelCache();
+    private Resolution resolution = Resolution.FULL;
+    private boolean streaming;
+    private Canonicalization canonicalization = Canonicalization.NONE;
+    private Set<Severity> failFast = Collections.emptySet();
+    private CheckCosts checkCosts = new CheckCosts();
+
     public ZallyRunner(final Config ruleConfigs, final Log logger)
+    {
+        this(ruleConfigs, logger, null, Profiler.NONE);
+    }
+
+    public ZallyRunner(final Config ruleConfigs, final Log logger, final Path ruleIndexDirectory, final Profiler profiler)
     {
         this.rules = new LinkedList<>();
+        this.checks = new ArrayList<>();
+        this.compiledChecks = new IdentityHashMap<>();
+        this.checksByName = new HashMap<>();
         this.logger = logger;
-        final List<Class<?>> ruleClasses = loadRuleClasses();
-        for (Class<?> ruleClass : ruleClasses)
+        this.profiler = profiler;
+
+        final RuleIndex ruleIndex;
+        try (Profiler.Measurement ignored = profiler.start(Profiler.DISCOVERY, "rules"))
+        {
+            ruleIndex = RuleIndex.load(ruleIndexDirectory, logger);
+        }
+        this.classpathKey = ruleIndex.getKey();
+
+        for (Map.Entry<String, List<String>> entry : ruleIndex.getChecksByRuleClass().entrySet())
         {
+            final Class<?> ruleClass = loadClass(entry.getKey());
             final String simpleName = ruleClass.getSimpleName();
             logger.debug("Loading rule " + simpleName);
-            final Object instance = createRuleInstance(ruleClass, ruleConfigs);
-            final Rule ruleAnnotation = ruleClass.getAnnotation(Rule.class);
-            this.rules.add(new RuleDetails((RuleSet) createInstance(ruleAnnotation.ruleSet()), ruleAnnotation, instance));
+            try (Profiler.Measurement ignored = profiler.start(Profiler.INSTANTIATION, simpleName))
+            {
+                final Object instance = createRuleInstance(ruleClass, ruleConfigs);
+                final Rule ruleAnnotation = ruleClass.getAnnotation(Rule.class);
+                final RuleDetails ruleDetails = new RuleDetails((RuleSet) createInstance(ruleAnnotation.ruleSet()), ruleAnnotation, instance);
+                this.rules.add(ruleDetails);
+                for (Method method : getCheckMethods(ruleClass, entry.getValue()))
+                {
+                    final CheckDetails checkDetails = ruleDetails.toCheckDetails(method.getAnnotation(Check.class), method);
+                    this.checks.add(checkDetails);
+                    this.compiledChecks.put(checkDetails, new CompiledCheck(simpleName + "." + method.getName(), CheckInvoker.of(instance, method, logger)));
+                    this.checksByName.put(ruleClass.getName() + "#" + method.getName(), checkDetails);
+                }
+            }
         }
     }
 
-    public Map<CheckDetails, List<Result>> validate(String url, final Set<String> skipped) throws IOException
+    /**
+     * Number of threads used to run checks. Values below 2 run all checks on the calling thread. The threads are
+     * shared by all files validated through this runner, and end when idle
+     */
+    public synchronized void setThreads(final int threads)
     {
-        final OpenAPI openApi = new OpenApiParser().parseInlined(url);
-        final Context context = new DefaultContext("", openApi, null);
+        if (threads != this.threads && pool != null)
+        {
+            pool.shutdown();
+            pool = null;
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Rules, by simple class name, that are not thread-safe. Their checks always run on the calling thread, one after
+     * another, and never at the same time as another serial check, even when files are validated concurrently
+     */
+    public void setSerialRules(final Set<String> serialRules)
+    {
+        this.serialRules = serialRules != null ? serialRules : Collections.emptySet();
+    }
 
+    /**
+     * The cache of parsed models to read specifications through, so they can be shared with other goals
+     */
+    public void setModelCache(final ModelCache modelCache)
+    {
+        this.modelCache = modelCache;
+    }
+
+    /**
+     * How references are resolved before the checks run. Default is {@link Resolution#FULL}
+     */
+    public void setResolution(final Resolution resolution)
+    {
+        this.resolution = resolution != null ? resolution : Resolution.FULL;
+    }
+
+    /**
+     * Whether rules implementing {@link StreamingCheck} are applied to the parser events of the source instead of the
+     * object model. The model is then only built when other rules are enabled. Of the bundled rules only
+     * {@link com.ethlo.zally.rules.WhiteListedPluralizeNamesForArraysRule} implements it; the Zalando rules need the
+     * model, so streaming only saves the model when those are skipped
+     */
+    public void setStreaming(final boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
+    /**
+     * How repeated values in the model are shared before the checks run, to reduce the memory needed for large
+     * specifications. Default is {@link Canonicalization#NONE}
+     */
+    public void setCanonicalization(final Canonicalization canonicalization)
+    {
+        this.canonicalization = canonicalization != null ? canonicalization : Canonicalization.NONE;
+    }
+
+    /**
+     * Stop validating a source as soon as a violation of one of these severities is found. The checks with
+     * these severities then run first, cheapest first according to the {@link CheckCosts}. Default is none
+     */
+    public void setFailFast(final Collection<Severity> severities)
+    {
+        this.failFast = severities != null && !severities.isEmpty() ? EnumSet.copyOf(severities) : Collections.emptySet();
+    }
+
+    /**
+     * Where the time taken by each check is recorded, and read from to order the checks of a fail-fast run
+     */
+    public void setCheckCosts(final CheckCosts checkCosts)
+    {
+        this.checkCosts = checkCosts;
+    }
+
+    public CheckCosts getCheckCosts()
+    {
+        return checkCosts;
+    }
+
+    public Map<CheckDetails, List<Result>> validate(String url, final Set<String> skipped) throws IOException
+    {
+        // Keep the order of the rules, whichever way the checks are run
         final Map<CheckDetails, List<Result>> returnValue = new LinkedHashMap<>();
-        for (RuleDetails ruleDetails : rules)
+        for (CheckDetails checkDetails : getChecks(skipped))
         {
-            if (!skipped.contains(ruleDetails.getInstance().getClass().getSimpleName()))
+            returnValue.put(checkDetails, new ArrayList<>());
+        }
+        validate(url, skipped, (source, checkDetails, result) -> returnValue.get(checkDetails).add(result));
+        return returnValue;
+    }
+
+    /**
+     * Passes the violations on to the sink as each check completes, on the calling thread, instead of collecting them.
+     * Violations found while streaming come first, then those of the remaining checks in rule order, or in cost order
+     * when failing fast
+     *
+     * @return <code>false</code> if the validation stopped early because of a fail-fast violation
+     */
+    public boolean validate(String url, final Set<String> skipped, final ResultSink target) throws IOException
+    {
+        final FailFastSink sink = new FailFastSink(target, failFast);
+        final List<CheckDetails> checkList = new ArrayList<>();
+        final Map<StreamingCheck, CheckDetails> streamingChecks = new LinkedHashMap<>();
+        for (CheckDetails checkDetails : getChecks(skipped))
+        {
+            if (streaming && checkDetails.getInstance() instanceof StreamingCheck)
+            {
+                streamingChecks.putIfAbsent((StreamingCheck) checkDetails.getInstance(), checkDetails);
+            }
+            else
             {
-                final Object instance = ruleDetails.getInstance();
-                for (Method method : instance.getClass().getDeclaredMethods())
+                checkList.add(checkDetails);
+            }
+        }
+
+        if (!streamingChecks.isEmpty())
+        {
+            try (Profiler.Measurement ignored = profiler.start(Profiler.STREAM, url))
+            {
+                final Map<CheckDetails, List<Result>> streamed;
+                if (streamingChecks.values().stream().anyMatch(this::isSerial))
+                {
+                    synchronized (serialLock)
+                    {
+                        streamed = StreamingValidator.validate(url, streamingChecks);
+                    }
+                }
+                else
                 {
-                    final Check checkAnnotation = method.getAnnotation(Check.class);
+                    streamed = StreamingValidator.validate(url, streamingChecks);
+                }
+                streamed.forEach((checkDetails, results) -> emit(url, checkDetails, results, sink));
+            }
+            if (sink.triggered)
+            {
+                logStopped(url, checkList.size());
+                return false;
+            }
+        }
+
+        if (!checkList.isEmpty())
+        {
+            final OpenAPI openApi = modelCache.get(url, resolution, canonicalization, profiler);
+            modelCache.getStatistics(openApi).ifPresent(statistics -> logger.info("Canonicalized model of " + url + ": " + statistics));
+            final Context context = new DefaultContext("", openApi, null);
+            final SourceLocator locator = new SourceLocator(url, logger);
+            final List<CheckDetails> ordered = order(checkList);
+            final int completed = threads > 1 ? performChecksParallel(url, context, ordered, locator, sink) : performChecks(url, context, ordered, locator, sink);
+            if (completed < ordered.size())
+            {
+                logStopped(url, ordered.size() - completed);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    List<CheckDetails> order(final List<CheckDetails> checkList)
+    {
+        if (failFast.isEmpty())
+        {
+            return checkList;
+        }
 
-                    if (checkAnnotation != null && method.getParameterTypes().length == 1 && method.getParameterTypes()[0] == Context.class)
+        // Checks that have not run before go last within their group
+        final List<CheckDetails> ordered = new ArrayList<>(checkList);
+        ordered.sort(Comparator.comparing((CheckDetails checkDetails) -> !failFast.contains(checkDetails.getCheck().severity()))
+                .thenComparingLong(checkDetails -> checkCosts.get(checkDetails).orElse(Long.MAX_VALUE)));
+        return ordered;
+    }
+
+    private void logStopped(final String url, final int remaining)
+    {
+        logger.info("Stopped validating " + url + " at the first violation with severity " + failFast + ", skipping " + remaining + " checks");
+    }
+
+    private List<CheckDetails> getChecks(final Set<String> skipped)
+    {
+        if (skipped.isEmpty())
+        {
+            return checks;
+        }
+
+        final List<CheckDetails> result = new ArrayList<>(checks.size());
+        for (CheckDetails checkDetails : checks)
+        {
+            if (!skipped.contains(checkDetails.getInstance().getClass().getSimpleName()))
+            {
+                result.add(checkDetails);
+            }
+        }
+        return result;
+    }
+
+    private boolean isSerial(final CheckDetails checkDetails)
+    {
+        return serialRules.contains(checkDetails.getInstance().getClass().getSimpleName());
+    }
+
+    private synchronized ForkJoinPool getPool()
+    {
+        if (pool == null)
+        {
+            pool = WorkerThreadFactory.newPool(threads);
+        }
+        return pool;
+    }
+
+    private static void emit(final String url, final CheckDetails checkDetails, final List<Result> results, final ResultSink sink)
+    {
+        for (Result result : results)
+        {
+            sink.accept(url, checkDetails, result);
+        }
+    }
+
+    /**
+     * @return The number of checks completed
+     */
+    private int performChecks(String url, Context context, List<CheckDetails> checkList, SourceLocator locator, FailFastSink sink)
+    {
+        int completed = 0;
+        for (CheckDetails checkDetails : checkList)
+        {
+            emit(url, checkDetails, performCheck(context, checkDetails, locator, null), sink);
+            completed++;
+            if (sink.triggered)
+            {
+                break;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * @return The number of checks completed. Checks not yet started when a fail-fast violation is found are cancelled
+     */
+    private int performChecksParallel(String url, Context context, List<CheckDetails> checkList, SourceLocator locator, FailFastSink sink)
+    {
+        final CompletionService<List<Result>> completionService = new ExecutorCompletionService<>(getPool());
+        final Map<Future<List<Result>>, Integer> pending = new HashMap<>();
+        final List<List<Result>> done = new ArrayList<>(Collections.nCopies(checkList.size(), null));
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        try
+        {
+            for (int i = 0; i < checkList.size(); i++)
+            {
+                final CheckDetails checkDetails = checkList.get(i);
+                if (!isSerial(checkDetails))
+                {
+                    pending.put(completionService.submit(() -> performCheck(context, checkDetails, locator, cancelled)), i);
+                }
+            }
+
+            // Keep the same ordering as a sequential run, running the serial checks while the others are in progress. A
+            // fail-fast violation is acted upon as soon as its check completes, even if earlier checks are still running
+            int next = 0;
+            while (next < checkList.size())
+            {
+                if (!isSerial(checkList.get(next)))
+                {
+                    final Future<List<Result>> future = take(completionService);
+                    final int index = pending.remove(future);
+                    done.set(index, await(future));
+                    if (index != next && isFailing(done.get(index)))
                     {
-                        final List<Result> violationList = new ArrayList<>();
-                        final CheckDetails checkDetails = performCheck(context, violationList, instance, ruleDetails.getRule(), ruleDetails.getRuleSet(), method, checkAnnotation, url);
-                        returnValue.put(checkDetails, violationList);
+                        next = emitCompleted(url, checkList, done, next, sink);
+                        if (sink.triggered)
+                        {
+                            return next;
+                        }
+                        emit(url, checkList.get(index), done.get(index), sink);
+                        return next + 1;
                     }
                 }
+                else if (done.get(next) == null)
+                {
+                    done.set(next, performCheck(context, checkList.get(next), locator, null));
+                }
+
+                next = emitCompleted(url, checkList, done, next, sink);
+                if (sink.triggered)
+                {
+                    return next;
+                }
             }
+            return next;
         }
+        finally
+        {
+            // The pool is shared, so only the checks of this file are cancelled. Those already running are not waited for,
+            // and their time is not recorded, as it would no longer be measured on an otherwise idle pool
+            cancelled.set(true);
+            pending.keySet().forEach(future -> future.cancel(true));
+        }
+    }
 
-        return returnValue;
+    /**
+     * Emits the completed checks from <code>next</code> on, up to the first one still running or the first fail-fast
+     * violation
+     *
+     * @return The index of the first check not emitted
+     */
+    private int emitCompleted(String url, List<CheckDetails> checkList, List<List<Result>> done, int next, FailFastSink sink)
+    {
+        while (next < checkList.size() && done.get(next) != null && !sink.triggered)
+        {
+            emit(url, checkList.get(next), done.get(next), sink);
+            next++;
+        }
+        return next;
+    }
+
+    private boolean isFailing(final List<Result> results)
+    {
+        return results.stream().anyMatch(result -> failFast.contains(result.getViolationType()));
+    }
+
+    private Future<List<Result>> take(final CompletionService<List<Result>> completionService)
+    {
+        try
+        {
+            return completionService.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for check results", e);
+        }
+    }
+
+    private List<Result> await(Future<List<Result>> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for check results", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
     }
 
+    /**
+     * @param cancelled Set when the result is no longer needed, or <code>null</code> if the check is always awaited
+     */
     @NotNull
-    private CheckDetails performCheck(Context context, List<Result> violationList, Object instance, Rule ruleAnnotation, RuleSet ruleSet, Method method, Check checkAnnotation, String url)
+    private List<Result> performCheck(Context context, CheckDetails checkDetails, SourceLocator locator, AtomicBoolean cancelled)
     {
-        final CheckDetails checkDetails = new CheckDetails(ruleSet, ruleAnnotation, instance, checkAnnotation, method);
+        if (isSerial(checkDetails))
+        {
+            synchronized (serialLock)
+            {
+                return invokeCheck(context, checkDetails, locator, cancelled);
+            }
+        }
+        return invokeCheck(context, checkDetails, locator, cancelled);
+    }
 
+    @NotNull
+    private List<Result> invokeCheck(Context context, CheckDetails checkDetails, SourceLocator locator, AtomicBoolean cancelled)
+    {
+        final List<Result> violationList = new ArrayList<>();
+        final CompiledCheck compiledCheck = compiledChecks.get(checkDetails);
         final Object result;
-        try
+        final long start = System.nanoTime();
+        try (Profiler.Measurement ignored = profiler.start(Profiler.CHECK, compiledCheck.name))
         {
-            result = method.invoke(instance, context);
+            result = compiledCheck.invoker.invoke(context);
         }
-        catch (IllegalAccessException | InvocationTargetException e)
+        if (cancelled == null || !cancelled.get())
         {
-            throw new RuntimeException(e);
+            checkCosts.record(checkDetails, System.nanoTime() - start);
         }
         if (result != null)
         {
@@ -131,24 +532,45 @@ public class ZallyRunner
                         logger.info(String.format("Ignore violation, rule = %s, at %s", checkDetails.getRule().id(), violation.getPointer()));
                         continue;
                     }
-                    violationList.add(handleViolation(url, checkDetails, violation));
+                    violationList.add(handleViolation(locator, checkDetails, violation));
                 }
             }
             else if (result instanceof Violation)
             {
-                violationList.add(handleViolation(url, checkDetails, (Violation) result));
+                violationList.add(handleViolation(locator, checkDetails, (Violation) result));
             }
         }
-        return checkDetails;
+        return violationList;
+    }
+
+    private Class<?> loadClass(final String className)
+    {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try
+        {
+            return Class.forName(className, true, contextClassLoader != null ? contextClassLoader : getClass().getClassLoader());
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new IllegalStateException("Cannot load indexed rule class " + className, e);
+        }
     }
 
-    private List<Class<?>> loadRuleClasses()
+    private List<Method> getCheckMethods(final Class<?> ruleClass, final List<String> methodNames)
     {
-        try (ScanResult result = new ClassGraph().enableClassInfo().enableAnnotationInfo().scan())
+        final List<Method> methods = new ArrayList<>(methodNames.size());
+        for (String methodName : methodNames)
         {
-            final ClassInfoList classInfos = result.getClassesWithAnnotation(Rule.class.getName());
-            return classInfos.stream().map(ClassInfo::loadClass).collect(Collectors.toList());
+            try
+            {
+                methods.add(ruleClass.getDeclaredMethod(methodName, Context.class));
+            }
+            catch (NoSuchMethodException e)
+            {
+                throw new IllegalStateException("Cannot find indexed check method " + methodName + " in rule " + ruleClass, e);
+            }
         }
+        return methods;
     }
 
     private Object createRuleInstance(Class<?> ruleClass, Config ruleConfig)
@@ -184,15 +606,12 @@ public class ZallyRunner
         }
     }
 
-    private Result handleViolation(String url, final CheckDetails details, Violation violation)
+    private Result handleViolation(SourceLocator locator, final CheckDetails details, Violation violation)
     {
-        JsonPointerLocator locator = new JsonPointerLocator("");
-        try {
-            // throw new IOException();
-            locator = new JsonPointerLocator(Files.readString(Paths.get(url)));
-        } catch (IOException e) {
-            logger.warn("Could not read File");;
-            e.printStackTrace();
+        final IntRange lines;
+        try (Profiler.Measurement ignored = profiler.start(Profiler.LOCATE, locator.getUrl()))
+        {
+            lines = locator.locate(violation.getPointer());
         }
 
         return new Result(
@@ -202,7 +621,7 @@ public class ZallyRunner
                 violation.getDescription(),
                 details.getCheck().severity(),
                 violation.getPointer(),
-                locator.locate(violation.getPointer())
+                lines
         );
     }
 
@@ -210,4 +629,52 @@ public class ZallyRunner
     {
         return rules;
     }
+
+    /**
+     * @return A digest of the classpath the rules were loaded from
+     */
+    public String getClasspathKey()
+    {
+        return classpathKey;
+    }
+
+    public Optional<CheckDetails> getCheckDetails(final String ruleClassName, final String methodName)
+    {
+        return Optional.ofNullable(checksByName.get(ruleClassName + "#" + methodName));
+    }
+
+    private static class CompiledCheck
+    {
+        private final String name;
+        private final CheckInvoker invoker;
+
+        private CompiledCheck(final String name, final CheckInvoker invoker)
+        {
+            this.name = name;
+            this.invoker = invoker;
+        }
+    }
+
+    /**
+     * Notes when a violation of a fail-fast severity passes through
+     */
+    private static class FailFastSink implements ResultSink
+    {
+        private final ResultSink target;
+        private final Set<Severity> severities;
+        private boolean triggered;
+
+        private FailFastSink(final ResultSink target, final Set<Severity> severities)
+        {
+            this.target = target;
+            this.severities = severities;
+        }
+
+        @Override
+        public void accept(final String source, final CheckDetails checkDetails, final Result result)
+        {
+            target.accept(source, checkDetails, result);
+            triggered |= severities.contains(result.getViolationType());
+        }
+    }
 }
@@ -31,7 +31,9 @@ import org.zalando.zally.rule.api.Rule;
 import org.zalando.zally.rule.api.Severity;
 import org.zalando.zally.rule.api.Violation;
 
-import com.ethlo.zally.rules.common.PlingStemmer;
+import com.ethlo.zally.StreamingCheck;
+import com.ethlo.zally.StreamingContext;
+import com.ethlo.zally.rules.common.StemCache;
 import com.typesafe.config.Config;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.media.Schema;
@@ -42,7 +44,7 @@ import io.swagger.v3.oas.models.media.Schema;
         severity = Severity.SHOULD,
         title = "Array names should be pluralized"
 )
-public class WhiteListedPluralizeNamesForArraysRule
+public class WhiteListedPluralizeNamesForArraysRule implements StreamingCheck
 {
     private final List<String> whiteList;
 
@@ -66,8 +68,26 @@ public class WhiteListedPluralizeNamesForArraysRule
         return getAllSchemas(context.getApi()).entrySet().stream()
                 .filter(it -> "array".equals(it.getValue().getType()))
                 .filter(it -> whiteList.contains(it.getKey()))
-                .filter(it -> !PlingStemmer.isPlural(it.getKey()))
+                .filter(it -> !StemCache.getShared().isPlural(it.getKey()))
                 .map(it -> context.violation("Array property name appears to be singular: " + it.getKey(), it.getValue()))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public void onValue(final StreamingContext context, final String value)
+    {
+        // /components/schemas/<name>/type: array
+        if (context.getDepth() == 4
+                && "array".equals(value)
+                && "type".equals(context.getSegment(3))
+                && "schemas".equals(context.getSegment(1))
+                && "components".equals(context.getSegment(0)))
+        {
+            final String name = context.getSegment(2);
+            if (whiteList.contains(name) && !StemCache.getShared().isPlural(name))
+            {
+                context.violation("Array property name appears to be singular: " + name, 3);
+            }
+        }
+    }
 }
@@ -0,0 +1,195 @@
+package com.ethlo.zally.rules.common;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Minimal perfect hash of a fixed set of strings, built with hash and displace: the keys are spread over buckets by
+ * a seeded hash of their characters, and each bucket, largest first, is given the first displacement that moves all of
+ * its keys to free slots. Keys whose hashes collide under one seed are rebuilt with the next seed, so any set of
+ * distinct strings can be placed. A lookup is one pass over the characters, two multiplications and one comparison of
+ * the candidate key, without boxing. Built once and never modified, so instances can be shared between threads once
+ * published.
+ */
+final class PerfectHash
+{
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+    private static final int MAX_SEEDS = 64;
+
+    private final String[] keys;
+    private final int[] displacements;
+    private final int seed;
+
+    /**
+     * @param keys Distinct keys
+     */
+    PerfectHash(final String... keys)
+    {
+        this.keys = new String[keys.length];
+        this.displacements = new int[Math.max(1, keys.length)];
+
+        int seed = 0;
+        while (!build(keys, seed))
+        {
+            if (++seed == MAX_SEEDS)
+            {
+                throw new IllegalArgumentException("Cannot place keys " + Arrays.toString(keys) + ", they are not distinct");
+            }
+            Arrays.fill(this.keys, null);
+            Arrays.fill(displacements, 0);
+        }
+        this.seed = seed;
+    }
+
+    /**
+     * @return The slot of the key, or -1 if it is not one of the keys
+     */
+    int indexOf(final Object key)
+    {
+        if (!(key instanceof String) || keys.length == 0)
+        {
+            return -1;
+        }
+        final int hash = hash((String) key, seed);
+        final int index = slot(hash, displacements[slot(hash, 0, displacements.length)], keys.length);
+        return key.equals(keys[index]) ? index : -1;
+    }
+
+    String key(final int index)
+    {
+        return keys[index];
+    }
+
+    int size()
+    {
+        return keys.length;
+    }
+
+    private boolean build(final String[] keys, final int seed)
+    {
+        final List<List<String>> buckets = new ArrayList<>(displacements.length);
+        for (int i = 0; i < displacements.length; i++)
+        {
+            buckets.add(new ArrayList<>(2));
+        }
+        for (String key : keys)
+        {
+            buckets.get(slot(hash(key, seed), 0, displacements.length)).add(key);
+        }
+
+        final Integer[] order = new Integer[displacements.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingInt(i -> -buckets.get(i).size()));
+
+        final int[] hashes = new int[buckets.get(order[0]).size()];
+        final int[] slots = new int[hashes.length];
+        for (int bucket : order)
+        {
+            final List<String> members = buckets.get(bucket);
+            if (members.isEmpty())
+            {
+                break;
+            }
+            final int displacement = place(members, seed, hashes, slots);
+            if (displacement == 0)
+            {
+                return false;
+            }
+            displacements[bucket] = displacement;
+        }
+        return true;
+    }
+
+    /**
+     * @return The displacement that puts all members in free slots, or 0 if there is none for this seed
+     */
+    private int place(final List<String> members, final int seed, final int[] hashes, final int[] slots)
+    {
+        for (int i = 0; i < members.size(); i++)
+        {
+            hashes[i] = hash(members.get(i), seed);
+            for (int j = 0; j < i; j++)
+            {
+                if (hashes[j] == hashes[i])
+                {
+                    return 0;
+                }
+            }
+        }
+
+        for (int displacement = 1; displacement < MAX_DISPLACEMENT; displacement++)
+        {
+            if (fits(members.size(), displacement, hashes, slots))
+            {
+                for (int i = 0; i < members.size(); i++)
+                {
+                    keys[slots[i]] = members.get(i);
+                }
+                return displacement;
+            }
+        }
+        return 0;
+    }
+
+    private boolean fits(final int count, final int displacement, final int[] hashes, final int[] slots)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            final int slot = slot(hashes[i], displacement, keys.length);
+            if (keys[slot] != null)
+            {
+                return false;
+            }
+            for (int j = 0; j < i; j++)
+            {
+                if (slots[j] == slot)
+                {
+                    return false;
+                }
+            }
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    private static int hash(final String key, final int seed)
+    {
+        int hash = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+        for (int i = 0; i < key.length(); i++)
+        {
+            hash = (hash ^ key.charAt(i)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int slot(final int hash, final int displacement, final int range)
+    {
+        int mixed = (hash ^ displacement) * 0x9E3779B9;
+        mixed ^= mixed >>> 15;
+        mixed *= 0x85EBCA6B;
+        mixed ^= mixed >>> 13;
+        return (int) (((mixed & 0xFFFFFFFFL) * range) >>> 32);
+    }
+}
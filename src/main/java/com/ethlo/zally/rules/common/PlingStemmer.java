@@ -73,8 +73,7 @@ import java.util.Set;
  * ambiguous word form in the way expected by the user.<P>
  * <p>
  * The PlingStemmer uses material from <A HREF=http://wordnet.princeton.edu/>WordNet</A>.<P>
- * It requires the class FinalSet from the <A HREF=http://www.mpii.mpg.de/~suchanek/downloads/javatools>
- * Java Tools</A>.
+ * The word lists are held in {@link WordSet} and {@link WordMap}, immutable perfect hash tables.
  */
 public class PlingStemmer
 {
@@ -82,11 +81,11 @@ public class PlingStemmer
     /**
      * Words that end in "-se" in their plural forms (like "nurse" etc.)
      */
-    public static Set<String> categorySE_SES = new FinalSet<String>("nurses", "cruises", "premises", "houses", "courses", "cases");
+    public static final Set<String> categorySE_SES = new WordSet("nurses", "cruises", "premises", "houses", "courses", "cases");
     /**
      * Words that do not have a distinct plural form (like "atlas" etc.)
      */
-    public static Set<String> category00 = new FinalSet<String>("alias", "asbestos", "atlas", "barracks", "bathos", "bias", "breeches", "britches",
+    public static final Set<String> category00 = new WordSet("alias", "asbestos", "atlas", "barracks", "bathos", "bias", "breeches", "britches",
             "canvas", "chaos", "clippers", "contretemps", "corps", "cosmos", "crossroads", "diabetes", "ethos", "gallows", "gas", "graffiti",
             "headquarters", "herpes", "high-jinks", "innings", "jackanapes", "lens", "means", "measles", "mews", "mumps", "news", "pathos", "pincers",
             "pliers", "proceedings", "rabies", "rhinoceros", "sassafras", "scissors", "series", "shears", "species", "tuna"
@@ -94,7 +93,7 @@ public class PlingStemmer
     /**
      * Words that change from "-um" to "-a" (like "curriculum" etc.), listed in their plural forms
      */
-    public static Set<String> categoryUM_A = new FinalSet<String>("addenda", "agenda", "aquaria", "bacteria", "candelabra", "compendia", "consortia",
+    public static final Set<String> categoryUM_A = new WordSet("addenda", "agenda", "aquaria", "bacteria", "candelabra", "compendia", "consortia",
             "crania", "curricula", "data", "desiderata", "dicta", "emporia", "enconia", "errata", "extrema", "gymnasia", "honoraria", "interregna",
             "lustra", "maxima", "media", "memoranda", "millenia", "minima", "momenta", "optima", "ova", "phyla", "quanta", "rostra", "spectra", "specula",
             "stadia", "strata", "symposia", "trapezia", "ultimata", "vacua", "vela"
@@ -102,35 +101,35 @@ public class PlingStemmer
     /**
      * Words that change from "-on" to "-a" (like "phenomenon" etc.), listed in their plural forms
      */
-    public static Set<String> categoryON_A = new FinalSet<String>("aphelia", "asyndeta", "automata", "criteria", "hyperbata", "noumena", "organa",
+    public static final Set<String> categoryON_A = new WordSet("aphelia", "asyndeta", "automata", "criteria", "hyperbata", "noumena", "organa",
             "perihelia", "phenomena", "prolegomena"
     );
     /**
      * Words that change from "-o" to "-i" (like "libretto" etc.), listed in their plural forms
      */
-    public static Set<String> categoryO_I = new FinalSet<String>("alti", "bassi", "canti", "contralti", "crescendi", "libretti", "soli", "soprani",
+    public static final Set<String> categoryO_I = new WordSet("alti", "bassi", "canti", "contralti", "crescendi", "libretti", "soli", "soprani",
             "tempi", "virtuosi"
     );
     /**
      * Words that change from "-us" to "-i" (like "fungus" etc.), listed in their plural forms
      */
-    public static Set<String> categoryUS_I = new FinalSet<String>("alumni", "bacilli", "cacti", "foci", "fungi", "genii", "hippopotami", "incubi",
+    public static final Set<String> categoryUS_I = new WordSet("alumni", "bacilli", "cacti", "foci", "fungi", "genii", "hippopotami", "incubi",
             "nimbi", "nuclei", "nucleoli", "octopi", "radii", "stimuli", "styli", "succubi", "syllabi", "termini", "tori", "umbilici", "uteri"
     );
     /**
      * Words that change from "-ix" to "-ices" (like "appendix" etc.), listed in their plural forms
      */
-    public static Set<String> categoryIX_ICES = new FinalSet<String>("appendices", "cervices");
+    public static final Set<String> categoryIX_ICES = new WordSet("appendices", "cervices");
     /**
      * Words that change from "-is" to "-es" (like "axis" etc.), listed in their plural forms
      */
-    public static Set<String> categoryIS_ES = new FinalSet<String>(
+    public static final Set<String> categoryIS_ES = new WordSet(
             // plus everybody ending in theses
             "analyses", "axes", "bases", "crises", "diagnoses", "ellipses", "emphases", "neuroses", "oases", "paralyses", "synopses");
     /**
      * Words that change from "-oe" to "-oes" (like "toe" etc.), listed in their plural forms
      */
-    public static Set<String> categoryOE_OES = new FinalSet<String>("aloes", "backhoes", "beroes", "canoes", "chigoes", "cohoes", "does", "felloes",
+    public static final Set<String> categoryOE_OES = new WordSet("aloes", "backhoes", "beroes", "canoes", "chigoes", "cohoes", "does", "felloes",
             "floes", "foes", "gumshoes", "hammertoes", "hoes", "hoopoes", "horseshoes", "leucothoes", "mahoes", "mistletoes", "oboes", "overshoes",
             "pahoehoes", "pekoes", "roes", "shoes", "sloes", "snowshoes", "throes", "tic-tac-toes", "tick-tack-toes", "ticktacktoes", "tiptoes",
             "tit-tat-toes", "toes", "toetoes", "tuckahoes", "woes"
@@ -138,19 +137,19 @@ public class PlingStemmer
     /**
      * Words that change from "-ex" to "-ices" (like "index" etc.), listed in their plural forms
      */
-    public static Set<String> categoryEX_ICES = new FinalSet<String>("apices", "codices", "cortices", "indices", "latices", "murices", "pontifices",
+    public static final Set<String> categoryEX_ICES = new WordSet("apices", "codices", "cortices", "indices", "latices", "murices", "pontifices",
             "silices", "simplices", "vertices", "vortices"
     );
     /**
      * Words that change from "-u" to "-us" (like "emu" etc.), listed in their plural forms
      */
-    public static Set<String> categoryU_US = new FinalSet<String>("apercus", "barbus", "cornus", "ecrus", "emus", "fondus", "gnus", "iglus", "mus",
+    public static final Set<String> categoryU_US = new WordSet("apercus", "barbus", "cornus", "ecrus", "emus", "fondus", "gnus", "iglus", "mus",
             "nandus", "napus", "poilus", "quipus", "snafus", "tabus", "tamandus", "tatus", "timucus", "tiramisus", "tofus", "tutus"
     );
     /**
      * Words that change from "-sse" to "-sses" (like "finesse" etc.), listed in their plural forms
      */
-    public static Set<String> categorySSE_SSES = new FinalSet<String>(
+    public static final Set<String> categorySSE_SSES = new WordSet(
             //plus those ending in mousse
             "bouillabaisses", "coulisses", "crevasses", "crosses", "cuisses", "demitasses", "ecrevisses", "fesses", "finesses", "fosses", "impasses",
             "lacrosses", "largesses", "masses", "noblesses", "palliasses", "pelisses", "politesses", "posses", "tasses", "wrasses"
@@ -158,7 +157,7 @@ public class PlingStemmer
     /**
      * Words that change from "-che" to "-ches" (like "brioche" etc.), listed in their plural forms
      */
-    public static Set<String> categoryCHE_CHES = new FinalSet<String>("adrenarches", "attaches", "avalanches", "barouches", "brioches", "caches",
+    public static final Set<String> categoryCHE_CHES = new WordSet("adrenarches", "attaches", "avalanches", "barouches", "brioches", "caches",
             "caleches", "caroches", "cartouches", "cliches", "cloches", "creches", "demarches", "douches", "gouaches", "guilloches", "headaches",
             "heartaches", "huaraches", "menarches", "microfiches", "moustaches", "mustaches", "niches", "panaches", "panoches", "pastiches", "penuches",
             "pinches", "postiches", "psyches", "quiches", "schottisches", "seiches", "soutaches", "synecdoches", "thelarches", "troches"
@@ -166,7 +165,7 @@ public class PlingStemmer
     /**
      * Words that end with "-ics" and do not exist as nouns without the 's' (like "aerobics" etc.)
      */
-    public static Set<String> categoryICS = new FinalSet<String>("aerobatics", "aerobics", "aerodynamics", "aeromechanics", "aeronautics",
+    public static final Set<String> categoryICS = new WordSet("aerobatics", "aerobics", "aerodynamics", "aeromechanics", "aeronautics",
             "alphanumerics", "animatronics", "apologetics", "architectonics", "astrodynamics", "astronautics", "astrophysics", "athletics", "atmospherics",
             "autogenics", "avionics", "ballistics", "bibliotics", "bioethics", "biometrics", "bionics", "bionomics", "biophysics", "biosystematics",
             "cacogenics", "calisthenics", "callisthenics", "catoptrics", "civics", "cladistics", "cryogenics", "cryonics", "cryptanalytics", "cybernetics",
@@ -187,7 +186,7 @@ public class PlingStemmer
     /**
      * Words that change from "-ie" to "-ies" (like "auntie" etc.), listed in their plural forms
      */
-    public static Set<String> categoryIE_IES = new FinalSet<String>("aeries", "anomies", "aunties", "baddies", "beanies", "birdies", "boccies",
+    public static final Set<String> categoryIE_IES = new WordSet("aeries", "anomies", "aunties", "baddies", "beanies", "birdies", "boccies",
             "bogies", "bolshies", "bombies", "bonhomies", "bonxies", "booboisies", "boogies", "boogie-woogies", "bookies", "booties", "bosies",
             "bourgeoisies", "brasseries", "brassies", "brownies", "budgies", "byrnies", "caddies", "calories", "camaraderies", "capercaillies",
             "capercailzies", "cassies", "catties", "causeries", "charcuteries", "chinoiseries", "collies", "commies", "cookies", "coolies", "coonties",
@@ -205,7 +204,7 @@ public class PlingStemmer
     /**
      * Maps irregular Germanic English plural nouns to their singular form
      */
-    public static Map<String, String> irregular = new FinalMap<String, String>("beefs", "beef", "beeves", "beef", "brethren", "brother", "busses",
+    public static final Map<String, String> irregular = new WordMap("beefs", "beef", "beeves", "beef", "brethren", "brother", "busses",
             "bus", "cattle", "cattlebeast", "children", "child", "corpora", "corpus", "ephemerides", "ephemeris", "firemen", "fireman", "genera", "genus",
             "genies", "genie", "genii", "genie", "kine", "cow", "lice", "louse", "men", "man", "mice", "mouse", "mongooses", "mongoose", "monies", "money",
             "mythoi", "mythos", "octopodes", "octopus", "octopuses", "octopus", "oxen", "ox", "people", "person", "soliloquies", "soliloquy", "throes",
@@ -214,19 +213,24 @@ public class PlingStemmer
     /**
      * Contains word forms that can either be plural or singular
      */
-    public static Set<String> singAndPlur = new FinalSet<String>("acoustics", "aestetics", "aquatics", "basics", "ceramics", "classics", "cosmetics",
+    public static final Set<String> singAndPlur = new WordSet("acoustics", "aestetics", "aquatics", "basics", "ceramics", "classics", "cosmetics",
             "dermatoglyphics", "dialectics", "dynamics", "esthetics", "ethics", "harmonics", "heroics", "isometrics", "mechanics", "metrics", "statistics",
             "optic", "people", "physics", "polemics", "premises", "propaedeutics", "pyrotechnics", "quadratics", "quarters", "statistics", "tactics",
             "tropics"
     );
 
     /**
-     * Tells whether a word form is plural. This method just checks whether the
-     * stem method alters the word
+     * The categories above and the rules of {@link #stem(String)}, compiled when the class is loaded
+     */
+    static final PluralAutomaton automaton = PluralAutomaton.compile();
+
+    /**
+     * Tells whether a word form is plural, that is whether the stem method
+     * alters the word. The word is not stemmed, so nothing is allocated
      */
     public static boolean isPlural(String s)
     {
-        return (!s.equals(stem(s)));
+        return PluralAutomaton.changes(automaton.classify(s));
     }
 
     /**
@@ -234,7 +238,7 @@ public class PlingStemmer
      */
     public static boolean isSingular(String s)
     {
-        return (singAndPlur.contains(s.toLowerCase()) || !isPlural(s));
+        return (automaton.isSingularAndPlural(s) || !isPlural(s));
     }
 
     /**
@@ -243,7 +247,7 @@ public class PlingStemmer
      */
     public static boolean isSingularAndPlural(String s)
     {
-        return (singAndPlur.contains(s.toLowerCase()));
+        return (automaton.isSingularAndPlural(s));
     }
 
     /**
@@ -264,144 +268,22 @@ public class PlingStemmer
     }
 
     /**
-     * Returns true if a word is probably Greek
-     */
-    private static boolean greek(String s)
-    {
-        return (s.indexOf("ph") > 0 || s.indexOf('y') > 0 && s.endsWith("nges"));
-    }
-
-    /**
-     * Stems an English noun
+     * Stems an English noun. The rules, with the exceptions to each, are:
+     * <ul>
+     * <li>irregular forms, -on to -a, -um to -a, -ix to -ices, -o to -i, -se to -ses, -is to -es (and -theses), -us to -i
+     * and its wrong plural -uses, -ex to -ices</li>
+     * <li>words that do not inflect: -ois, -itis and the invariant categories</li>
+     * <li>-en to -ina, -a to -ae, -a to -ata, -trix to -trices, and words in -us that look Latin, which are kept</li>
+     * <li>-tooth to -teeth, -goose to -geese, -foot to -feet, -zoon to -zoa, -eau to -eaux, -ieu to -ieux, Greek -nx to
+     * -nges</li>
+     * <li>-[sc]h to -[sc]hes, -ss to -sses, -x to -xes, -[nlw]ife to -[nlw]ives, -[aeo]lf, -[^d]eaf and -arf to -ves,
+     * -y to -ies, -o to -oes, -s and -z to -ses and -zes, and finally - to -s</li>
+     * </ul>
+     * They are tried in this order, see {@link PluralAutomaton}.
      */
     public static String stem(String s)
     {
-        String stem = s;
-
-        // Handle irregular ones
-        String irreg = irregular.get(s);
-        if (irreg != null) return (stem = irreg);
-
-        // -on to -a
-        if (categoryON_A.contains(s)) return (stem = cut(s, "a") + "on");
-
-        // -um to -a
-        if (categoryUM_A.contains(s)) return (stem = cut(s, "a") + "um");
-
-        // -x to -ices
-        if (categoryIX_ICES.contains(s)) return (stem = cut(s, "ices") + "ix");
-
-        // -o to -i
-        if (categoryO_I.contains(s)) return (stem = cut(s, "i") + "o");
-
-        // -se to ses
-        if (categorySE_SES.contains(s)) return (stem = cut(s, "s"));
-
-        // -is to -es
-        if (categoryIS_ES.contains(s) || s.endsWith("theses")) return (stem = cut(s, "es") + "is");
-
-        // -us to -i
-        if (categoryUS_I.contains(s)) return (stem = cut(s, "i") + "us");
-        //Wrong plural
-        if (s.endsWith("uses") && (categoryUS_I.contains(cut(s, "uses") + "i") || s.equals("genuses") || s.equals("corpuses")))
-            return (stem = cut(s, "es"));
-
-        // -ex to -ices
-        if (categoryEX_ICES.contains(s)) return (stem = cut(s, "ices") + "ex");
-
-        // Words that do not inflect in the plural
-        if (s.endsWith("ois") || s.endsWith("itis") || category00.contains(s) || categoryICS.contains(s))
-            return (stem = s);
-
-        // -en to -ina
-        // No other common words end in -ina
-        if (s.endsWith("ina")) return (stem = cut(s, "en"));
-
-        // -a to -ae
-        // No other common words end in -ae
-        if (s.endsWith("ae")) return (stem = cut(s, "e"));
-
-        // -a to -ata
-        // No other common words end in -ata
-        if (s.endsWith("ata")) return (stem = cut(s, "ta"));
-
-        // trix to -trices
-        // No common word ends with -trice(s)
-        if (s.endsWith("trices")) return (stem = cut(s, "trices") + "trix");
-
-        // -us to -us
-        //No other common word ends in -us, except for false plurals of French words
-        //Catch words that are not latin or known to end in -u
-        if (s.endsWith("us") && !s.endsWith("eaus") && !s.endsWith("ieus") && !noLatin(s) && !categoryU_US.contains(s))
-            return (stem = s);
-
-        // -tooth to -teeth
-        // -goose to -geese
-        // -foot to -feet
-        // -zoon to -zoa
-        //No other common words end with the indicated suffixes
-        if (s.endsWith("teeth")) return (stem = cut(s, "teeth") + "tooth");
-        if (s.endsWith("geese")) return (stem = cut(s, "geese") + "goose");
-        if (s.endsWith("feet")) return (stem = cut(s, "feet") + "foot");
-        if (s.endsWith("zoa")) return (stem = cut(s, "zoa") + "zoon");
-
-        // -eau to -eaux
-        //No other common words end in eaux
-        if (s.endsWith("eaux")) return (stem = cut(s, "x"));
-
-        // -ieu to -ieux
-        //No other common words end in ieux
-        if (s.endsWith("ieux")) return (stem = cut(s, "x"));
-
-        // -nx to -nges
-        // Pay attention not to kill words ending in -nge with plural -nges
-        // Take only Greek words (works fine, only a handfull of exceptions)
-        if (s.endsWith("nges") && greek(s)) return (stem = cut(s, "nges") + "nx");
-
-        // -[sc]h to -[sc]hes
-        //No other common word ends with "shes", "ches" or "she(s)"
-        //Quite a lot end with "che(s)", filter them out
-        if (s.endsWith("shes") || s.endsWith("ches") && !categoryCHE_CHES.contains(s)) return (stem = cut(s, "es"));
-
-        // -ss to -sses
-        // No other common singular word ends with "sses"
-        // Filter out those ending in "sse(s)"
-        if (s.endsWith("sses") && !categorySSE_SSES.contains(s) && !s.endsWith("mousses")) return (stem = cut(s, "es"));
-
-        // -x to -xes
-        // No other common word ends with "xe(s)" except for "axe"
-        if (s.endsWith("xes") && !s.equals("axes")) return (stem = cut(s, "es"));
-
-        // -[nlw]ife to -[nlw]ives
-        //No other common word ends with "[nlw]ive(s)" except for olive
-        if (s.endsWith("nives") || s.endsWith("lives") && !s.endsWith("olives") || s.endsWith("wives"))
-            return (stem = cut(s, "ves") + "fe");
-
-        // -[aeo]lf to -ves  exceptions: valve, solve
-        // -[^d]eaf to -ves  exceptions: heave, weave
-        // -arf to -ves      no exception
-        if (s.endsWith("alves") && !s.endsWith("valves") || s.endsWith("olves") && !s.endsWith("solves")
-                || s.endsWith("eaves") && !s.endsWith("heaves") && !s.endsWith("weaves") || s.endsWith("arves"))
-            return (stem = cut(s, "ves") + "f");
-
-        // -y to -ies
-        // -ies is very uncommon as a singular suffix
-        // but -ie is quite common, filter them out
-        if (s.endsWith("ies") && !categoryIE_IES.contains(s)) return (stem = cut(s, "ies") + "y");
-
-        // -o to -oes
-        // Some words end with -oe, so don't kill the "e"
-        if (s.endsWith("oes") && !categoryOE_OES.contains(s)) return (stem = cut(s, "es"));
-
-        // -s to -ses
-        // -z to -zes
-        // no words end with "-ses" or "-zes" in singular
-        if (s.endsWith("ses") || s.endsWith("zes")) return (stem = cut(s, "es"));
-
-        // - to -s
-        if (s.endsWith("s") && !s.endsWith("ss") && !s.endsWith("is")) return (stem = cut(s, "s"));
-
-        return stem;
+        return PluralAutomaton.apply(automaton.classify(s), s);
     }
 
     /**
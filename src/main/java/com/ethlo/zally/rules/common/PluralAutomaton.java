@@ -0,0 +1,466 @@
+package com.ethlo.zally.rules.common;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The word categories and suffix rules of {@link PlingStemmer#stem(String)}, compiled into one trie of reversed words
+ * and suffixes. A word is classified by walking it from the last character to the first, collecting the categories
+ * and suffixes it matches, and then applying the rules of the stemmer to those flags in their original order. The walk
+ * also notes the letters the stemmer looks for to tell Latin and Greek words apart, so a word is read once and
+ * nothing is allocated.
+ */
+final class PluralAutomaton
+{
+    // Rules of the stemmer, in the order they are tried
+    static final int IRREGULAR = 0;
+    static final int IRREGULAR_SAME = 1;
+    static final int ON_A = 2;
+    static final int UM_A = 3;
+    static final int IX_ICES = 4;
+    static final int O_I = 5;
+    static final int SE_SES = 6;
+    static final int IS_ES = 7;
+    static final int US_I = 8;
+    static final int US_USES = 9;
+    static final int EX_ICES = 10;
+    static final int INVARIANT = 11;
+    static final int EN_INA = 12;
+    static final int A_AE = 13;
+    static final int A_ATA = 14;
+    static final int TRIX_TRICES = 15;
+    static final int US_US = 16;
+    static final int TOOTH_TEETH = 17;
+    static final int GOOSE_GEESE = 18;
+    static final int FOOT_FEET = 19;
+    static final int ZOON_ZOA = 20;
+    static final int EAU_EAUX = 21;
+    static final int IEU_IEUX = 22;
+    static final int NX_NGES = 23;
+    static final int H_HES = 24;
+    static final int SS_SSES = 25;
+    static final int X_XES = 26;
+    static final int FE_VES = 27;
+    static final int F_VES = 28;
+    static final int Y_IES = 29;
+    static final int O_OES = 30;
+    static final int SES_ZES = 31;
+    static final int PLURAL_S = 32;
+    static final int NONE = 33;
+
+    // Characters cut from the end of the word, and appended after, per rule. Rules cutting nothing keep the word
+    private static final int[] CUT = {0, 0, 1, 1, 4, 1, 1, 2, 1, 2, 4, 0, 2, 1, 2, 6, 0, 5, 5, 4, 3, 1, 1, 4, 2, 2, 2, 3, 3, 3, 2, 2, 1, 0};
+    private static final String[] APPEND = {"", "", "on", "um", "ix", "o", "", "is", "us", "", "ex", "", "", "", "", "trix", "", "tooth", "goose", "foot", "zoon", "", "", "nx", "", "", "", "fe", "f", "y", "", "", "", ""};
+
+    // Whole words
+    private static final int W_IRREGULAR = 1;
+    private static final int W_IRREGULAR_SAME = 1 << 1;
+    private static final int W_ON_A = 1 << 2;
+    private static final int W_UM_A = 1 << 3;
+    private static final int W_IX_ICES = 1 << 4;
+    private static final int W_O_I = 1 << 5;
+    private static final int W_SE_SES = 1 << 6;
+    private static final int W_IS_ES = 1 << 7;
+    private static final int W_US_I = 1 << 8;
+    private static final int W_US_USES = 1 << 9;
+    private static final int W_EX_ICES = 1 << 10;
+    private static final int W_00 = 1 << 11;
+    private static final int W_ICS = 1 << 12;
+    private static final int W_U_US = 1 << 13;
+    private static final int W_CHE_CHES = 1 << 14;
+    private static final int W_SSE_SSES = 1 << 15;
+    private static final int W_IE_IES = 1 << 16;
+    private static final int W_OE_OES = 1 << 17;
+    private static final int W_AXES = 1 << 18;
+    private static final int W_SING_AND_PLUR = 1 << 19;
+
+    // Suffixes, in the order of SUFFIXES
+    private static final String[] SUFFIXES = {"theses", "uses", "ois", "itis", "ina", "ae", "ata", "trices", "us", "eaus", "ieus", "aus",
+            "teeth", "geese", "feet", "zoa", "eaux", "ieux", "nges", "shes", "ches", "sses", "mousses", "xes", "nives", "lives", "olives", "wives",
+            "alves", "valves", "olves", "solves", "eaves", "heaves", "weaves", "arves", "ies", "oes", "ses", "zes", "s", "ss", "is"};
+    private static final long S_THESES = suffix("theses");
+    private static final long S_USES = suffix("uses");
+    private static final long S_OIS = suffix("ois");
+    private static final long S_ITIS = suffix("itis");
+    private static final long S_INA = suffix("ina");
+    private static final long S_AE = suffix("ae");
+    private static final long S_ATA = suffix("ata");
+    private static final long S_TRICES = suffix("trices");
+    private static final long S_US = suffix("us");
+    private static final long S_EAUS = suffix("eaus");
+    private static final long S_IEUS = suffix("ieus");
+    private static final long S_AUS = suffix("aus");
+    private static final long S_TEETH = suffix("teeth");
+    private static final long S_GEESE = suffix("geese");
+    private static final long S_FEET = suffix("feet");
+    private static final long S_ZOA = suffix("zoa");
+    private static final long S_EAUX = suffix("eaux");
+    private static final long S_IEUX = suffix("ieux");
+    private static final long S_NGES = suffix("nges");
+    private static final long S_SHES = suffix("shes");
+    private static final long S_CHES = suffix("ches");
+    private static final long S_SSES = suffix("sses");
+    private static final long S_MOUSSES = suffix("mousses");
+    private static final long S_XES = suffix("xes");
+    private static final long S_NIVES = suffix("nives");
+    private static final long S_LIVES = suffix("lives");
+    private static final long S_OLIVES = suffix("olives");
+    private static final long S_WIVES = suffix("wives");
+    private static final long S_ALVES = suffix("alves");
+    private static final long S_VALVES = suffix("valves");
+    private static final long S_OLVES = suffix("olves");
+    private static final long S_SOLVES = suffix("solves");
+    private static final long S_EAVES = suffix("eaves");
+    private static final long S_HEAVES = suffix("heaves");
+    private static final long S_WEAVES = suffix("weaves");
+    private static final long S_ARVES = suffix("arves");
+    private static final long S_IES = suffix("ies");
+    private static final long S_OES = suffix("oes");
+    private static final long S_SES = suffix("ses");
+    private static final long S_ZES = suffix("zes");
+    private static final long S_S = suffix("s");
+    private static final long S_SS = suffix("ss");
+    private static final long S_IS = suffix("is");
+
+    // Letters and pairs of letters found after the first position, see PlingStemmer.noLatin and greek
+    private static final int L_H = 1;
+    private static final int L_J = 1 << 1;
+    private static final int L_K = 1 << 2;
+    private static final int L_W = 1 << 3;
+    private static final int L_Y = 1 << 4;
+    private static final int L_Z = 1 << 5;
+    private static final int L_OU = 1 << 6;
+    private static final int L_SH = 1 << 7;
+    private static final int L_CH = 1 << 8;
+    private static final int L_PH = 1 << 9;
+    private static final int NOT_LATIN = L_H | L_J | L_K | L_W | L_Y | L_Z | L_OU | L_SH | L_CH;
+
+    // The trie. The edges of node n are edgeLabels and edgeTargets from firstEdge[n] to firstEdge[n + 1]
+    private final int[] firstEdge;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final int[] words;
+    private final long[] suffixes;
+
+    private PluralAutomaton(final Builder builder)
+    {
+        final int nodes = builder.children.size();
+        this.firstEdge = new int[nodes + 1];
+        int edges = 0;
+        for (int node = 0; node < nodes; node++)
+        {
+            firstEdge[node] = edges;
+            edges += builder.children.get(node).size();
+        }
+        firstEdge[nodes] = edges;
+
+        this.edgeLabels = new char[edges];
+        this.edgeTargets = new int[edges];
+        for (int node = 0; node < nodes; node++)
+        {
+            int edge = firstEdge[node];
+            for (Map.Entry<Character, Integer> child : builder.children.get(node).entrySet())
+            {
+                edgeLabels[edge] = child.getKey();
+                edgeTargets[edge++] = child.getValue();
+            }
+        }
+        this.words = builder.words.stream().mapToInt(Integer::intValue).toArray();
+        this.suffixes = builder.suffixes.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Compiles the categories of the stemmer as they are when called
+     */
+    static PluralAutomaton compile()
+    {
+        final Builder builder = new Builder();
+        for (Map.Entry<String, String> entry : PlingStemmer.irregular.entrySet())
+        {
+            builder.addWord(entry.getKey(), entry.getKey().equals(entry.getValue()) ? W_IRREGULAR_SAME : W_IRREGULAR);
+        }
+        builder.addWords(PlingStemmer.categoryON_A, W_ON_A);
+        builder.addWords(PlingStemmer.categoryUM_A, W_UM_A);
+        builder.addWords(PlingStemmer.categoryIX_ICES, W_IX_ICES);
+        builder.addWords(PlingStemmer.categoryO_I, W_O_I);
+        builder.addWords(PlingStemmer.categorySE_SES, W_SE_SES);
+        builder.addWords(PlingStemmer.categoryIS_ES, W_IS_ES);
+        builder.addWords(PlingStemmer.categoryUS_I, W_US_I);
+        for (String word : PlingStemmer.categoryUS_I)
+        {
+            // The wrong plural in -uses of a word in -i
+            builder.addWord(PlingStemmer.cut(word, "i") + "uses", W_US_USES);
+        }
+        builder.addWord("genuses", W_US_USES);
+        builder.addWord("corpuses", W_US_USES);
+        builder.addWords(PlingStemmer.categoryEX_ICES, W_EX_ICES);
+        builder.addWords(PlingStemmer.category00, W_00);
+        builder.addWords(PlingStemmer.categoryICS, W_ICS);
+        builder.addWords(PlingStemmer.categoryU_US, W_U_US);
+        builder.addWords(PlingStemmer.categoryCHE_CHES, W_CHE_CHES);
+        builder.addWords(PlingStemmer.categorySSE_SSES, W_SSE_SSES);
+        builder.addWords(PlingStemmer.categoryIE_IES, W_IE_IES);
+        builder.addWords(PlingStemmer.categoryOE_OES, W_OE_OES);
+        builder.addWord("axes", W_AXES);
+        builder.addWords(PlingStemmer.singAndPlur, W_SING_AND_PLUR);
+        for (String suffix : SUFFIXES)
+        {
+            builder.addSuffix(suffix, suffix(suffix));
+        }
+        return new PluralAutomaton(builder);
+    }
+
+    /**
+     * @return The rule of the stemmer that applies to the word
+     */
+    int classify(final CharSequence s)
+    {
+        final int length = s.length();
+        int node = 0;
+        int wordFlags = 0;
+        long suffixFlags = 0;
+        int letters = 0;
+        int first = 0;
+        char next = 0;
+        for (int i = length - 1; i >= 0; i--)
+        {
+            final char c = s.charAt(i);
+            if (node >= 0)
+            {
+                node = child(node, c);
+                if (node >= 0)
+                {
+                    suffixFlags |= suffixes[node];
+                    if (i == 0)
+                    {
+                        wordFlags = words[node];
+                    }
+                }
+            }
+
+            // Letters found at the start do not count, as indexOf(...) > 0 only sees the first occurrence
+            final int found = letter(c) | pair(c, next);
+            if (i == 0)
+            {
+                first = found;
+            }
+            letters |= found;
+            next = c;
+        }
+        return apply(wordFlags, suffixFlags, letters & ~first);
+    }
+
+    /**
+     * @return <code>true</code> if the word, in lower case, is both a singular and a plural form
+     */
+    boolean isSingularAndPlural(final CharSequence s)
+    {
+        int node = 0;
+        for (int i = s.length() - 1; i >= 0 && node >= 0; i--)
+        {
+            node = child(node, Character.toLowerCase(s.charAt(i)));
+        }
+        return node >= 0 && (words[node] & W_SING_AND_PLUR) != 0;
+    }
+
+    static boolean changes(final int rule)
+    {
+        return rule == IRREGULAR || CUT[rule] > 0;
+    }
+
+    static String apply(final int rule, final String s)
+    {
+        if (rule == IRREGULAR)
+        {
+            return PlingStemmer.irregular.get(s);
+        }
+        if (CUT[rule] == 0)
+        {
+            return s;
+        }
+        return s.substring(0, s.length() - CUT[rule]) + APPEND[rule];
+    }
+
+    private static int apply(final int w, final long s, final int letters)
+    {
+        if ((w & W_IRREGULAR) != 0) return IRREGULAR;
+        if ((w & W_IRREGULAR_SAME) != 0) return IRREGULAR_SAME;
+        if ((w & W_ON_A) != 0) return ON_A;
+        if ((w & W_UM_A) != 0) return UM_A;
+        if ((w & W_IX_ICES) != 0) return IX_ICES;
+        if ((w & W_O_I) != 0) return O_I;
+        if ((w & W_SE_SES) != 0) return SE_SES;
+        if ((w & W_IS_ES) != 0 || has(s, S_THESES)) return IS_ES;
+        if ((w & W_US_I) != 0) return US_I;
+        if (has(s, S_USES) && (w & W_US_USES) != 0) return US_USES;
+        if ((w & W_EX_ICES) != 0) return EX_ICES;
+        if (has(s, S_OIS) || has(s, S_ITIS) || (w & (W_00 | W_ICS)) != 0) return INVARIANT;
+        if (has(s, S_INA)) return EN_INA;
+        if (has(s, S_AE)) return A_AE;
+        if (has(s, S_ATA)) return A_ATA;
+        if (has(s, S_TRICES)) return TRIX_TRICES;
+        final boolean notLatin = (letters & NOT_LATIN) != 0 || has(s, S_AUS);
+        if (has(s, S_US) && !has(s, S_EAUS) && !has(s, S_IEUS) && !notLatin && (w & W_U_US) == 0) return US_US;
+        if (has(s, S_TEETH)) return TOOTH_TEETH;
+        if (has(s, S_GEESE)) return GOOSE_GEESE;
+        if (has(s, S_FEET)) return FOOT_FEET;
+        if (has(s, S_ZOA)) return ZOON_ZOA;
+        if (has(s, S_EAUX)) return EAU_EAUX;
+        if (has(s, S_IEUX)) return IEU_IEUX;
+        final boolean greek = (letters & L_PH) != 0 || (letters & L_Y) != 0 && has(s, S_NGES);
+        if (has(s, S_NGES) && greek) return NX_NGES;
+        if (has(s, S_SHES) || has(s, S_CHES) && (w & W_CHE_CHES) == 0) return H_HES;
+        if (has(s, S_SSES) && (w & W_SSE_SSES) == 0 && !has(s, S_MOUSSES)) return SS_SSES;
+        if (has(s, S_XES) && (w & W_AXES) == 0) return X_XES;
+        if (has(s, S_NIVES) || has(s, S_LIVES) && !has(s, S_OLIVES) || has(s, S_WIVES)) return FE_VES;
+        if (has(s, S_ALVES) && !has(s, S_VALVES) || has(s, S_OLVES) && !has(s, S_SOLVES)
+                || has(s, S_EAVES) && !has(s, S_HEAVES) && !has(s, S_WEAVES) || has(s, S_ARVES)) return F_VES;
+        if (has(s, S_IES) && (w & W_IE_IES) == 0) return Y_IES;
+        if (has(s, S_OES) && (w & W_OE_OES) == 0) return O_OES;
+        if (has(s, S_SES) || has(s, S_ZES)) return SES_ZES;
+        if (has(s, S_S) && !has(s, S_SS) && !has(s, S_IS)) return PLURAL_S;
+        return NONE;
+    }
+
+    private int child(final int node, final char c)
+    {
+        for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++)
+        {
+            if (edgeLabels[edge] == c)
+            {
+                return edgeTargets[edge];
+            }
+        }
+        return -1;
+    }
+
+    private static boolean has(final long flags, final long suffix)
+    {
+        return (flags & suffix) != 0;
+    }
+
+    private static long suffix(final String suffix)
+    {
+        for (int i = 0; i < SUFFIXES.length; i++)
+        {
+            if (SUFFIXES[i].equals(suffix))
+            {
+                return 1L << i;
+            }
+        }
+        throw new IllegalArgumentException(suffix);
+    }
+
+    private static int letter(final char c)
+    {
+        switch (c)
+        {
+            case 'h':
+                return L_H;
+            case 'j':
+                return L_J;
+            case 'k':
+                return L_K;
+            case 'w':
+                return L_W;
+            case 'y':
+                return L_Y;
+            case 'z':
+                return L_Z;
+            default:
+                return 0;
+        }
+    }
+
+    private static int pair(final char c, final char next)
+    {
+        if (c == 'o' && next == 'u') return L_OU;
+        if (next == 'h')
+        {
+            if (c == 's') return L_SH;
+            if (c == 'c') return L_CH;
+            if (c == 'p') return L_PH;
+        }
+        return 0;
+    }
+
+    private static class Builder
+    {
+        private final List<Map<Character, Integer>> children = new ArrayList<>();
+        private final List<Integer> words = new ArrayList<>();
+        private final List<Long> suffixes = new ArrayList<>();
+
+        private Builder()
+        {
+            newNode();
+        }
+
+        private void addWords(final Collection<String> category, final int flag)
+        {
+            category.forEach(word -> addWord(word, flag));
+        }
+
+        private void addWord(final String word, final int flag)
+        {
+            final int node = addReversed(word);
+            words.set(node, words.get(node) | flag);
+        }
+
+        private void addSuffix(final String suffix, final long flag)
+        {
+            final int node = addReversed(suffix);
+            suffixes.set(node, suffixes.get(node) | flag);
+        }
+
+        private int addReversed(final String value)
+        {
+            int node = 0;
+            for (int i = value.length() - 1; i >= 0; i--)
+            {
+                final Integer child = children.get(node).get(value.charAt(i));
+                if (child != null)
+                {
+                    node = child;
+                }
+                else
+                {
+                    final int created = newNode();
+                    children.get(node).put(value.charAt(i), created);
+                    node = created;
+                }
+            }
+            return node;
+        }
+
+        private int newNode()
+        {
+            children.add(new TreeMap<>());
+            words.add(0);
+            suffixes.add(0L);
+            return children.size() - 1;
+        }
+    }
+}
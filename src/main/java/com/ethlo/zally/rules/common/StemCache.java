@@ -0,0 +1,131 @@
+package com.ethlo.zally.rules.common;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoized {@link PlingStemmer} classification of words, as the same property and schema names are checked by every
+ * naming rule and in every specification of a build. Each word is classified once and both its stem and whether it is
+ * plural, singular or both follow from that. Safe for concurrent use. When the number of words reaches the limit the
+ * cache is cleared, which keeps it bounded without the cost of tracking recency on every lookup.
+ */
+public class StemCache
+{
+    public static final int DEFAULT_MAX_SIZE = 16 * 1024;
+
+    private static final StemCache shared = new StemCache(DEFAULT_MAX_SIZE);
+
+    private static final int SINGULAR_AND_PLURAL = 1 << 16;
+
+    private final int maxSize;
+    private final Map<String, Integer> words = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StemCache(final int maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return The cache shared by all rules in this class loader
+     */
+    public static StemCache getShared()
+    {
+        return shared;
+    }
+
+    /**
+     * @see PlingStemmer#stem(String)
+     */
+    public String stem(final String word)
+    {
+        return PluralAutomaton.apply(rule(word), word);
+    }
+
+    /**
+     * @see PlingStemmer#isPlural(String)
+     */
+    public boolean isPlural(final String word)
+    {
+        return PluralAutomaton.changes(rule(word));
+    }
+
+    /**
+     * @see PlingStemmer#isSingular(String)
+     */
+    public boolean isSingular(final String word)
+    {
+        final int classification = classify(word);
+        return (classification & SINGULAR_AND_PLURAL) != 0 || !PluralAutomaton.changes(classification & ~SINGULAR_AND_PLURAL);
+    }
+
+    /**
+     * @see PlingStemmer#isSingularAndPlural(String)
+     */
+    public boolean isSingularAndPlural(final String word)
+    {
+        return (classify(word) & SINGULAR_AND_PLURAL) != 0;
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    public int size()
+    {
+        return words.size();
+    }
+
+    private int rule(final String word)
+    {
+        return classify(word) & ~SINGULAR_AND_PLURAL;
+    }
+
+    private int classify(final String word)
+    {
+        final Integer cached = words.get(word);
+        if (cached != null)
+        {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        final PluralAutomaton automaton = PlingStemmer.automaton;
+        final int classification = automaton.classify(word) | (automaton.isSingularAndPlural(word) ? SINGULAR_AND_PLURAL : 0);
+        if (words.size() >= maxSize)
+        {
+            words.clear();
+        }
+        words.put(word, classification);
+        return classification;
+    }
+}
@@ -0,0 +1,129 @@
+package com.ethlo.zally.rules.common;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map between words with constant time lookups through a {@link PerfectHash}. Iteration order is
+ * unspecified.
+ * <PRE>
+ * WordMap m=new WordMap("oxen","ox","mice","mouse");
+ * System.out.println(m.get("mice"));
+ * --&gt; mouse
+ * </PRE>
+ */
+public final class WordMap extends AbstractMap<String, String>
+{
+    private final PerfectHash hash;
+    private final String[] values;
+
+    /**
+     * @param keysAndValues Alternating keys and values
+     */
+    public WordMap(final String... keysAndValues)
+    {
+        if (keysAndValues.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("Missing value for key " + keysAndValues[keysAndValues.length - 1]);
+        }
+
+        final Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            if (entries.put(keysAndValues[i], keysAndValues[i + 1]) != null)
+            {
+                throw new IllegalArgumentException("Duplicate key in WordMap: " + keysAndValues[i]);
+            }
+        }
+
+        this.hash = new PerfectHash(entries.keySet().toArray(new String[0]));
+        this.values = new String[hash.size()];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = entries.get(hash.key(i));
+        }
+    }
+
+    @Override
+    public String get(final Object key)
+    {
+        final int index = hash.indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key)
+    {
+        return hash.indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return values.length;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet()
+    {
+        return new AbstractSet<>()
+        {
+            @Override
+            public Iterator<Entry<String, String>> iterator()
+            {
+                return new Iterator<>()
+                {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        final int index = next++;
+                        return new SimpleImmutableEntry<>(hash.key(index), values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return values.length;
+            }
+        };
+    }
+}
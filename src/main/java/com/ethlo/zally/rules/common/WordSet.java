@@ -0,0 +1,78 @@
+package com.ethlo.zally.rules.common;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of words with constant time lookups through a {@link PerfectHash}. Duplicate words are ignored.
+ * Iteration order is unspecified.
+ */
+public final class WordSet extends AbstractSet<String>
+{
+    private final PerfectHash hash;
+
+    public WordSet(final String... words)
+    {
+        this.hash = new PerfectHash(new LinkedHashSet<>(Arrays.asList(words)).toArray(new String[0]));
+    }
+
+    @Override
+    public boolean contains(final Object word)
+    {
+        return hash.indexOf(word) >= 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return hash.size();
+    }
+
+    @Override
+    public Iterator<String> iterator()
+    {
+        return new Iterator<>()
+        {
+            private int next;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < hash.size();
+            }
+
+            @Override
+            public String next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return hash.key(next++);
+            }
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.PathParameter;
+import io.swagger.v3.oas.models.parameters.QueryParameter;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+
+public class ApiInventoryTest
+{
+    @Test
+    public void listsOperationsOfSpecification() throws IOException
+    {
+        final OpenAPI openAPI = new ModelCache().get("modified_petstore/petstore.yaml", Resolution.NONE);
+        final StringWriter out = new StringWriter();
+        final ApiInventory inventory = new ApiInventory(openAPI);
+        inventory.write("petstore", InventoryFormat.JSON, out);
+
+        final JsonNode json = new ObjectMapper().readTree(out.toString());
+        assertThat(json.path("source").asText()).isEqualTo("petstore");
+        assertThat(json.path("operations")).hasSize(4);
+        assertThat(json.path("summary").path("operations").asInt()).isEqualTo(inventory.getOperations()).isEqualTo(4);
+        final JsonNode listPets = json.path("operations").findParents("operationId").stream()
+                .filter(node -> node.path("operationId").asText().equals("listPets"))
+                .findFirst().orElseThrow();
+        assertThat(listPets.path("method").asText()).isEqualTo("GET");
+        assertThat(listPets.path("path").asText()).isEqualTo("/pets");
+        assertThat(listPets.path("schemaDepth").asInt()).isGreaterThan(1);
+    }
+
+    @Test
+    public void sameInventoryForAnyResolution() throws IOException
+    {
+        final String expected = inventoryOf(new ModelCache().get("modified_petstore/petstore.yaml", Resolution.NONE));
+        assertThat(inventoryOf(new ModelCache().get("modified_petstore/petstore.yaml", Resolution.FULL))).isEqualTo(expected);
+        assertThat(inventoryOf(new ModelCache().get("modified_petstore/petstore.yaml", Resolution.LAZY))).isEqualTo(expected);
+    }
+
+    @Test
+    public void followsReferencesAndCycles() throws IOException
+    {
+        final Schema<?> node = new ObjectSchema()
+                .addProperty("name", new StringSchema())
+                .addProperty("children", new ArraySchema().items(new Schema<>().$ref("#/components/schemas/Node")));
+        final Schema<?> tree = new ObjectSchema().addProperty("root", new Schema<>().$ref("#/components/schemas/Node"));
+        final Operation operation = new Operation()
+                .operationId("getTree")
+                .tags(Arrays.asList("trees", "a,b"))
+                .deprecated(true)
+                .addParametersItem(new QueryParameter().name("depth"))
+                .responses(new ApiResponses()
+                        .addApiResponse("200", new ApiResponse().content(new Content().addMediaType("application/json", new MediaType().schema(tree))))
+                        .addApiResponse("404", new ApiResponse().description("Not found")));
+        final OpenAPI openAPI = new OpenAPI()
+                .components(new Components().addSchemas("Node", node))
+                .paths(new Paths().addPathItem("/trees/{id}", new PathItem().get(operation).addParametersItem(new QueryParameter().name("id"))));
+
+        final StringWriter out = new StringWriter();
+        final ApiInventory inventory = new ApiInventory(openAPI);
+        inventory.write("trees.yaml", InventoryFormat.CSV, out);
+
+        // Tree, root Node, children array, then the Node reference back into itself
+        assertThat(out.toString()).isEqualTo("source,path,method,operationId,tags,parameters,responses,schemaDepth,deprecated\n"
+                + "trees.yaml,/trees/{id},GET,getTree,\"trees;a,b\",2,2,4,true\n");
+        assertThat(inventory.getDeprecated()).isEqualTo(1);
+        assertThat(inventory.getMaxSchemaDepth()).isEqualTo(4);
+    }
+
+    @Test
+    public void measuresCyclesTheSameInAnyOrder() throws IOException
+    {
+        // A and B refer to each other, so the depth of each depends on where the cycle is entered, never on what was
+        // measured before
+        final String header = "source,path,method,operationId,tags,parameters,responses,schemaDepth,deprecated";
+        assertThat(inventoryOf(cyclicApi("A", "B")).split("\n"))
+                .containsExactly(header, "cycle.yaml,/A,GET,getA,,0,1,4,false", "cycle.yaml,/B,GET,getB,,0,1,3,false");
+        assertThat(inventoryOf(cyclicApi("B", "A")).split("\n"))
+                .containsExactly(header, "cycle.yaml,/B,GET,getB,,0,1,3,false", "cycle.yaml,/A,GET,getA,,0,1,4,false");
+    }
+
+    @Test
+    public void operationParametersOverridePathParameters() throws IOException
+    {
+        final Operation operation = new Operation()
+                .operationId("getThing")
+                .addParametersItem(new PathParameter().name("id").description("Overrides the path parameter"))
+                .addParametersItem(new QueryParameter().name("id"))
+                .addParametersItem(new Parameter().$ref("#/components/parameters/Limit"))
+                .responses(new ApiResponses().addApiResponse("200", new ApiResponse().description("OK")));
+        final PathItem pathItem = new PathItem()
+                .get(operation)
+                .addParametersItem(new PathParameter().name("id"))
+                .addParametersItem(new QueryParameter().name("limit"))
+                .addParametersItem(new QueryParameter().name("sort"));
+        final OpenAPI openAPI = new OpenAPI()
+                .components(new Components().addParameters("Limit", new QueryParameter().name("limit")))
+                .paths(new Paths().addPathItem("/things/{id}", pathItem));
+
+        // path id, query id, query limit and query sort
+        assertThat(inventoryOf(openAPI)).endsWith(",getThing,,4,1,0,false\n");
+    }
+
+    private static OpenAPI cyclicApi(final String... order)
+    {
+        final Components components = new Components()
+                .addSchemas("A", new ObjectSchema().addProperty("b", new Schema<>().$ref("#/components/schemas/B")))
+                .addSchemas("B", new ObjectSchema()
+                        .addProperty("a", new Schema<>().$ref("#/components/schemas/A"))
+                        .addProperty("c", new Schema<>().$ref("#/components/schemas/C")))
+                .addSchemas("C", new ObjectSchema().addProperty("name", new StringSchema()));
+        final Paths paths = new Paths();
+        for (String name : order)
+        {
+            final Operation operation = new Operation()
+                    .operationId("get" + name)
+                    .responses(new ApiResponses().addApiResponse("200", new ApiResponse()
+                            .content(new Content().addMediaType("application/json", new MediaType().schema(new Schema<>().$ref("#/components/schemas/" + name))))));
+            paths.addPathItem("/" + name, new PathItem().get(operation));
+        }
+        return new OpenAPI().components(components).paths(paths);
+    }
+
+    private static String inventoryOf(final OpenAPI openAPI) throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        new ApiInventory(openAPI).write("cycle.yaml", InventoryFormat.CSV, out);
+        return out.toString();
+    }
+}
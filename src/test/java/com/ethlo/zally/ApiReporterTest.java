@@ -0,0 +1,98 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+
+import io.swagger.models.Method;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+
+public class ApiReporterTest
+{
+    @Test
+    public void rendersPathTree() throws IOException
+    {
+        final OpenAPI openAPI = new ModelCache().get("modified_petstore/petstore.yaml", Resolution.NONE);
+        final String expected = String.join(System.lineSeparator(),
+                "",
+                "    ├── orders",
+                "    │   └── {orderId}",
+                "    │       └── PUT - updateOrder",
+                "    └── pets",
+                "        ├── GET - listPets",
+                "        ├── POST - createPets",
+                "        └── {petId}",
+                "            └── GET - showPetById",
+                "");
+        assertThat(new ApiReporter(openAPI).render()).isEqualTo(expected);
+
+        final StringWriter writer = new StringWriter();
+        new ApiReporter(openAPI).render(writer);
+        assertThat(writer.toString()).isEqualTo(expected);
+    }
+
+    @Test
+    public void streamsLinesToLog()
+    {
+        final Paths paths = new Paths();
+        for (int i = 0; i < 5000; i++)
+        {
+            paths.addPathItem("/resources" + (i % 50) + "/items/" + i, new PathItem().get(new Operation().operationId("get" + i)));
+        }
+        final List<String> lines = new ArrayList<>();
+        new ApiReporter(new OpenAPI().paths(paths)).render(new SystemStreamLog()
+        {
+            @Override
+            public void info(final CharSequence content)
+            {
+                lines.add(content.toString());
+            }
+        });
+
+        // Root, one line per resource, items below each, then the id and the operation of every path
+        assertThat(lines).hasSize(1 + 50 * 2 + 5000 * 2);
+        assertThat(lines.get(1)).isEqualTo("    ├── resources0");
+        assertThat(lines.get(lines.size() - 1)).isEqualTo("                └── GET - get4999");
+    }
+
+    @Test
+    public void mergesSharedSegments()
+    {
+        final ApiReporter.Node root = new ApiReporter.Node("");
+        root.addPath("/a/b/", Method.GET, "first");
+        root.addPath("a//b/c", Method.POST, "second");
+        assertThat(root.getChildren()).hasSize(1);
+        final ApiReporter.Node b = root.getChildren().iterator().next().getChildren().iterator().next();
+        assertThat(b.getItem()).isEqualTo("b");
+        assertThat(b.getChildren()).extracting(ApiReporter.Node::getItem).containsExactly("GET - first", "c");
+    }
+}
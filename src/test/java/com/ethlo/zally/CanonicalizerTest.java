@@ -0,0 +1,157 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.typesafe.config.ConfigFactory;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+
+public class CanonicalizerTest
+{
+    @Test
+    public void sharesEqualSchemasAndStrings() throws IOException
+    {
+        final Path file = Files.createTempFile("zally-maven-plugin", ".yaml");
+        Files.writeString(file, "openapi: \"3.0.0\"\n"
+                + "info:\n  version: 1.0.0\n  title: Duplicates\n"
+                + "paths:\n"
+                + "  /first:\n" + operation()
+                + "  /second:\n" + operation());
+
+        final OpenApiParser parser = new OpenApiParser();
+        final OpenAPI openAPI = parser.inline(parser.parse(file.toString()));
+        final String before = Json.pretty(openAPI);
+        assertThat(schema(openAPI, "/first")).isNotSameAs(schema(openAPI, "/second"));
+
+        final Canonicalizer.Statistics statistics = parser.canonicalize(openAPI, Canonicalization.SCHEMAS);
+
+        assertThat(Json.pretty(openAPI)).isEqualTo(before);
+        assertThat(schema(openAPI, "/first")).isSameAs(schema(openAPI, "/second"));
+        assertThat(schema(openAPI, "/first").getProperties().get("name")).isSameAs(schema(openAPI, "/first").getProperties().get("owner"));
+        assertThat(openAPI.getPaths().get("/first").getGet().getResponses().get("200").getDescription())
+                .isSameAs(openAPI.getPaths().get("/second").getGet().getResponses().get("200").getDescription());
+        assertThat(statistics.getSchemas()).isPositive();
+        assertThat(statistics.getStrings()).isPositive();
+        assertThat(statistics.getBytesSaved()).isPositive();
+    }
+
+    @Test
+    public void sharesAcyclicSchemasVisitedAfterCycle()
+    {
+        final Schema<?> node = new ObjectSchema().addProperty("name", new StringSchema());
+        node.addProperty("parent", node);
+        final OpenAPI openAPI = new OpenAPI().paths(new Paths()
+                .addPathItem("/nodes", pathItem(node))
+                .addPathItem("/first", pathItem(new ObjectSchema().addProperty("id", new StringSchema())))
+                .addPathItem("/second", pathItem(new ObjectSchema().addProperty("id", new StringSchema()))));
+
+        final Canonicalizer.Statistics statistics = Canonicalizer.canonicalize(openAPI, Canonicalization.SCHEMAS);
+
+        assertThat(schema(openAPI, "/first")).isSameAs(schema(openAPI, "/second"));
+        assertThat(schema(openAPI, "/nodes")).isSameAs(node);
+        assertThat(node.getProperties().get("parent")).isSameAs(node);
+        // Both id schemas and the second object share with the name schema in the cycle and the first object
+        assertThat(statistics.getSchemas()).isEqualTo(3);
+        assertThat(schema(openAPI, "/first").getProperties().get("id")).isSameAs(node.getProperties().get("name"));
+    }
+
+    @Test
+    public void keepsSchemasWhenOnlySharingStrings() throws IOException
+    {
+        final OpenApiParser parser = new OpenApiParser();
+        final OpenAPI openAPI = parser.inline(parser.parse("modified_petstore/petstore.yaml"));
+        final Schema<?> before = openAPI.getComponents().getSchemas().get("Error");
+
+        final Canonicalizer.Statistics statistics = parser.canonicalize(openAPI, Canonicalization.STRINGS);
+
+        assertThat(statistics.getStrings()).isPositive();
+        assertThat(statistics.getSchemas()).isZero();
+        assertThat(openAPI.getComponents().getSchemas().get("Error")).isSameAs(before);
+    }
+
+    @Test
+    public void findsSameViolationsWhenSharingStrings() throws IOException
+    {
+        final String url = "modified_petstore/petstore.yaml";
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> plain = runner.validate(url, Collections.emptySet());
+
+        final ModelCache modelCache = new ModelCache();
+        runner.setModelCache(modelCache);
+        runner.setCanonicalization(Canonicalization.STRINGS);
+        final Map<CheckDetails, List<Result>> canonical = runner.validate(url, Collections.emptySet());
+
+        assertThat(canonical).isEqualTo(plain);
+        assertThat(modelCache.getStatistics(modelCache.get(url, Resolution.FULL, Canonicalization.STRINGS, Profiler.NONE))).isPresent();
+    }
+
+    @Test
+    public void estimatesStringSize()
+    {
+        assertThat(Canonicalizer.sizeOf("")).isEqualTo(40);
+        assertThat(Canonicalizer.sizeOf("application/json")).isEqualTo(56);
+    }
+
+    private static String operation()
+    {
+        return "    get:\n      responses:\n        '200':\n          description: OK\n"
+                + "          content:\n            application/json:\n              schema:\n"
+                + "                type: object\n                properties:\n"
+                + "                  name:\n                    type: string\n"
+                + "                  owner:\n                    type: string\n";
+    }
+
+    private static PathItem pathItem(final Schema<?> schema)
+    {
+        return new PathItem().get(new Operation().responses(new ApiResponses().addApiResponse("200", new ApiResponse()
+                .description("OK")
+                .content(new Content().addMediaType("application/json", new MediaType().schema(schema))))));
+    }
+
+    private static Schema<?> schema(final OpenAPI openAPI, final String path)
+    {
+        return openAPI.getPaths().get(path).getGet().getResponses().get("200").getContent().get("application/json").getSchema();
+    }
+}
@@ -0,0 +1,82 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.rule.api.Context;
+import org.zalando.zally.rule.api.Violation;
+
+import com.fasterxml.jackson.core.JsonPointer;
+
+public class CheckInvokerTest
+{
+    @Test
+    public void callsPublicCheck() throws Exception
+    {
+        final CheckInvoker invoker = CheckInvoker.of(new PublicRule(), PublicRule.class.getMethod("validate", Context.class), new SystemStreamLog());
+        assertThat(invoker).as("generated invoker").isNotInstanceOf(MethodHandleInvoker.class);
+        assertThat(invoker.invoke(null)).isEqualTo(Collections.singletonList(new Violation("public", JsonPointer.empty())));
+    }
+
+    @Test
+    public void callsCheckOfNonPublicRule() throws Exception
+    {
+        final CheckInvoker invoker = CheckInvoker.of(new HiddenRule(), HiddenRule.class.getDeclaredMethod("validate", Context.class), new SystemStreamLog());
+        assertThat(invoker).isInstanceOf(MethodHandleInvoker.class);
+        assertThat(invoker.invoke(null)).isEqualTo(new Violation("hidden", JsonPointer.empty()));
+    }
+
+    @Test
+    public void propagatesFailures() throws Exception
+    {
+        final Method method = HiddenRule.class.getDeclaredMethod("fail", Context.class);
+        assertThatThrownBy(() -> CheckInvoker.of(new HiddenRule(), method, new SystemStreamLog()).invoke(null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    public static class PublicRule
+    {
+        public List<Violation> validate(final Context context)
+        {
+            return Collections.singletonList(new Violation("public", JsonPointer.empty()));
+        }
+    }
+
+    private static class HiddenRule
+    {
+        private Violation validate(final Context context)
+        {
+            return new Violation("hidden", JsonPointer.empty());
+        }
+
+        private Violation fail(final Context context)
+        {
+            throw new IllegalStateException("Check failed");
+        }
+    }
+}
@@ -22,11 +22,16 @@ package com.ethlo.zally;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.junit.Test;
 
 import io.swagger.v3.core.model.ApiDescription;
+import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.Operation;
 
 public class ExtractMojoTest
@@ -63,4 +68,49 @@ public class ExtractMojoTest
     {
         assertThat(ExtractMojo.match(new OperationFilter("extensions", "x-foo"), operationData)).isTrue();
     }
+
+    @Test
+    public void testMatchTags()
+    {
+        final OperationData tagged = new OperationData(new Operation().tags(Arrays.asList("pets", "store")), new ApiDescription("/pets", "get"), Collections.emptyMap());
+        assertThat(ExtractMojo.match(new OperationFilter("tags", "store"), tagged)).isTrue();
+        assertThat(ExtractMojo.match(new OperationFilter("tags/0", "pets"), tagged)).isTrue();
+        assertThat(ExtractMojo.match(new OperationFilter("tags/1", "pets"), tagged)).isFalse();
+        assertThat(ExtractMojo.match(new OperationFilter("tags", "users"), tagged)).isFalse();
+    }
+
+    @Test
+    public void testMatchExtensionValue()
+    {
+        final Map<String, Object> extensions = new LinkedHashMap<>();
+        extensions.put("x-audience", "external-public");
+        extensions.put("x-nested", Collections.singletonMap("owner", Collections.singletonMap("team", "core")));
+        final OperationData data = new OperationData(new Operation(), new ApiDescription("/pets", "get"), extensions);
+
+        assertThat(ExtractMojo.match(new OperationFilter("extensions/x-audience", "external-.*"), data)).isTrue();
+        assertThat(ExtractMojo.match(new OperationFilter("extensions/x-nested", "owner"), data)).isTrue();
+        assertThat(ExtractMojo.match(new OperationFilter("extensions/x-nested/owner/team", "core"), data)).isTrue();
+        assertThat(ExtractMojo.match(new OperationFilter("extensions/x-missing", ".*"), data)).isFalse();
+        assertThat(ExtractMojo.match(new OperationFilter("deprecated", ".*"), data)).isFalse();
+    }
+
+    @Test
+    public void testExtractMultipleDefinitions()
+    {
+        final OpenAPI openAPI = new OpenApiParser().parse("modified_petstore/petstore.yaml");
+        final Map<String, ExtractionDefinition> definitions = new LinkedHashMap<>();
+        definitions.put("read", new ExtractionDefinition("Read", null, Collections.singletonList(new OperationFilter("method", "GET"))));
+        definitions.put("create", new ExtractionDefinition(null, "Create only", Collections.singletonList(new OperationFilter("operationId", "createPets"))));
+
+        final Map<String, OpenAPI> extracts = ExtractMojo.extract(new SystemStreamLog(), openAPI, definitions);
+
+        assertThat(extracts).containsOnlyKeys("read", "create");
+        assertThat(extracts.get("read").getInfo().getTitle()).isEqualTo("Read");
+        assertThat(extracts.get("read").getPaths()).containsKeys("/pets", "/pets/{petId}");
+        assertThat(extracts.get("read").getPaths().get("/pets").getPost()).isNull();
+        assertThat(extracts.get("create").getInfo().getTitle()).isEqualTo("Swagger Petstore");
+        assertThat(extracts.get("create").getInfo().getDescription()).isEqualTo("Create only");
+        assertThat(extracts.get("create").getPaths()).containsOnlyKeys("/pets");
+        assertThat(openAPI.getInfo().getTitle()).isEqualTo("Swagger Petstore");
+    }
 }
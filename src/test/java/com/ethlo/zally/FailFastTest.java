@@ -0,0 +1,163 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+import org.zalando.zally.rule.api.Severity;
+
+import com.typesafe.config.ConfigFactory;
+
+public class FailFastTest
+{
+    private static final String URL = "modified_petstore/petstore.yaml";
+
+    @Test
+    public void stopsAtFirstFailingCheck() throws IOException
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> all = runner.validate(URL, Collections.emptySet());
+        final long total = all.values().stream().mapToLong(List::size).sum();
+
+        runner.setFailFast(Collections.singleton(Severity.MUST));
+        final List<Result> results = new ArrayList<>();
+        final boolean complete = runner.validate(URL, Collections.emptySet(), (source, checkDetails, result) -> results.add(result));
+
+        assertThat(complete).isFalse();
+        assertThat(results).isNotEmpty().hasSizeLessThan((int) total);
+        assertThat(results.get(results.size() - 1).getViolationType()).isEqualTo(Severity.MUST);
+        assertThat(results.stream().filter(result -> result.getViolationType() != Severity.MUST)).isEmpty();
+    }
+
+    @Test
+    public void ordersOnCheckSeverity() throws IOException
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final List<CheckDetails> checks = new ArrayList<>(runner.validate(URL, Collections.emptySet()).keySet());
+        runner.setFailFast(Collections.singleton(Severity.MUST));
+
+        final List<CheckDetails> ordered = runner.order(checks);
+        final long failing = checks.stream().filter(checkDetails -> checkDetails.getCheck().severity() == Severity.MUST).count();
+        assertThat(failing).isPositive().isLessThan(checks.size());
+        assertThat(ordered.subList(0, (int) failing)).allMatch(checkDetails -> checkDetails.getCheck().severity() == Severity.MUST);
+        assertThat(ordered.subList((int) failing, ordered.size())).noneMatch(checkDetails -> checkDetails.getCheck().severity() == Severity.MUST);
+    }
+
+    @Test
+    public void stopsParallelRunWhenLaterCheckFails() throws IOException
+    {
+        final ZallyRunner reference = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> all = reference.validate(URL, Collections.emptySet());
+        final CheckDetails passing = all.entrySet().stream()
+                .filter(entry -> entry.getKey().getCheck().severity() == Severity.MUST && entry.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .findFirst().orElseThrow();
+        final String blockedName = passing.getInstance().getClass().getSimpleName() + "." + passing.getMethod().getName();
+
+        // The passing check is the cheapest, so it comes first, and it does not complete until the run is over
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean blockedCompleted = new AtomicBoolean();
+        final Profiler profiler = new Profiler(false, false)
+        {
+            @Override
+            public Measurement start(final String phase, final String name)
+            {
+                if (!CHECK.equals(phase) || !name.equals(blockedName))
+                {
+                    return super.start(phase, name);
+                }
+                try
+                {
+                    release.await(30, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return () -> blockedCompleted.set(true);
+            }
+        };
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog(), null, profiler);
+        runner.setThreads(4);
+        runner.setFailFast(Collections.singleton(Severity.MUST));
+        for (CheckDetails checkDetails : all.keySet())
+        {
+            runner.getCheckCosts().record(checkDetails, checkDetails == passing ? 1 : 1_000_000);
+        }
+        assertThat(runner.order(new ArrayList<>(all.keySet())).get(0)).isSameAs(passing);
+
+        try
+        {
+            final List<Result> results = new ArrayList<>();
+            final boolean complete = runner.validate(URL, Collections.emptySet(), (source, checkDetails, result) -> results.add(result));
+
+            assertThat(complete).isFalse();
+            assertThat(blockedCompleted).isFalse();
+            assertThat(results).isNotEmpty();
+            assertThat(results.get(results.size() - 1).getViolationType()).isEqualTo(Severity.MUST);
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void completesWithoutFailingViolations() throws IOException
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        runner.setFailFast(Collections.emptySet());
+        assertThat(runner.validate(URL, Collections.emptySet(), (source, checkDetails, result) ->
+        {
+        })).isTrue();
+    }
+
+    @Test
+    public void persistsCheckCosts() throws IOException
+    {
+        final Path file = Files.createTempDirectory("zally-maven-plugin").resolve("check-costs.json");
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> results = runner.validate(URL, Collections.emptySet());
+        runner.getCheckCosts().save(file, new SystemStreamLog());
+
+        final CheckCosts loaded = CheckCosts.load(file, new SystemStreamLog());
+        assertThat(loaded.size()).isEqualTo(results.size());
+        for (CheckDetails checkDetails : results.keySet())
+        {
+            assertThat(loaded.get(checkDetails)).isEqualTo(runner.getCheckCosts().get(checkDetails));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.swagger.v3.core.model.ApiDescription;
+import io.swagger.v3.oas.models.Operation;
+
+public class FilterIndexTest
+{
+    @Test
+    public void literalPrefix()
+    {
+        assertThat(FilterIndex.getLiteralPrefix("getUsers.*")).isEqualTo("getUsers");
+        assertThat(FilterIndex.getLiteralPrefix("getUsers?")).isEqualTo("getUser");
+        assertThat(FilterIndex.getLiteralPrefix("get|put")).isEmpty();
+        assertThat(FilterIndex.getLiteralPrefix("(?i)get.*")).isEmpty();
+    }
+
+    @Test
+    public void returnsFirstMatchingFilterInDeclarationOrder()
+    {
+        final List<OperationFilter> filters = Arrays.asList(
+                new OperationFilter("tags", "admin"),
+                new OperationFilter("operationId", "get.*"),
+                new OperationFilter("operationId", "getUsers"),
+                new OperationFilter("path", ".*/users"));
+        final FilterIndex index = new FilterIndex(filters);
+
+        assertThat(index.match(operation("getUsers", "/v1/users", "users"))).contains(filters.get(1));
+        assertThat(index.match(operation("listUsers", "/v1/users", "admin"))).contains(filters.get(0));
+        assertThat(index.match(operation("listUsers", "/v1/users", "users"))).contains(filters.get(3));
+        assertThat(index.match(operation("listOrders", "/v1/orders", "orders"))).isEmpty();
+    }
+
+    @Test
+    public void keepsNamedGroupsApart()
+    {
+        final List<OperationFilter> filters = Arrays.asList(
+                new OperationFilter("operationId", "(?<id>list)Users"),
+                new OperationFilter("operationId", "(?<id>get)Orders"),
+                new OperationFilter("operationId", "(find|search)Items"));
+        final FilterIndex index = new FilterIndex(filters);
+
+        assertThat(index.match(operation("getOrders", "/orders", "orders"))).contains(filters.get(1));
+        assertThat(index.match(operation("searchItems", "/items", "items"))).contains(filters.get(2));
+        assertThat(index.match(operation("getUsers", "/users", "users"))).isEmpty();
+    }
+
+    @Test
+    public void keepsUnterminatedQuotesApart()
+    {
+        final List<OperationFilter> filters = Arrays.asList(
+                new OperationFilter("operationId", "\\Qa.b"),
+                new OperationFilter("operationId", "(c|d)e"),
+                new OperationFilter("operationId", "[xy]z"));
+        final FilterIndex index = new FilterIndex(filters);
+
+        assertThat(index.match(operation("a.b", "/a", "a"))).contains(filters.get(0));
+        assertThat(index.match(operation("axb", "/a", "a"))).isEmpty();
+        assertThat(index.match(operation("de", "/d", "d"))).contains(filters.get(1));
+        assertThat(index.match(operation("yz", "/y", "y"))).contains(filters.get(2));
+    }
+
+    @Test
+    public void matchesLikeLinearEvaluation()
+    {
+        final Random random = new Random(42);
+        final List<OperationFilter> filters = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+        {
+            switch (random.nextInt(6))
+            {
+                case 0:
+                    filters.add(new OperationFilter("operationId", "operation" + random.nextInt(1000)));
+                    break;
+                case 1:
+                    filters.add(new OperationFilter("tags", "tag" + random.nextInt(50)));
+                    break;
+                case 2:
+                    filters.add(new OperationFilter("path", "/resources" + random.nextInt(100) + "/.*"));
+                    break;
+                case 3:
+                    filters.add(new OperationFilter("operationId", "operation" + random.nextInt(100) + "[0-9]?"));
+                    break;
+                case 4:
+                    filters.add(new OperationFilter("path", ".*/items" + random.nextInt(20)));
+                    break;
+                default:
+                    filters.add(new OperationFilter("extensions/x-audience", "(external|partner)-" + random.nextInt(5)));
+            }
+        }
+        final FilterIndex index = new FilterIndex(filters);
+
+        for (int i = 0; i < 2000; i++)
+        {
+            final OperationData data = operation("operation" + random.nextInt(1000),
+                    "/resources" + random.nextInt(150) + "/items" + random.nextInt(30),
+                    "tag" + random.nextInt(80),
+                    Collections.singletonMap("x-audience", (random.nextBoolean() ? "external-" : "partner-") + random.nextInt(8)));
+            assertThat(index.match(data)).isEqualTo(linear(filters, data));
+        }
+    }
+
+    private static Optional<OperationFilter> linear(final List<OperationFilter> filters, final OperationData data)
+    {
+        return filters.stream().filter(filter -> ExtractMojo.match(filter, data)).findFirst();
+    }
+
+    private static OperationData operation(final String operationId, final String path, final String tag)
+    {
+        return operation(operationId, path, tag, Collections.emptyMap());
+    }
+
+    private static OperationData operation(final String operationId, final String path, final String tag, final Map<String, Object> extensions)
+    {
+        return new OperationData(new Operation().operationId(operationId).tags(Collections.singletonList(tag)), new ApiDescription(path, "GET"), extensions);
+    }
+}
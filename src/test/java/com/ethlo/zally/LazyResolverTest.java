@@ -0,0 +1,177 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.typesafe.config.ConfigFactory;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.callbacks.Callback;
+import io.swagger.v3.oas.models.headers.Header;
+import io.swagger.v3.oas.models.links.Link;
+import io.swagger.v3.oas.models.media.Schema;
+
+public class LazyResolverTest
+{
+    @Test
+    public void sharesReferencedSchemas() throws IOException
+    {
+        final Path file = Files.createTempFile("zally-maven-plugin", ".yaml");
+        Files.writeString(file, "openapi: \"3.0.0\"\n"
+                + "info:\n  version: 1.0.0\n  title: Shared\n"
+                + "paths:\n"
+                + "  /first:\n    get:\n      responses:\n        '200':\n          description: OK\n"
+                + "          content:\n            application/json:\n              schema:\n                $ref: '#/components/schemas/Node'\n"
+                + "  /second:\n    get:\n      responses:\n        '200':\n          description: OK\n"
+                + "          content:\n            application/json:\n              schema:\n                $ref: '#/components/schemas/Node'\n"
+                + "components:\n  schemas:\n"
+                + "    Node:\n      type: object\n      properties:\n"
+                + "        name:\n          type: string\n"
+                + "        children:\n          type: array\n          items:\n            $ref: '#/components/schemas/Node'\n");
+
+        final OpenAPI openAPI = new OpenApiParser().resolve(new OpenApiParser().parse(file.toString()), Resolution.LAZY);
+
+        final Schema<?> first = schema(openAPI, "/first");
+        assertThat(first.get$ref()).isNull();
+        assertThat(first).isSameAs(schema(openAPI, "/second")).isSameAs(openAPI.getComponents().getSchemas().get("Node"));
+        assertThat(first.getProperties()).containsKey("name");
+
+        // The recursive reference is kept
+        assertThat(first.getProperties().get("children").getItems().get$ref()).isEqualTo("#/components/schemas/Node");
+    }
+
+    @Test
+    public void breaksCyclesLikeFullResolution() throws IOException
+    {
+        // Declared in another order than first referenced from the paths
+        final Path file = Files.createTempFile("zally-maven-plugin", ".yaml");
+        Files.writeString(file, "openapi: \"3.0.0\"\n"
+                + "info:\n  version: 1.0.0\n  title: Cycles\n"
+                + "paths:\n"
+                + "  /a:\n    get:\n      responses:\n        '200':\n          description: OK\n"
+                + "          content:\n            application/json:\n              schema:\n                $ref: '#/components/schemas/A'\n"
+                + "  /b:\n    get:\n      responses:\n        '200':\n          description: OK\n"
+                + "          content:\n            application/json:\n              schema:\n                $ref: '#/components/schemas/B'\n"
+                + "components:\n  schemas:\n"
+                + "    B:\n      type: object\n      properties:\n        a:\n          $ref: '#/components/schemas/A'\n"
+                + "    A:\n      type: object\n      properties:\n"
+                + "        b:\n          $ref: '#/components/schemas/B'\n"
+                + "        c:\n          $ref: '#/components/schemas/C'\n"
+                + "    C:\n      type: object\n      properties:\n"
+                + "        a:\n          $ref: '#/components/schemas/A'\n"
+                + "        c:\n          $ref: '#/components/schemas/C'\n");
+
+        final OpenAPI full = new OpenApiParser().resolve(new OpenApiParser().parse(file.toString()), Resolution.FULL);
+        final OpenAPI lazy = new OpenApiParser().resolve(new OpenApiParser().parse(file.toString()), Resolution.LAZY);
+        for (String path : new String[]{"/a", "/b"})
+        {
+            assertThat(shape(schema(lazy, path))).isEqualTo(shape(schema(full, path)));
+        }
+        // The cycle is broken on the edge back to A only
+        assertThat(shape(schema(lazy, "/b"))).isEqualTo("{a=#/components/schemas/A}");
+        assertThat(shape(schema(lazy, "/a"))).isEqualTo("{b={a=#/components/schemas/A}, c={a=#/components/schemas/A, c=#/components/schemas/C}}");
+    }
+
+    @Test
+    public void resolvesCallbacksLinksAndEncodingHeaders() throws IOException
+    {
+        final Path file = Files.createTempFile("zally-maven-plugin", ".yaml");
+        Files.writeString(file, "openapi: \"3.0.0\"\n"
+                + "info:\n  version: 1.0.0\n  title: Parts\n"
+                + "paths:\n"
+                + "  /orders:\n    post:\n"
+                + "      requestBody:\n        content:\n          multipart/form-data:\n"
+                + "            schema:\n              type: object\n"
+                + "            encoding:\n              file:\n                headers:\n                  X-Rate:\n                    $ref: '#/components/headers/Rate'\n"
+                + "      callbacks:\n        created:\n          $ref: '#/components/callbacks/Created'\n"
+                + "      responses:\n        '201':\n          description: Created\n"
+                + "          links:\n            self:\n              $ref: '#/components/links/Self'\n"
+                + "components:\n"
+                + "  schemas:\n    Order:\n      type: object\n"
+                + "  headers:\n    Rate:\n      schema:\n        $ref: '#/components/schemas/Order'\n"
+                + "  links:\n    Self:\n      operationId: getOrder\n"
+                + "  callbacks:\n    Created:\n      '{$request.body#/url}':\n        post:\n"
+                + "          requestBody:\n            content:\n              application/json:\n                schema:\n                  $ref: '#/components/schemas/Order'\n"
+                + "          responses:\n            '200':\n              description: OK\n");
+
+        final OpenAPI openAPI = new OpenApiParser().resolve(new OpenApiParser().parse(file.toString()), Resolution.LAZY);
+        final Schema<?> order = openAPI.getComponents().getSchemas().get("Order");
+        final Operation operation = openAPI.getPaths().get("/orders").getPost();
+
+        final Header encodingHeader = operation.getRequestBody().getContent().get("multipart/form-data").getEncoding().get("file").getHeaders().get("X-Rate");
+        assertThat(encodingHeader.get$ref()).isNull();
+        assertThat(encodingHeader.getSchema()).isSameAs(order);
+
+        final Callback callback = operation.getCallbacks().get("created");
+        assertThat(callback.get$ref()).isNull();
+        assertThat(callback.get("{$request.body#/url}").getPost().getRequestBody().getContent().get("application/json").getSchema()).isSameAs(order);
+
+        final Link link = operation.getResponses().get("201").getLinks().get("self");
+        assertThat(link.get$ref()).isNull();
+        assertThat(link.getOperationId()).isEqualTo("getOrder");
+    }
+
+    @Test
+    public void findsSameViolationsAsFullResolution() throws IOException
+    {
+        final String url = "modified_petstore/petstore.yaml";
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> full = runner.validate(url, Collections.emptySet());
+
+        runner.setResolution(Resolution.LAZY);
+        final Map<CheckDetails, List<Result>> lazy = runner.validate(url, Collections.emptySet());
+
+        assertThat(lazy).isEqualTo(full);
+    }
+
+    /**
+     * @return The properties of a schema, with references as their target
+     */
+    private static String shape(final Schema<?> schema)
+    {
+        if (schema.get$ref() != null)
+        {
+            return schema.get$ref();
+        }
+        return schema.getProperties().entrySet().stream()
+                .map(property -> property.getKey() + "=" + shape(property.getValue()))
+                .collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    private static Schema<?> schema(final OpenAPI openAPI, final String path)
+    {
+        return openAPI.getPaths().get(path).getGet().getResponses().get("200").getContent().get("application/json").getSchema();
+    }
+}
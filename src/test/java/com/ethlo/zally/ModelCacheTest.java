@@ -0,0 +1,72 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+
+import io.swagger.v3.oas.models.OpenAPI;
+
+public class ModelCacheTest
+{
+    @Test
+    public void reusesModelUntilContentChanges() throws IOException
+    {
+        final Path file = Files.createTempFile("zally-maven-plugin", ".yaml");
+        Files.writeString(file, spec("First"));
+        final String url = file.toString();
+        final ModelCache cache = new ModelCache();
+
+        final OpenAPI parsed = cache.get(url, Resolution.NONE);
+        assertThat(cache.get(url, Resolution.NONE)).isSameAs(parsed);
+
+        final OpenAPI inlined = cache.get(url, Resolution.FULL);
+        assertThat(inlined).isNotSameAs(parsed);
+        assertThat(cache.get(url, Resolution.FULL)).isSameAs(inlined);
+
+        Files.writeString(file, spec("Second"));
+        final OpenAPI changed = cache.get(url, Resolution.NONE);
+        assertThat(changed).isNotSameAs(parsed);
+        assertThat(changed.getInfo().getTitle()).isEqualTo("Second");
+        // The previous version is dropped, the fully resolved one is still the first
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void sharesModelsBetweenGoals() throws Exception
+    {
+        final ModelCache cache = new ModelCache();
+        final OpenAPI model = ExtractMojo.load(new SystemStreamLog(), false, "modified_petstore/petstore.yaml", Resolution.FULL, cache).orElseThrow();
+        assertThat(cache.get("modified_petstore/petstore.yaml", Resolution.FULL)).isSameAs(model);
+        assertThat(ModelCache.forSession(null)).isNotSameAs(ModelCache.forSession(null));
+    }
+
+    private static String spec(final String title)
+    {
+        return "openapi: \"3.0.0\"\ninfo:\n  version: 1.0.0\n  title: " + title + "\npaths: {}\n";
+    }
+}
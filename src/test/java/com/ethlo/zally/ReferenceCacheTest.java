@@ -0,0 +1,129 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.parser.OpenAPIResolver;
+import io.swagger.v3.parser.core.models.ParseOptions;
+
+public class ReferenceCacheTest
+{
+    @Test
+    public void parsesLikeUncachedParser()
+    {
+        final ReferenceCache references = new ReferenceCache();
+        final String url = "modified_petstore/petstore.yaml";
+
+        final OpenAPI cached = new OpenApiParser(references).parse(url);
+
+        assertThat(Json.pretty(cached)).isEqualTo(Json.pretty(new OpenApiParser().parse(url)));
+        assertThat(references.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void attachesToPinnedResolver()
+    {
+        final OpenAPIResolver resolver = new OpenAPIResolver(new OpenAPI(), new ArrayList<>(), "modified_petstore/petstore.yaml", null, new ParseOptions());
+
+        assertThat(new ReferenceCache().attach(resolver.getCache()))
+                .as("ReferenceCache.attach no longer matches the ResolverCache of this swagger-parser version")
+                .isTrue();
+    }
+
+    @Test
+    public void sharesDocumentsBetweenSpecifications() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        final Path common = directory.resolve("common.yaml");
+        Files.writeString(common, problem("title"));
+        final Path first = directory.resolve("first.yaml");
+        final Path second = directory.resolve("second.yaml");
+        Files.writeString(first, spec("First"));
+        Files.writeString(second, spec("Second"));
+        final ModelCache modelCache = new ModelCache();
+
+        modelCache.get(first.toString(), Resolution.NONE);
+        modelCache.get(second.toString(), Resolution.NONE);
+
+        final ReferenceCache references = modelCache.getReferences();
+        assertThat(references.getMisses()).isEqualTo(1);
+        assertThat(references.getHits()).isPositive();
+
+        Files.writeString(common, problem("detail"));
+        Files.setLastModifiedTime(common, FileTime.fromMillis(Files.getLastModifiedTime(common).toMillis() + 60_000));
+        final OpenAPI changed = modelCache.get(first.toString(), Resolution.NONE);
+        final Map<String, Schema> properties = changed.getComponents().getSchemas().get("Problem").getProperties();
+        assertThat(properties).containsOnlyKeys("detail");
+        assertThat(references.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed()
+    {
+        final ReferenceCache references = new ReferenceCache(10);
+        references.put("first", "12345");
+        references.put("second", "12345");
+        references.get("first");
+        references.put("third", "12345");
+
+        assertThat(references.get("first")).isEqualTo("12345");
+        assertThat(references.get("second")).isNull();
+        assertThat(references.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void keysFilesOnLocationAndModification() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        final Path file = directory.resolve("common.yaml");
+        Files.writeString(file, "a: b\n");
+
+        final String key = ReferenceCache.getKey("./common.yaml", directory.resolve("sub/.."), null);
+        assertThat(key).startsWith(file.toUri().toString() + "@");
+        assertThat(ReferenceCache.getKey("common.yaml", directory, null)).isEqualTo(key);
+        assertThat(ReferenceCache.getKey("https://example.com/common.yaml", directory, null)).isEqualTo("https://example.com/common.yaml");
+    }
+
+    private static String problem(final String property)
+    {
+        return "components:\n  schemas:\n    Problem:\n      type: object\n      properties:\n        " + property + ":\n          type: string\n";
+    }
+
+    private static String spec(final String title)
+    {
+        return "openapi: \"3.0.0\"\ninfo:\n  version: 1.0.0\n  title: " + title + "\n"
+                + "paths:\n  /problem:\n    get:\n      responses:\n        '200':\n          description: OK\n"
+                + "          content:\n            application/json:\n              schema:\n                $ref: './common.yaml#/components/schemas/Problem'\n";
+    }
+}
@@ -19,6 +19,12 @@ package com.ethlo.zally;
  * #L%
  */
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.maven.plugin.MojoFailureException;
 import org.junit.Test;
@@ -34,4 +40,17 @@ public class ReportingMojoTest
         FieldUtils.writeField(mojo, "source", url, true);
         mojo.execute();
     }
+
+    @Test
+    public void writesInventoryOfReportedModel() throws IllegalAccessException, MojoFailureException, IOException
+    {
+        final Path inventoryFile = Files.createTempDirectory("zally-maven-plugin").resolve("inventory.csv");
+        final ReportingMojo mojo = new ReportingMojo();
+        FieldUtils.writeField(mojo, "source", url, true);
+        FieldUtils.writeField(mojo, "inventoryFile", inventoryFile.toFile(), true);
+        FieldUtils.writeField(mojo, "inventoryFormat", InventoryFormat.CSV, true);
+        mojo.execute();
+
+        assertThat(Files.readAllLines(inventoryFile)).hasSize(5).anyMatch(line -> line.contains(",listPets,"));
+    }
 }
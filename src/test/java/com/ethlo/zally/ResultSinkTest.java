@@ -0,0 +1,92 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+import org.zalando.zally.rule.api.Severity;
+
+import com.typesafe.config.ConfigFactory;
+
+public class ResultSinkTest
+{
+    private static final String URL = "modified_petstore/petstore.yaml";
+
+    @Test
+    public void passesOnSameViolationsAsCollected() throws IOException
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> collected = runner.validate(URL, Collections.emptySet());
+
+        final List<Result> streamed = new ArrayList<>();
+        final SeverityCounter counter = new SeverityCounter();
+        runner.setThreads(2);
+        runner.validate(URL, Collections.emptySet(), ResultSink.of(counter, (source, checkDetails, result) ->
+        {
+            assertThat(source).isEqualTo(URL);
+            assertThat(collected.get(checkDetails)).contains(result);
+            streamed.add(result);
+        }));
+
+        final List<Result> expected = collected.values().stream().flatMap(List::stream).collect(Collectors.toList());
+        assertThat(streamed).isEqualTo(expected);
+        assertThat(counter.getTotal()).isEqualTo(expected.size());
+        assertThat(counter.getSeverities()).containsExactlyInAnyOrderElementsOf(expected.stream().map(Result::getViolationType).collect(Collectors.toSet()));
+        assertThat(counter.getCount(Severity.MUST)).isEqualTo(expected.stream().filter(r -> r.getViolationType() == Severity.MUST).count());
+    }
+
+    @Test
+    public void writesCountBeforeSpooledViolations() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        final Path target = directory.resolve("results.txt");
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+
+        final long count;
+        try (ResultWriter writer = ResultWriter.open(target, ResultFormat.TEXT))
+        {
+            runner.validate(URL, Collections.emptySet(), writer);
+            count = writer.getCount();
+        }
+
+        final List<String> lines = Files.readAllLines(target);
+        assertThat(lines.get(0)).isEqualTo("Rule violations (" + count + ")");
+        assertThat(lines).hasSize((int) count + 1);
+        try (Stream<Path> files = Files.list(directory))
+        {
+            assertThat(files).containsExactly(target);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typesafe.config.ConfigFactory;
+
+public class ResultWriterTest
+{
+    private static final String SOURCE = "api.yaml";
+    private static final List<Map.Entry<CheckDetails, Result>> violations = new ArrayList<>();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeClass
+    public static void validate() throws IOException
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        runner.validate("modified_petstore/petstore.yaml", Collections.emptySet())
+                .forEach((checkDetails, results) -> results.forEach(result -> violations.add(Map.entry(checkDetails, result))));
+        assertThat(violations).isNotEmpty();
+    }
+
+    @Test
+    public void text() throws IOException
+    {
+        final String[] lines = write(ResultFormat.TEXT).split(System.lineSeparator());
+        assertThat(lines).hasSize(violations.size() + 1);
+        assertThat(lines[0]).isEqualTo("Rule violations (" + violations.size() + ")");
+        assertThat(lines[1]).isEqualTo(SOURCE + " - " + ResultWriter.format(violations.get(0).getKey(), violations.get(0).getValue()));
+    }
+
+    @Test
+    public void json() throws IOException
+    {
+        final JsonNode json = mapper.readTree(write(ResultFormat.JSON));
+        assertThat(json.isArray()).isTrue();
+        assertThat(json).hasSize(violations.size());
+        final Result first = violations.get(0).getValue();
+        assertThat(json.get(0).get("source").asText()).isEqualTo(SOURCE);
+        assertThat(json.get(0).get("id").asText()).isEqualTo(violations.get(0).getKey().getRule().id());
+        assertThat(json.get(0).get("pointer").asText()).isEqualTo(first.getPointer().toString());
+        assertThat(json.get(0).get("severity").asText()).isEqualTo(first.getViolationType().name());
+    }
+
+    @Test
+    public void jsonLines() throws IOException
+    {
+        final String[] lines = write(ResultFormat.JSONL).split("\n");
+        assertThat(lines).hasSize(violations.size());
+        for (int i = 0; i < lines.length; i++)
+        {
+            assertThat(mapper.readTree(lines[i]).get("description").asText()).isEqualTo(violations.get(i).getValue().getDescription());
+        }
+    }
+
+    @Test
+    public void sarif() throws IOException
+    {
+        final JsonNode sarif = mapper.readTree(write(ResultFormat.SARIF));
+        assertThat(sarif.get("version").asText()).isEqualTo("2.1.0");
+        final JsonNode run = sarif.get("runs").get(0);
+        assertThat(run.get("results")).hasSize(violations.size());
+        assertThat(run.get("tool").get("driver").get("rules")).isNotEmpty();
+        final JsonNode location = run.get("results").get(0).get("locations").get(0);
+        assertThat(location.get("physicalLocation").get("artifactLocation").get("uri").asText()).isEqualTo(SOURCE);
+        assertThat(location.get("logicalLocations").get(0).get("fullyQualifiedName").asText()).isEqualTo(violations.get(0).getValue().getPointer().toString());
+    }
+
+    @Test
+    public void sarifLocationsAreRelativeToBaseDirectory() throws IOException
+    {
+        final Path base = Paths.get("project").toAbsolutePath();
+        final StringWriter out = new StringWriter();
+        try (ResultWriter writer = ResultWriter.create(out, ResultFormat.SARIF))
+        {
+            writer.setBaseDirectory(base);
+            writer.setSourcesShown(false);
+            writer.accept(base.resolve("src").resolve("my api.yaml").toString(), violations.get(0).getKey(), violations.get(0).getValue());
+            writer.accept(Paths.get("elsewhere", "api.yaml").toAbsolutePath().toString(), violations.get(0).getKey(), violations.get(0).getValue());
+        }
+
+        final JsonNode results = mapper.readTree(out.toString()).get("runs").get(0).get("results");
+        assertThat(results.get(0).get("locations").get(0).get("physicalLocation").get("artifactLocation").get("uri").asText())
+                .isEqualTo("src/my%20api.yaml");
+        assertThat(results.get(1).get("locations").get(0).get("physicalLocation").get("artifactLocation").get("uri").asText())
+                .isEqualTo(Paths.get("elsewhere", "api.yaml").toAbsolutePath().toUri().toString());
+    }
+
+    @Test
+    public void hidesSourceOfSingleFile() throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        try (ResultWriter writer = ResultWriter.create(out, ResultFormat.JSON))
+        {
+            writer.setSourcesShown(false);
+            writer.accept(SOURCE, violations.get(0).getKey(), violations.get(0).getValue());
+        }
+        assertThat(mapper.readTree(out.toString()).get(0).has("source")).isFalse();
+    }
+
+    @Test
+    public void junit() throws Exception
+    {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(write(ResultFormat.JUNIT).getBytes(StandardCharsets.UTF_8)));
+        assertThat(document.getDocumentElement().getAttribute("failures")).isEqualTo(String.valueOf(violations.size()));
+        assertThat(document.getElementsByTagName("testcase").getLength()).isEqualTo(violations.size());
+        assertThat(document.getElementsByTagName("failure").getLength()).isEqualTo(violations.size());
+    }
+
+    private static String write(final ResultFormat format) throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        try (ResultWriter writer = ResultWriter.create(out, format))
+        {
+            for (Map.Entry<CheckDetails, Result> violation : violations)
+            {
+                writer.accept(SOURCE, violation.getKey(), violation.getValue());
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Test;
+
+import com.ethlo.zally.rules.WhiteListedPluralizeNamesForArraysRule;
+import io.github.classgraph.ClassGraph;
+
+public class RuleIndexTest
+{
+    private static final String STORED = "com.example.StoredRule storedCheck";
+
+    @After
+    public void clearLoaded()
+    {
+        RuleIndex.clearLoaded();
+    }
+
+    @Test
+    public void writesIndexForClasspath() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        final RuleIndex index = RuleIndex.load(directory, new SystemStreamLog());
+
+        assertThat(index.getChecksByRuleClass())
+                .containsEntry(WhiteListedPluralizeNamesForArraysRule.class.getName(), Collections.singletonList("checkArrayPropertyNamesArePlural"));
+        assertThat(RuleIndex.load(directory, new SystemStreamLog())).isSameAs(index);
+
+        final Path indexFile = directory.resolve("rule-index-" + index.getKey() + ".txt");
+        assertThat(Files.readAllLines(indexFile))
+                .contains(WhiteListedPluralizeNamesForArraysRule.class.getName() + " checkArrayPropertyNamesArePlural");
+    }
+
+    @Test
+    public void readsIndexFileOnColdStart() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        final List<File> classpath = classpathWith(Files.createTempFile(directory, "rules", ".jar"));
+        final Path indexFile = directory.resolve("rule-index-" + RuleIndex.classpathKey(classpath) + ".txt");
+        Files.writeString(indexFile, STORED + "\n");
+
+        RuleIndex.clearLoaded();
+        final RuleIndex index = RuleIndex.load(directory, classpath, new SystemStreamLog());
+
+        // Only the stored file knows this rule, a classpath scan would not find it
+        assertThat(index.getChecksByRuleClass()).containsOnlyKeys("com.example.StoredRule");
+        assertThat(index.getChecksByRuleClass().get("com.example.StoredRule")).containsExactly("storedCheck");
+    }
+
+    @Test
+    public void changedClasspathEntryInvalidatesIndex() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        final Path jar = Files.createTempFile(directory, "rules", ".jar");
+        final List<File> classpath = classpathWith(jar);
+        final String key = RuleIndex.classpathKey(classpath);
+        Files.writeString(directory.resolve("rule-index-" + key + ".txt"), STORED + "\n");
+
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 10_000));
+        final String touchedKey = RuleIndex.classpathKey(classpath);
+        assertThat(touchedKey).isNotEqualTo(key);
+
+        RuleIndex.clearLoaded();
+        final RuleIndex touched = RuleIndex.load(directory, classpath, new SystemStreamLog());
+        assertThat(touched.getKey()).isEqualTo(touchedKey);
+        assertThat(touched.getChecksByRuleClass())
+                .doesNotContainKey("com.example.StoredRule")
+                .containsKey(WhiteListedPluralizeNamesForArraysRule.class.getName());
+        assertThat(directory.resolve("rule-index-" + touchedKey + ".txt")).exists();
+
+        Files.writeString(jar, "grown");
+        assertThat(RuleIndex.classpathKey(classpath)).isNotEqualTo(touchedKey).isNotEqualTo(key);
+    }
+
+    private static List<File> classpathWith(final Path element)
+    {
+        final List<File> classpath = new ArrayList<>(new ClassGraph().getClasspathFiles());
+        classpath.add(element.toFile());
+        return classpath;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.JsonPointerLocator;
+
+import com.fasterxml.jackson.core.JsonPointer;
+
+public class SourceLocatorTest
+{
+    private static final int PATHS = 2_000;
+
+    @Test
+    public void locateMatchesJsonPointerLocator() throws IOException
+    {
+        final String spec = generateSpec(PATHS);
+        final Path file = Files.createTempFile("zally-maven-plugin", ".yaml");
+        Files.writeString(file, spec);
+
+        final SourceLocator locator = new SourceLocator(file.toString(), new SystemStreamLog());
+        final JsonPointerLocator reference = new JsonPointerLocator(spec);
+        for (int i = 0; i < PATHS; i += 97)
+        {
+            final JsonPointer pointer = operationPointer(i);
+            assertThat(locator.locate(pointer)).isEqualTo(reference.locate(pointer));
+        }
+    }
+
+    @Test
+    public void costGrowsWithSpecSizeNotWithResults() throws IOException
+    {
+        final int results = 10_000;
+        final int distinct = 100;
+        for (int paths : new int[]{500, 1_000, 2_000})
+        {
+            final String spec = generateSpec(paths);
+            final Path file = Files.createTempFile("zally-maven-plugin", ".yaml");
+            Files.writeString(file, spec);
+
+            final SourceLocator locator = new SourceLocator(file.toString(), new SystemStreamLog());
+            for (int i = 0; i < results; i++)
+            {
+                assertThat(locator.locate(operationPointer(i % distinct))).isNotNull();
+            }
+
+            // One read and one tokenization of the whole spec, and one tree lookup per distinct pointer
+            assertThat(locator.getReads()).as("reads of %d paths", paths).isEqualTo(1);
+            assertThat(locator.getParsedLength()).as("parsed length of %d paths", paths).isEqualTo(spec.length());
+            assertThat(locator.getLookups()).as("lookups in %d paths", paths).isEqualTo(distinct);
+        }
+    }
+
+    private static JsonPointer operationPointer(final int index)
+    {
+        return JsonPointer.compile("/paths/~1resources" + index + "/get/responses/200");
+    }
+
+    private static String generateSpec(final int paths)
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("openapi: \"3.0.0\"\n");
+        sb.append("info:\n  version: 1.0.0\n  title: Generated\n");
+        sb.append("paths:\n");
+        for (int i = 0; i < paths; i++)
+        {
+            sb.append("  /resources").append(i).append(":\n");
+            sb.append("    get:\n");
+            sb.append("      operationId: getResource").append(i).append('\n');
+            sb.append("      responses:\n");
+            sb.append("        '200':\n");
+            sb.append("          description: OK\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.ethlo.zally.rules.WhiteListedPluralizeNamesForArraysRule;
+import com.typesafe.config.ConfigFactory;
+
+public class StreamingValidatorTest
+{
+    private static final String SPEC = "openapi: \"3.0.0\"\n"
+            + "info:\n  version: 1.0.0\n  title: Streaming\n"
+            + "paths: {}\n"
+            + "components:\n"
+            + "  schemas:\n"
+            + "    Pet:\n"
+            + "      type: array\n"
+            + "      items:\n"
+            + "        type: string\n"
+            + "    Order:\n"
+            + "      x-zally-ignore:\n"
+            + "        - 120\n"
+            + "      type: array\n"
+            + "      items:\n"
+            + "        type: string\n"
+            + "    Users:\n"
+            + "      type: array\n"
+            + "      items:\n"
+            + "        type: string\n";
+
+    @Test
+    public void reportsSameViolationsAsModelChecks() throws IOException
+    {
+        final String url = write(SPEC);
+        final ZallyRunner runner = runner();
+        final Map<CheckDetails, List<Result>> model = runner.validate(url, otherRules(runner));
+
+        runner.setStreaming(true);
+        final Map<CheckDetails, List<Result>> streamed = runner.validate(url, otherRules(runner));
+
+        assertThat(streamed.keySet()).isEqualTo(model.keySet());
+        final List<Result> modelResults = model.values().iterator().next();
+        final List<Result> streamedResults = streamed.values().iterator().next();
+        assertThat(streamedResults).extracting(Result::getPointer).isEqualTo(modelResults.stream().map(Result::getPointer).collect(Collectors.toList()));
+        assertThat(streamedResults).extracting(Result::getDescription).containsExactly("Array property name appears to be singular: Pet");
+
+        // The lines of the schema, from its name to its last value
+        assertThat(streamedResults.get(0).getLines().getFirst()).isEqualTo(8);
+        assertThat(streamedResults.get(0).getLines().getLast()).isGreaterThanOrEqualTo(11);
+    }
+
+    @Test
+    public void doesNotBuildModelWhenOnlyStreamingRulesAreEnabled() throws IOException
+    {
+        final ZallyRunner runner = runner();
+        final ModelCache modelCache = new ModelCache();
+        runner.setModelCache(modelCache);
+        runner.setStreaming(true);
+
+        runner.validate(write(SPEC), otherRules(runner));
+
+        assertThat(modelCache.size()).isZero();
+    }
+
+    @Test
+    public void buildsModelForBundledZalandoRules() throws IOException
+    {
+        final ZallyRunner runner = runner();
+        final ModelCache modelCache = new ModelCache();
+        runner.setModelCache(modelCache);
+        runner.setStreaming(true);
+
+        // The Zalando rules do not stream, so the default rule set still needs the model
+        runner.validate(write(SPEC), Collections.emptySet());
+
+        assertThat(modelCache.size()).isEqualTo(1);
+    }
+
+    private static ZallyRunner runner()
+    {
+        return new ZallyRunner(ConfigFactory.parseString("WhiteListedPluralizeNamesForArraysRule { whitelist: [Pet, Order, Users] }")
+                .withFallback(ConfigFactory.load("reference")), new SystemStreamLog());
+    }
+
+    private static Set<String> otherRules(final ZallyRunner runner)
+    {
+        return runner.getRules().stream()
+                .map(rule -> rule.getInstance().getClass().getSimpleName())
+                .filter(name -> !name.equals(WhiteListedPluralizeNamesForArraysRule.class.getSimpleName()))
+                .collect(Collectors.toSet());
+    }
+
+    private static String write(final String content) throws IOException
+    {
+        final Path file = Files.createTempFile("zally-maven-plugin", ".yaml");
+        Files.writeString(file, content);
+        return file.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.typesafe.config.ConfigFactory;
+
+public class ValidationCacheTest
+{
+    @Test
+    public void keyCoversReferencedFiles() throws IOException, URISyntaxException
+    {
+        final Path source = copyPetstore();
+        final ValidationCache cache = new ValidationCache(Files.createTempDirectory("zally-maven-plugin"), "config", new SystemStreamLog());
+        final String key = cache.getKey(source.toString());
+        assertThat(cache.getKey(source.toString())).isEqualTo(key);
+
+        Files.writeString(source.getParent().resolve("paths").resolve("order.yaml"), "\n", StandardOpenOption.APPEND);
+        assertThat(cache.getKey(source.toString())).isNotEqualTo(key);
+    }
+
+    @Test
+    public void replaysStoredResults() throws IOException, URISyntaxException
+    {
+        final String source = copyPetstore().toString();
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final List<Result> results = new ArrayList<>();
+        final List<CheckDetails> checks = new ArrayList<>();
+
+        final ValidationCache cache = new ValidationCache(Files.createTempDirectory("zally-maven-plugin"), runner.getClasspathKey(), new SystemStreamLog());
+        final String key = cache.getKey(source);
+        assertThat(cache.replay(source, key, runner, (url, checkDetails, result) -> results.add(result))).isFalse();
+
+        try (ValidationCache.Entry entry = cache.create(source, key))
+        {
+            runner.validate(source, Collections.emptySet(), ResultSink.of(entry, (url, checkDetails, result) ->
+            {
+                checks.add(checkDetails);
+                results.add(result);
+            }));
+            entry.commit();
+        }
+        assertThat(results).isNotEmpty();
+
+        final List<Result> replayed = new ArrayList<>();
+        final List<CheckDetails> replayedChecks = new ArrayList<>();
+        assertThat(cache.replay(source, key, runner, (url, checkDetails, result) ->
+        {
+            replayedChecks.add(checkDetails);
+            replayed.add(result);
+        })).isTrue();
+        assertThat(replayed).isEqualTo(results);
+        assertThat(replayedChecks).isEqualTo(checks);
+        assertThat(cache.replay(source, "other", runner, (url, checkDetails, result) -> replayed.add(result))).isFalse();
+    }
+
+    @Test
+    public void discardsUncommittedEntries() throws IOException, URISyntaxException
+    {
+        final String source = copyPetstore().toString();
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        final ValidationCache cache = new ValidationCache(directory, runner.getClasspathKey(), new SystemStreamLog());
+        final String key = cache.getKey(source);
+
+        try (ValidationCache.Entry entry = cache.create(source, key))
+        {
+            runner.validate(source, Collections.emptySet(), entry);
+        }
+        assertThat(cache.replay(source, key, runner, (url, checkDetails, result) ->
+        {
+        })).isFalse();
+        try (Stream<Path> files = Files.list(directory))
+        {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private Path copyPetstore() throws IOException, URISyntaxException
+    {
+        final Path petstore = Paths.get(getClass().getResource("/modified_petstore/petstore.yaml").toURI()).getParent();
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        Files.createDirectories(directory.resolve("paths"));
+        Files.copy(petstore.resolve("petstore.yaml"), directory.resolve("petstore.yaml"));
+        Files.copy(petstore.resolve("paths").resolve("order.yaml"), directory.resolve("paths").resolve("order.yaml"));
+        return directory.resolve("petstore.yaml");
+    }
+}
@@ -0,0 +1,248 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.ConfigFactory;
+
+public class ValidationServerTest
+{
+    private static final String URL = "src/test/resources/modified_petstore/petstore.yaml";
+
+    @Test
+    public void returnsSameViolationsAsLocalValidation() throws Exception
+    {
+        final ZallyRunner local = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> expected = local.validate(URL, Collections.emptySet());
+
+        final Path daemonFile = Files.createTempDirectory("zally-maven-plugin").resolve("zally-daemon.json");
+        final ZallyRunner remote = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        try (ValidationServer server = new ValidationServer(remote, "key", new SystemStreamLog()))
+        {
+            server.start(0);
+            server.writeDaemonFile(daemonFile);
+            final ValidationClient client = ValidationClient.connect(daemonFile, "key", new SystemStreamLog()).orElseThrow();
+
+            // Repeated requests are served by the same warm runner
+            for (int i = 0; i < 2; i++)
+            {
+                final List<CheckDetails> checks = new ArrayList<>();
+                final List<Result> results = new ArrayList<>();
+                assertThat(client.validate(URL, Collections.emptySet(), local, (source, checkDetails, result) ->
+                {
+                    checks.add(checkDetails);
+                    results.add(result);
+                })).isTrue();
+
+                assertThat(results).isEqualTo(expected.values().stream().flatMap(List::stream).collect(Collectors.toList()));
+                assertThat(checks).allMatch(expected::containsKey);
+            }
+        }
+    }
+
+    @Test
+    public void refusesOtherConfiguration() throws IOException
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Path daemonFile = Files.createTempDirectory("zally-maven-plugin").resolve("zally-daemon.json");
+        try (ValidationServer server = new ValidationServer(runner, "key", new SystemStreamLog()))
+        {
+            server.start(0);
+            server.writeDaemonFile(daemonFile);
+            final String token = new ObjectMapper().readTree(daemonFile.toFile()).path("token").asText();
+            final ValidationClient client = new ValidationClient(server.getPort(), token, "other");
+            assertThatThrownBy(() -> client.validate(URL, Collections.emptySet(), runner, (source, checkDetails, result) ->
+            {
+            })).isInstanceOf(IOException.class).hasMessageContaining("Configuration");
+        }
+
+        Files.writeString(daemonFile, "{\"port\":1,\"token\":\"token\",\"key\":\"key\"}");
+        assertThat(ValidationClient.connect(daemonFile, "other", new SystemStreamLog())).isEmpty();
+    }
+
+    @Test
+    public void requiresTokenAndLocalFile() throws Exception
+    {
+        final Path daemonFile = Files.createTempDirectory("zally-maven-plugin").resolve("zally-daemon.json");
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        try (ValidationServer server = new ValidationServer(runner, "key", new SystemStreamLog()))
+        {
+            server.start(0);
+            server.writeDaemonFile(daemonFile);
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+            {
+                assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(daemonFile))).isEqualTo("rw-------");
+            }
+
+            final ValidationClient guessing = new ValidationClient(server.getPort(), "guess", "key");
+            assertThatThrownBy(() -> guessing.validate(URL, Collections.emptySet(), runner, (source, checkDetails, result) ->
+            {
+            })).isInstanceOf(IOException.class).hasMessageContaining("token");
+
+            final Path forged = daemonFile.resolveSibling("forged.json");
+            Files.writeString(forged, "{\"port\":" + server.getPort() + ",\"token\":\"guess\",\"key\":\"key\"}");
+            assertThatThrownBy(() -> ValidationClient.stop(forged)).isInstanceOf(IOException.class).hasMessageContaining("token");
+
+            // Sent as is, past the client's own check
+            final ObjectNode request = new ObjectMapper().createObjectNode()
+                    .put("token", new ObjectMapper().readTree(daemonFile.toFile()).path("token").asText())
+                    .put("key", "key")
+                    .put("source", "http://localhost:1/api.yaml");
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort()))
+            {
+                socket.getOutputStream().write((request + "\n").getBytes(StandardCharsets.UTF_8));
+                final String response = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+                assertThat(response).contains("not an existing local file");
+            }
+        }
+    }
+
+    @Test
+    public void answersInvalidRequestsWithError() throws Exception
+    {
+        final Path daemonFile = Files.createTempDirectory("zally-maven-plugin").resolve("zally-daemon.json");
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        try (ValidationServer server = new ValidationServer(runner, "key", new SystemStreamLog()))
+        {
+            server.start(0);
+            server.writeDaemonFile(daemonFile);
+            final ObjectNode request = new ObjectMapper().createObjectNode()
+                    .put("token", new ObjectMapper().readTree(daemonFile.toFile()).path("token").asText())
+                    .put("key", "key")
+                    .put("source", URL);
+            request.putArray("failFast").add("FATAL");
+            assertThat(send(server, request + "\n")).contains("Unknown severity FATAL");
+            assertThat(send(server, "{\"token\":\n")).contains("Invalid request");
+            assertThat(send(server, "x".repeat(ValidationServer.MAX_REQUEST_BYTES + 1))).contains("Request exceeds");
+
+            // Still serving after the rejected requests
+            request.putArray("failFast").add("MUST");
+            assertThat(send(server, request + "\n")).contains("complete");
+        }
+    }
+
+    @Test
+    public void passesViolationsOnAsTheyArrive() throws Exception
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map.Entry<CheckDetails, List<Result>> violation = runner.validate(URL, Collections.emptySet()).entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .findFirst()
+                .orElseThrow();
+        final ObjectNode line = new ObjectMapper().createObjectNode()
+                .put("rule", violation.getKey().getInstance().getClass().getName())
+                .put("method", violation.getKey().getMethod().getName());
+        ValidationCache.writeResult(violation.getValue().get(0), line.putObject("result"));
+
+        // Fails after the first violation, which must already have reached the sink
+        try (ServerSocket failing = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+        {
+            final Thread thread = new Thread(() ->
+            {
+                try (Socket socket = failing.accept())
+                {
+                    new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+                    socket.getOutputStream().write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            thread.start();
+
+            final List<Result> results = new ArrayList<>();
+            final ValidationClient client = new ValidationClient(failing.getLocalPort(), "token", "key");
+            assertThatThrownBy(() -> client.validate(URL, Collections.emptySet(), runner, (source, checkDetails, result) -> results.add(result)))
+                    .isInstanceOf(UncheckedIOException.class).hasMessageContaining("closed the connection");
+            assertThat(results).containsExactly(violation.getValue().get(0));
+            thread.join();
+        }
+    }
+
+    @Test
+    public void disconnectsIdleClients() throws Exception
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        try (ValidationServer server = new ValidationServer(runner, "key", new SystemStreamLog()))
+        {
+            server.start(0);
+            try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), server.getPort()))
+            {
+                idle.setSoTimeout(ValidationServer.REQUEST_TIMEOUT_MILLIS * 2);
+                // Closed by the server without an answer
+                assertThat(idle.getInputStream().read()).isEqualTo(-1);
+            }
+        }
+    }
+
+    @Test
+    public void stopsOnRequest() throws Exception
+    {
+        final Path daemonFile = Files.createTempDirectory("zally-maven-plugin").resolve("zally-daemon.json");
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        try (ValidationServer server = new ValidationServer(runner, "key", new SystemStreamLog()))
+        {
+            server.start(0);
+            server.writeDaemonFile(daemonFile);
+            ValidationClient.stop(daemonFile);
+            server.awaitStop();
+        }
+    }
+
+    private static String send(final ValidationServer server, final String request) throws IOException
+    {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort()))
+        {
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+            socket.shutdownOutput();
+            // The last line holds the outcome
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).lines().reduce((first, second) -> second).orElse(null);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class WorkerThreadFactoryTest
+{
+    @Test
+    public void workersUseCallersContextClassLoader() throws Exception
+    {
+        final Thread current = Thread.currentThread();
+        final ClassLoader previous = current.getContextClassLoader();
+        final ClassLoader realm = new URLClassLoader(new URL[0], previous);
+        final ForkJoinPool pool;
+        current.setContextClassLoader(realm);
+        try
+        {
+            pool = WorkerThreadFactory.newPool(2);
+        }
+        finally
+        {
+            current.setContextClassLoader(previous);
+        }
+
+        try
+        {
+            assertThat(pool.submit(() -> Thread.currentThread().getContextClassLoader()).get()).isSameAs(realm);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
@@ -19,22 +19,33 @@ package com.ethlo.zally;
  * #L%
  */
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.maven.model.FileSet;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.zalando.zally.rule.api.Severity;
 
 import com.ethlo.zally.rules.WhiteListedPluralizeNamesForArraysRule;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class ZallyMojoTest
@@ -88,6 +99,93 @@ public class ZallyMojoTest
         }
     }
 
+    @Test
+    public void sarifLocatesSingleSourceRelativeToBasedir() throws IllegalAccessException, IOException, URISyntaxException, MojoFailureException
+    {
+        final Path petstore = Paths.get(getClass().getResource(url).toURI()).getParent();
+        final Path basedir = Files.createTempDirectory("zally-maven-plugin");
+        final Path specs = Files.createDirectories(basedir.resolve("src").resolve("main").resolve("resources"));
+        Files.createDirectories(specs.resolve("paths"));
+        Files.copy(petstore.resolve("petstore.yaml"), specs.resolve("petstore.yaml"));
+        Files.copy(petstore.resolve("paths").resolve("order.yaml"), specs.resolve("paths").resolve("order.yaml"));
+
+        final MavenProject project = new MavenProject();
+        project.setFile(basedir.resolve("pom.xml").toFile());
+        final Path resultFile = basedir.resolve("target").resolve("zally.sarif");
+        final ZallyMojo mojo = new ZallyMojo();
+        FieldUtils.writeField(mojo, "project", project, true);
+        FieldUtils.writeField(mojo, "failOn", Collections.emptyList(), true);
+        FieldUtils.writeField(mojo, "source", specs.resolve("petstore.yaml").toString(), true);
+        FieldUtils.writeField(mojo, "skipRules", new TreeSet<>(Collections.singletonList("CommonFieldTypesRule")), true);
+        FieldUtils.writeField(mojo, "resultFile", resultFile.toString(), true);
+        FieldUtils.writeField(mojo, "resultFormat", ResultFormat.SARIF, true);
+        mojo.execute();
+
+        final JsonNode results = new ObjectMapper().readTree(resultFile.toFile()).get("runs").get(0).get("results");
+        assertThat(results).isNotEmpty();
+        for (JsonNode result : results)
+        {
+            assertThat(result.get("locations").get(0).get("physicalLocation").get("artifactLocation").get("uri").asText())
+                    .isEqualTo("src/main/resources/petstore.yaml");
+        }
+    }
+
+    @Test
+    public void testMultipleSources() throws IllegalAccessException, IOException, URISyntaxException
+    {
+        final Path petstore = Paths.get(getClass().getResource(url).toURI()).getParent();
+        final Path directory = Files.createTempDirectory("zally-maven-plugin");
+        for (String name : Arrays.asList("first", "second"))
+        {
+            Files.createDirectories(directory.resolve(name).resolve("paths"));
+            Files.copy(petstore.resolve("petstore.yaml"), directory.resolve(name).resolve("petstore.yaml"));
+            Files.copy(petstore.resolve("paths").resolve("order.yaml"), directory.resolve(name).resolve("paths").resolve("order.yaml"));
+        }
+
+        final FileSet sources = new FileSet();
+        sources.setDirectory(directory.toString());
+        sources.addInclude("**/*.yaml");
+        sources.addExclude("**/paths/**");
+
+        final Path resultFile = Files.createTempFile("zally-maven-plugin", ".yaml");
+        final ZallyMojo mojo = new ZallyMojo();
+        FieldUtils.writeField(mojo, "failOn", Collections.singletonList(Severity.MUST), true);
+        FieldUtils.writeField(mojo, "sources", sources, true);
+        FieldUtils.writeField(mojo, "threads", 2, true);
+        FieldUtils.writeField(mojo, "skipRules", new TreeSet<>(Collections.singletonList("CommonFieldTypesRule")), true);
+        FieldUtils.writeField(mojo, "resultFile", resultFile.toString(), true);
+
+        assertThatThrownBy(mojo::execute).isInstanceOf(MojoFailureException.class);
+
+        final String results = Files.readString(resultFile);
+        assertThat(results).contains(directory.resolve("first").resolve("petstore.yaml").toString());
+        assertThat(results).contains(directory.resolve("second").resolve("petstore.yaml").toString());
+    }
+
+    @Test
+    public void testProfile() throws IllegalAccessException, IOException
+    {
+        final Path profileFile = Files.createTempFile("zally-maven-plugin", ".json");
+        final ZallyMojo mojo = new ZallyMojo();
+        FieldUtils.writeField(mojo, "failOn", Collections.emptyList(), true);
+        FieldUtils.writeField(mojo, "source", "modified_petstore/petstore.yaml", true);
+        FieldUtils.writeField(mojo, "skipRules", new TreeSet<>(Collections.singletonList("CommonFieldTypesRule")), true);
+        FieldUtils.writeField(mojo, "profileFile", profileFile.toFile(), true);
+        try
+        {
+            mojo.execute();
+        }
+        catch (MojoFailureException expected)
+        {
+
+        }
+
+        final JsonNode profile = new ObjectMapper().readTree(profileFile.toFile());
+        final List<String> phases = new ArrayList<>();
+        profile.get("phases").forEach(p -> phases.add(p.get("phase").asText()));
+        assertThat(phases).contains(Profiler.CONFIG, Profiler.DISCOVERY, Profiler.INSTANTIATION, Profiler.PARSE, Profiler.RESOLVE, Profiler.CHECK, Profiler.LOCATE, Profiler.REPORT);
+    }
+
     @Ignore
     @Test
     public void testRefs() throws IllegalAccessException, MojoFailureException
@@ -0,0 +1,122 @@
+package com.ethlo.zally;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+import org.zalando.zally.core.CheckDetails;
+import org.zalando.zally.core.Result;
+
+import com.typesafe.config.ConfigFactory;
+
+public class ZallyRunnerTest
+{
+    private final String url = "modified_petstore/petstore.yaml";
+
+    @Test
+    public void parallelKeepsSequentialOrdering() throws IOException
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> sequential = runner.validate(url, Collections.emptySet());
+
+        runner.setThreads(4);
+        runner.setSerialRules(Collections.singleton("WhiteListedPluralizeNamesForArraysRule"));
+        final Map<CheckDetails, List<Result>> parallel = runner.validate(url, Collections.emptySet());
+
+        assertThat(new ArrayList<>(parallel.keySet())).isEqualTo(new ArrayList<>(sequential.keySet()));
+        assertThat(new ArrayList<>(parallel.values())).isEqualTo(new ArrayList<>(sequential.values()));
+    }
+
+    @Test
+    public void serialRulesStaySerialAcrossConcurrentFiles() throws Exception
+    {
+        final String serialRule = "WhiteListedPluralizeNamesForArraysRule";
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+        final Profiler profiler = new Profiler(false, false)
+        {
+            @Override
+            public Measurement start(final String phase, final String name)
+            {
+                if (!CHECK.equals(phase) || !name.startsWith(serialRule + "."))
+                {
+                    return super.start(phase, name);
+                }
+                calls.incrementAndGet();
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.yield();
+                return running::decrementAndGet;
+            }
+        };
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog(), null, profiler);
+        runner.setThreads(4);
+        runner.setSerialRules(Collections.singleton(serialRule));
+
+        final ExecutorService files = Executors.newFixedThreadPool(4);
+        try
+        {
+            final List<Future<Map<CheckDetails, List<Result>>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                results.add(files.submit(() -> runner.validate(url, Collections.emptySet())));
+            }
+            for (Future<Map<CheckDetails, List<Result>>> result : results)
+            {
+                assertThat(result.get()).isNotEmpty();
+            }
+        }
+        finally
+        {
+            files.shutdown();
+        }
+        assertThat(calls.get()).isEqualTo(8);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void resolvesChecksOnce() throws IOException
+    {
+        final ZallyRunner runner = new ZallyRunner(ConfigFactory.load("reference"), new SystemStreamLog());
+        final Map<CheckDetails, List<Result>> first = runner.validate(url, Collections.emptySet());
+        final Map<CheckDetails, List<Result>> second = runner.validate(url, Collections.emptySet());
+
+        final List<CheckDetails> checks = new ArrayList<>(first.keySet());
+        for (int i = 0; i < checks.size(); i++)
+        {
+            final CheckDetails checkDetails = checks.get(i);
+            assertThat(new ArrayList<>(second.keySet()).get(i)).isSameAs(checkDetails);
+            assertThat(runner.getCheckDetails(checkDetails.getInstance().getClass().getName(), checkDetails.getMethod().getName())).containsSame(checkDetails);
+        }
+    }
+}
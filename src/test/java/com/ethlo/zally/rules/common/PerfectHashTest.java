@@ -0,0 +1,100 @@
+package com.ethlo.zally.rules.common;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PerfectHashTest
+{
+    @Test
+    public void findsEveryWordAndNothingElse()
+    {
+        final Set<String> words = new HashSet<>();
+        for (int i = 0; i < 5000; i++)
+        {
+            words.add("word" + i);
+        }
+        final WordSet set = new WordSet(words.toArray(new String[0]));
+
+        assertThat(set).hasSize(words.size()).containsExactlyInAnyOrderElementsOf(words);
+        for (String word : words)
+        {
+            assertThat(set.contains(word)).as(word).isTrue();
+        }
+        for (int i = 5000; i < 10000; i++)
+        {
+            assertThat(set.contains("word" + i)).isFalse();
+        }
+        assertThat(set.contains(42)).isFalse();
+        assertThat(set.contains(null)).isFalse();
+        assertThat(new WordSet().contains("word")).isFalse();
+        assertThat(new WordSet("a", "b", "a")).hasSize(2);
+    }
+
+    @Test
+    public void placesWordsWithEqualHashCodes()
+    {
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        final String[] words = {"Aa", "BB", "AaAa", "AaBB", "BBAa", "BBBB"};
+        final WordSet set = new WordSet(words);
+
+        assertThat(set).containsExactlyInAnyOrder(words);
+        for (String word : words)
+        {
+            assertThat(set.contains(word)).as(word).isTrue();
+        }
+        assertThat(set.contains("AaAaAa")).isFalse();
+
+        final WordMap map = new WordMap("Aa", "1", "BB", "2");
+        assertThat(map.get("Aa")).isEqualTo("1");
+        assertThat(map.get("BB")).isEqualTo("2");
+    }
+
+    @Test
+    public void mapsWords()
+    {
+        final Map<String, String> expected = new HashMap<>(PlingStemmer.irregular);
+        assertThat(PlingStemmer.irregular).isEqualTo(expected);
+        assertThat(PlingStemmer.irregular.get("mice")).isEqualTo("mouse");
+        assertThat(PlingStemmer.irregular.get("mouse")).isNull();
+        assertThat(PlingStemmer.irregular.containsKey("oxen")).isTrue();
+
+        assertThatThrownBy(() -> new WordMap("a", "b", "a", "c")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new WordMap("a")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void isImmutable()
+    {
+        assertThatThrownBy(() -> PlingStemmer.categoryICS.add("cosmics")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> PlingStemmer.categoryICS.iterator().remove()).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> PlingStemmer.irregular.put("teeth", "tooth")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> PlingStemmer.irregular.clear()).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
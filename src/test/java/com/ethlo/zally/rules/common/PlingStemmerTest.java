@@ -0,0 +1,116 @@
+package com.ethlo.zally.rules.common;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PlingStemmerTest
+{
+    private static final List<String> SUFFIXES = Arrays.asList("", "s", "es", "ies", "ses", "sses", "xes", "zes", "ches", "shes", "oes", "ves",
+            "ives", "alves", "olves", "eaves", "arves", "us", "uses", "eaus", "ieus", "aus", "a", "ae", "ata", "ina", "i", "is", "ois", "itis",
+            "ices", "trices", "theses", "nges", "eaux", "ieux", "teeth", "geese", "feet", "zoa", "mousses", "ics");
+
+    @Test
+    public void stemsExamples()
+    {
+        assertThat(PlingStemmer.stem("boy")).isEqualTo("boy");
+        assertThat(PlingStemmer.stem("boys")).isEqualTo("boy");
+        assertThat(PlingStemmer.stem("biophysics")).isEqualTo("biophysics");
+        assertThat(PlingStemmer.stem("automata")).isEqualTo("automaton");
+        assertThat(PlingStemmer.stem("genus")).isEqualTo("genus");
+        assertThat(PlingStemmer.stem("emus")).isEqualTo("emu");
+        assertThat(PlingStemmer.stem("firemen")).isEqualTo("fireman");
+        assertThat(PlingStemmer.stem("appendices")).isEqualTo("appendix");
+        assertThat(PlingStemmer.isPlural("throes")).isFalse();
+        assertThat(PlingStemmer.isSingularAndPlural("Physics")).isTrue();
+    }
+
+    @Test
+    public void classifiesLikeReferenceImplementation()
+    {
+        for (String word : corpus())
+        {
+            assertThat(PlingStemmer.stem(word)).as(word).isEqualTo(ReferencePlingStemmer.stem(word));
+            assertThat(PlingStemmer.isPlural(word)).as(word).isEqualTo(ReferencePlingStemmer.isPlural(word));
+            assertThat(PlingStemmer.isSingular(word)).as(word).isEqualTo(ReferencePlingStemmer.isSingular(word));
+            assertThat(PlingStemmer.isSingularAndPlural(word)).as(word).isEqualTo(ReferencePlingStemmer.isSingularAndPlural(word));
+        }
+    }
+
+    private static List<String> corpus()
+    {
+        final List<String> words = new ArrayList<>();
+        for (Collection<String> category : Arrays.asList(PlingStemmer.categorySE_SES, PlingStemmer.category00, PlingStemmer.categoryUM_A,
+                PlingStemmer.categoryON_A, PlingStemmer.categoryO_I, PlingStemmer.categoryUS_I, PlingStemmer.categoryIX_ICES, PlingStemmer.categoryIS_ES,
+                PlingStemmer.categoryOE_OES, PlingStemmer.categoryEX_ICES, PlingStemmer.categoryU_US, PlingStemmer.categorySSE_SSES,
+                PlingStemmer.categoryCHE_CHES, PlingStemmer.categoryICS, PlingStemmer.categoryIE_IES, PlingStemmer.singAndPlur,
+                PlingStemmer.irregular.keySet(), PlingStemmer.irregular.values()))
+        {
+            for (String word : category)
+            {
+                words.add(word);
+                words.add(word.toUpperCase());
+                words.add("x" + word);
+                words.add(word.substring(1));
+                words.add(ReferencePlingStemmer.stem(word));
+                for (String suffix : SUFFIXES)
+                {
+                    words.add(word + suffix);
+                }
+            }
+        }
+
+        // Letters that tell Latin and Greek words apart, at the start and further in
+        final String[] stems = {"", "h", "y", "ou", "sh", "ch", "ph", "j", "k", "w", "z", "a", "o", "u", "e", "v", "n", "l", "hoh", "yny", "phph",
+                "cactus", "kangaroo", "lynx", "syrinx", "sphinx", "phalanx", "valve", "solve", "heave", "weave", "olive", "knife", "wolf", "leaf", "dwarf"};
+        final Random random = new Random(42);
+        for (String first : stems)
+        {
+            for (String second : stems)
+            {
+                for (String suffix : SUFFIXES)
+                {
+                    words.add(first + second + suffix);
+                }
+            }
+        }
+        final String alphabet = "abcdefghijklmnopqrstuvwxyz-";
+        for (int i = 0; i < 20000; i++)
+        {
+            final StringBuilder word = new StringBuilder();
+            final int length = random.nextInt(8);
+            for (int j = 0; j < length; j++)
+            {
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            words.add(word + SUFFIXES.get(random.nextInt(SUFFIXES.size())));
+        }
+        return words;
+    }
+}
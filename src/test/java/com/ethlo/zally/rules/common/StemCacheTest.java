@@ -0,0 +1,103 @@
+package com.ethlo.zally.rules.common;
+
+/*-
+ * #%L
+ * zally-maven-plugin
+ * %%
+ * Copyright (C) 2021 - 2022 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class StemCacheTest
+{
+    private static final List<String> WORDS = Arrays.asList("items", "data", "id", "links", "boys", "automata", "physics", "people",
+            "genus", "emus", "knives", "quarters", "status", "addresses", "child", "children");
+
+    @Test
+    public void classifiesLikeStemmer()
+    {
+        final StemCache cache = new StemCache(100);
+        for (int round = 0; round < 2; round++)
+        {
+            for (String word : WORDS)
+            {
+                assertThat(cache.stem(word)).as(word).isEqualTo(PlingStemmer.stem(word));
+                assertThat(cache.isPlural(word)).as(word).isEqualTo(PlingStemmer.isPlural(word));
+                assertThat(cache.isSingular(word)).as(word).isEqualTo(PlingStemmer.isSingular(word));
+                assertThat(cache.isSingularAndPlural(word)).as(word).isEqualTo(PlingStemmer.isSingularAndPlural(word));
+            }
+        }
+        assertThat(cache.getMisses()).isEqualTo(WORDS.size());
+        assertThat(cache.getHits()).isEqualTo(WORDS.size() * 8L - WORDS.size());
+        assertThat(cache.size()).isEqualTo(WORDS.size());
+    }
+
+    @Test
+    public void staysBounded()
+    {
+        final StemCache cache = new StemCache(10);
+        for (int i = 0; i < 1000; i++)
+        {
+            assertThat(cache.isPlural("item" + i + "s")).isTrue();
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        assertThat(cache.getMisses()).isEqualTo(1000);
+    }
+
+    @Test
+    public void sharedBetweenThreads() throws Exception
+    {
+        final StemCache cache = new StemCache(100);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            final List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                results.add(executor.submit(() ->
+                {
+                    int plurals = 0;
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        plurals += cache.isPlural(WORDS.get(j % WORDS.size())) ? 1 : 0;
+                    }
+                    return plurals;
+                }));
+            }
+            final int expected = results.get(0).get();
+            for (Future<Integer> result : results)
+            {
+                assertThat(result.get()).isEqualTo(expected);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertThat(cache.getHits() + cache.getMisses()).isEqualTo(8000);
+        assertThat(cache.size()).isEqualTo(WORDS.size());
+    }
+}